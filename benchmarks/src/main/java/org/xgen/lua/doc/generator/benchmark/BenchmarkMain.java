@@ -0,0 +1,25 @@
+package org.xgen.lua.doc.generator.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entry point of the benchmark jar. Takes the usual JMH arguments, but writes the results as
+ * JSON to {@code jmh-result.json} unless {@code -rf} or {@code -rff} is given, so runs can be
+ * compared over time.
+ */
+public class BenchmarkMain {
+
+    private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(List.of(args));
+        if (!arguments.contains("-rf")) {
+            arguments.addAll(0, List.of("-rf", "json"));
+        }
+        if (!arguments.contains("-rff")) {
+            arguments.addAll(0, List.of("-rff", DEFAULT_RESULT_FILE));
+        }
+        org.openjdk.jmh.Main.main(arguments.toArray(String[]::new));
+    }
+}
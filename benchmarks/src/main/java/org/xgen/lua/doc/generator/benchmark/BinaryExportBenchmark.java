@@ -0,0 +1,55 @@
+package org.xgen.lua.doc.generator.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.xgen.lua.doc.generator.doc.LuaClass;
+import org.xgen.lua.doc.generator.doc.LuaDoc;
+import org.xgen.lua.doc.generator.read.BinaryDocReader;
+import org.xgen.lua.doc.generator.write.BinaryExport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing and loading the binary format, for the same doc as {@link JsonExportBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BinaryExportBenchmark {
+
+    @Param({"500"})
+    public int classes;
+
+    private LuaDoc doc;
+    private BinaryExport export;
+    private byte[] data;
+
+    @Setup
+    public void setup() throws IOException {
+        doc = JsonExportBenchmark.createDoc(classes);
+        export = new BinaryExport();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        export.export(doc, out);
+        data = out.toByteArray();
+    }
+
+    @Benchmark
+    public void export() throws IOException {
+        export.export(doc, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public LuaDoc read() throws IOException {
+        return BinaryDocReader.of(data).read();
+    }
+
+    @Benchmark
+    public LuaClass readSingleClass() throws IOException {
+        return BinaryDocReader.of(data).readClass("benchmark", "Class" + (classes / 2));
+    }
+}
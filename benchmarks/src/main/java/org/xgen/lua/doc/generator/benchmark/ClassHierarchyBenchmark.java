@@ -0,0 +1,99 @@
+package org.xgen.lua.doc.generator.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.xgen.lua.doc.generator.doc.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The full member list of every class of deep hierarchies: building all tables of a new
+ * {@link ClassHierarchy} once, reading them from a hierarchy that built them before, and walking
+ * the parent chain of each class as a baseline, which is what every render had to do before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClassHierarchyBenchmark {
+
+    @Param({"2000"})
+    public int classes;
+
+    @Param({"40"})
+    public int depth;
+
+    private LuaDoc doc;
+    /** Index whose hierarchy already built all tables */
+    private SymbolIndex builtSymbols;
+
+    @Setup
+    public void setup() {
+        List<LuaClass> classList = new ArrayList<>(classes);
+        for (int c = 0; c < classes; c++) {
+            List<LuaField> fields = new ArrayList<>();
+            for (int f = 0; f < 10; f++) {
+                // Every other field overrides the one of the parent
+                String name = f % 2 == 0 ? "shared" + f : "field" + c + "_" + f;
+                fields.add(new LuaField.Impl(false, name, "number", Optional.empty(), Optional.empty()));
+            }
+            List<LuaFunction> functions = new ArrayList<>();
+            for (int f = 0; f < 10; f++) {
+                functions.add(new LuaFunction.Impl("method" + c + "_" + f, false, Optional.empty(), List.of(), List.of(), Optional.empty()));
+            }
+            // Chains of the given depth, each class extends the one before it
+            Optional<String> parent = c % depth == 0 ? Optional.empty() : Optional.of("Class" + (c - 1));
+            classList.add(new LuaClass.Impl("Class" + c, parent, Optional.empty(), fields, functions, Optional.empty()));
+        }
+        doc = new LuaDoc(List.of(new LuaNamespace("benchmark", List.of(), classList, List.of())));
+        builtSymbols = SymbolIndex.of(doc);
+        countMembers(builtSymbols);
+    }
+
+    @Benchmark
+    public int buildTables() {
+        return countMembers(SymbolIndex.of(doc));
+    }
+
+    @Benchmark
+    public int builtTables() {
+        return countMembers(builtSymbols);
+    }
+
+    private static int countMembers(SymbolIndex symbols) {
+        ClassHierarchy hierarchy = symbols.hierarchy();
+        int members = 0;
+        for (SymbolIndex.Symbol symbol : symbols.symbols()) {
+            if (symbol.kind() == SymbolIndex.Kind.CLASS) {
+                ClassHierarchy.Members table = hierarchy.members(symbol);
+                members += table.fields().size() + table.functions().size();
+            }
+        }
+        return members;
+    }
+
+    @Benchmark
+    public int walkParents() {
+        Map<String, LuaClass> byName = new HashMap<>();
+        for (LuaClass clazz : doc.namespaces().getFirst().classes()) {
+            byName.put(clazz.name(), clazz);
+        }
+        int members = 0;
+        for (LuaClass clazz : doc.namespaces().getFirst().classes()) {
+            Map<String, LuaField> fields = new LinkedHashMap<>();
+            Map<String, LuaFunction> functions = new LinkedHashMap<>();
+            for (LuaClass current = clazz; current != null; current = current.parent().map(byName::get).orElse(null)) {
+                for (LuaField field : current.fields()) {
+                    fields.putIfAbsent(field.name(), field);
+                }
+                for (LuaFunction function : current.functions()) {
+                    functions.putIfAbsent(function.name(), function);
+                }
+            }
+            members += fields.size() + functions.size();
+        }
+        return members;
+    }
+}
@@ -0,0 +1,42 @@
+package org.xgen.lua.doc.generator.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.xgen.lua.doc.generator.doc.LuaDoc;
+import org.xgen.lua.doc.generator.process.DocParser;
+import org.xgen.lua.doc.generator.process.ParserEngine;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of a single large file, once per parser engine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocParserBenchmark {
+
+    @Param({"LEXER", "REGEX"})
+    public ParserEngine engine;
+
+    @Param({"200"})
+    public int classes;
+
+    @Param({"40"})
+    public int bodyLines;
+
+    private String content;
+
+    @Setup
+    public void setup() {
+        content = LuaCorpus.file(1, classes, bodyLines);
+    }
+
+    @Benchmark
+    public LuaDoc parse() throws IOException {
+        return new DocParser(content, engine).parse();
+    }
+}
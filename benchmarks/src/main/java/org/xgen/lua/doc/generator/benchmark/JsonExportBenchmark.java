@@ -0,0 +1,81 @@
+package org.xgen.lua.doc.generator.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.xgen.lua.doc.generator.doc.*;
+import org.xgen.lua.doc.generator.write.JsonExport;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Export of a large in-memory doc. Run with {@code -prof gc} to see the allocation rate per
+ * export, which should stay small and independent of the number of strings written.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonExportBenchmark {
+
+    @Param({"true", "false"})
+    public boolean prettyPrint;
+
+    @Param({"500"})
+    public int classes;
+
+    private LuaDoc doc;
+    private JsonExport export;
+
+    @Setup
+    public void setup() {
+        doc = createDoc(classes);
+        export = new JsonExport(prettyPrint);
+    }
+
+    @Benchmark
+    public void exportToWriter() throws IOException {
+        export.export(doc, Writer.nullWriter());
+    }
+
+    @Benchmark
+    public String exportToString() {
+        return export.export(doc);
+    }
+
+    /**
+     * Doc with the given number of classes, each with fields and functions whose descriptions
+     * mix plain text with characters that need escaping.
+     */
+    static LuaDoc createDoc(int classCount) {
+        List<LuaClass> classes = new ArrayList<>(classCount);
+        for (int c = 0; c < classCount; c++) {
+            String file = "src/class" + c + ".lua";
+            List<LuaField> fields = new ArrayList<>();
+            for (int f = 0; f < 8; f++) {
+                fields.add(new LuaField.Impl(f % 2 == 0, "field" + f, f % 3 == 0 ? "string|nil" : "number",
+                    Optional.of("Field " + f + " of \"Class" + c + "\", see C:\\docs\\class" + c + ".md"),
+                    Optional.of(new SourceLocation(file, 2 + f))));
+            }
+            List<LuaFunction> functions = new ArrayList<>();
+            for (int f = 0; f < 12; f++) {
+                List<LuaParameter> parameters = List.of(
+                    new LuaParameter.Impl("name", "string", false, Optional.of("The name\twith a tab")),
+                    new LuaParameter.Impl("options", "table", true, Optional.empty()));
+                List<LuaReturnValue> returns = List.of(
+                    new LuaReturnValue.Impl("boolean", "success", Optional.of("Whether the call succeeded")));
+                functions.add(new LuaFunction.Impl("function" + f, f % 4 == 0,
+                    Optional.of("Does thing " + f + " for the class.\nSecond line of the description, größer als üblich."),
+                    parameters, returns, Optional.of(new SourceLocation(file, 20 + 10 * f))));
+            }
+            classes.add(new LuaClass.Impl("Class" + c, Optional.empty(), Optional.of("Class number " + c), fields, functions,
+                Optional.of(new SourceLocation(file, 1))));
+        }
+        return new LuaDoc(List.of(new LuaNamespace("benchmark", List.of(), classes, List.of())));
+    }
+}
@@ -0,0 +1,140 @@
+package org.xgen.lua.doc.generator.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Generates synthetic but deterministic Lua sources for the benchmarks: documented classes with
+ * long comment blocks, fields of every supported shape, static and member functions with long
+ * bodies and closures, enums and undocumented code in between.
+ */
+final class LuaCorpus {
+
+    private static final String[] TYPES = {
+        "string", "number", "boolean", "any", "table", "Player|nil", "fun(a: string): number", "string[]"
+    };
+    private static final String[] FOLDERS = {"client", "shared", "server/sub"};
+
+    private LuaCorpus() { }
+
+    /**
+     * Content of one Lua file.
+     *
+     * @param classes   number of classes in the file
+     * @param bodyLines maximum number of statements per function body
+     */
+    static String file(long seed, int classes, int bodyLines) {
+        Random random = new Random(seed);
+        StringBuilder out = new StringBuilder();
+        for (int c = 0; c < classes; c++) {
+            // Names repeat within and across files, so the project merge has classes to combine
+            String name = "Class" + random.nextInt(Math.max(classes, 20));
+            out.append("---@class ").append(name).append(" : Base").append(c)
+                .append(" Description of ").append(name).append(" \"quoted\"\twith a tab\n");
+            for (int line = random.nextInt(12); line > 0; line--) {
+                out.append("---More about ").append(name).append(", line ").append(line).append('\n');
+            }
+            for (int f = random.nextInt(6); f > 0; f--) {
+                out.append("---@field ").append(pick(random, "private ", "public ", ""))
+                    .append("field").append(f).append(' ').append(pick(random, TYPES))
+                    .append(" field description ").append(f).append('\n');
+            }
+            out.append(name).append(" = {}\n\n");
+            out.append("---@type ").append(pick(random, TYPES)).append(" static field\n");
+            out.append(name).append(".staticField").append(c).append(" = 1\n\n");
+
+            for (int fn = random.nextInt(8); fn > 0; fn--) {
+                if (random.nextInt(10) < 7) {
+                    out.append("---Function ").append(fn).append(" of ").append(name).append('\n');
+                    out.append("---@param a ").append(pick(random, TYPES)).append(" first parameter\n");
+                    out.append("---@param b ").append(pick(random, TYPES)).append('\n');
+                    if (random.nextBoolean()) {
+                        out.append("---@return ").append(pick(random, TYPES)).append(" result the result\n");
+                    }
+                    if (random.nextInt(5) == 0) {
+                        out.append("---@non-static\n");
+                    }
+                }
+                out.append("function ").append(name).append(pick(random, ".", ":"))
+                    .append("method").append(fn).append("(a, b)\n");
+                appendBody(out, random, random.nextInt(bodyLines + 1));
+                out.append("end\n\n");
+            }
+        }
+
+        out.append("local Hidden = {}\n");
+        out.append("function Hidden.helper() return 1 end\n\n");
+        out.append("function globalFunction").append(seed).append("(x, y) return x end\n\n");
+
+        out.append("---@enum Enum").append(seed).append(" an enum\n");
+        out.append("Enum").append(seed).append(" = {\n");
+        for (int v = 0; v < 6; v++) {
+            out.append("    ---@type number value ").append(v).append('\n');
+            out.append("    VALUE_").append(v).append(" = ").append(v).append(", -- comment\n");
+        }
+        out.append("}\n");
+        return out.toString();
+    }
+
+    /**
+     * Write a project of many small files spread over several folders, together with a
+     * {@code project.json} that mixes globs and explicit paths.
+     *
+     * @return the path of the project configuration
+     */
+    static Path writeProject(Path directory, int files) throws IOException {
+        for (String folder : FOLDERS) {
+            Files.createDirectories(directory.resolve(folder));
+        }
+        Random random = new Random(files);
+        String first = null;
+        for (int i = 0; i < files; i++) {
+            String path = FOLDERS[random.nextInt(FOLDERS.length)] + "/file" + i + ".lua";
+            if (first == null) {
+                first = path;
+            }
+            Files.writeString(directory.resolve(path), file(i, 1 + random.nextInt(4), 8));
+        }
+        Path config = directory.resolve("project.json");
+        Files.writeString(config, """
+            {
+                "shared": ["shared/*.lua"],
+                "client": ["client/**/*.lua"],
+                "server": ["server/**/*.lua"],
+                "explicit": ["%s"]
+            }
+            """.formatted(first));
+        return config;
+    }
+
+    static void delete(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static void appendBody(StringBuilder out, Random random, int statements) {
+        for (int k = 0; k < statements; k++) {
+            switch (random.nextInt(10)) {
+                case 0, 1 -> out.append("    if a then\n        return a\n    end\n");
+                case 2 -> out.append("    local f = function(x) return x end\n");
+                case 3 -> out.append("    for i = 1, 3 do print(i) end\n");
+                case 4 -> out.append("    local s = [[\n    function inside a long string\n    ]]\n");
+                default -> out.append("    print(\"statement ").append(k).append("\") -- return nothing\n");
+            }
+        }
+        if (random.nextInt(3) == 0) {
+            out.append("    return b\n");
+        }
+    }
+
+    private static String pick(Random random, String... values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,51 @@
+package org.xgen.lua.doc.generator.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.xgen.lua.doc.generator.doc.LuaDoc;
+import org.xgen.lua.doc.generator.process.ParserEngine;
+import org.xgen.lua.doc.generator.read.ProjectConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A whole project run: glob expansion, reading and parsing every file and merging the
+ * namespaces, on a generated project of many small files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectConfigBenchmark {
+
+    @Param({"1000"})
+    public int files;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private Path directory;
+    private String config;
+    private ProjectConfig project;
+
+    @Setup
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("luadoc-benchmark");
+        config = LuaCorpus.writeProject(directory, files).toString();
+        project = new ProjectConfig.Builder().engine(ParserEngine.LEXER).parallelism(parallelism).build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        LuaCorpus.delete(directory);
+    }
+
+    @Benchmark
+    public LuaDoc parseProject() throws IOException {
+        return project.parseProject(config);
+    }
+}
@@ -0,0 +1,72 @@
+package org.xgen.lua.doc.generator.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.xgen.lua.doc.generator.read.ProjectConfig;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reading a generated project configuration that lists every file explicitly, with
+ * {@link ProjectConfig#readConfig} and with the regular expressions it replaced as a baseline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectConfigReadBenchmark {
+
+    private static final Pattern JSON_ARRAY_PATTERN = Pattern.compile("\"([^\"]+)\"\\s*:\\s*\\[([^\\]]+)\\]");
+    private static final Pattern FILE_PATH_PATTERN = Pattern.compile("\"([^\"]+)\"");
+
+    @Param({"10000"})
+    public int entries;
+
+    private String config;
+
+    @Setup
+    public void setup() {
+        String[] namespaces = {"client", "shared", "server"};
+        StringBuilder json = new StringBuilder("{\n");
+        for (int n = 0; n < namespaces.length; n++) {
+            json.append("    \"").append(namespaces[n]).append("\": [\n");
+            int count = entries / namespaces.length + (n < entries % namespaces.length ? 1 : 0);
+            for (int i = 0; i < count; i++) {
+                json.append("        \"").append(namespaces[n]).append("/module").append(i / 50)
+                    .append("/file").append(i).append(".lua\"").append(i + 1 < count ? ",\n" : "\n");
+            }
+            json.append("    ]").append(n + 1 < namespaces.length ? ",\n" : "\n");
+        }
+        config = json.append("}\n").toString();
+    }
+
+    @Benchmark
+    public Map<String, List<String>> jsonReader() throws IOException {
+        return ProjectConfig.readConfig(new StringReader(config));
+    }
+
+    @Benchmark
+    public Map<String, List<String>> regex() {
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        String normalized = config.replaceAll("\\s+", " ").trim();
+        Matcher arrayMatcher = JSON_ARRAY_PATTERN.matcher(normalized);
+        while (arrayMatcher.find()) {
+            List<String> files = new ArrayList<>();
+            Matcher fileMatcher = FILE_PATH_PATTERN.matcher(arrayMatcher.group(2));
+            while (fileMatcher.find()) {
+                files.add(fileMatcher.group(1));
+            }
+            result.put(arrayMatcher.group(1), files);
+        }
+        return result;
+    }
+}
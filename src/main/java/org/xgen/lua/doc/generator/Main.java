@@ -1,20 +1,219 @@
 package org.xgen.lua.doc.generator;
 
 import org.xgen.lua.doc.generator.doc.LuaDoc;
+import org.xgen.lua.doc.generator.doc.SymbolIndex;
+import org.xgen.lua.doc.generator.doc.SymbolTable;
+import org.xgen.lua.doc.generator.metrics.RunMetrics;
 import org.xgen.lua.doc.generator.process.DocParser;
+import org.xgen.lua.doc.generator.process.LuaSource;
+import org.xgen.lua.doc.generator.process.ParserEngine;
+import org.xgen.lua.doc.generator.read.ParseCache;
 import org.xgen.lua.doc.generator.read.ProjectConfig;
+import org.xgen.lua.doc.generator.read.ProjectState;
+import org.xgen.lua.doc.generator.read.ProjectWatcher;
+import org.xgen.lua.doc.generator.serve.DocServer;
+import org.xgen.lua.doc.generator.write.BinaryExport;
+import org.xgen.lua.doc.generator.write.HtmlSiteExport;
 import org.xgen.lua.doc.generator.write.JsonExport;
+import org.xgen.lua.doc.generator.write.JsonStreamExport;
+import org.xgen.lua.doc.generator.write.SearchIndexExport;
+import org.xgen.lua.doc.generator.write.ShardedExport;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
 
 public class Main {
-    public static void main(String[] args) throws IOException {
+    /** Time to wait for further changes in watch mode before regenerating */
+    private static final Duration WATCH_DEBOUNCE = Duration.ofMillis(200);
+    /** Output of every project in batch mode without --batch-output, without the extension of the format */
+    private static final String BATCH_OUTPUT = "docs";
+
+    /**
+     * Outcome of one project in batch mode
+     *
+     * @param error why the project failed, {@code null} if it succeeded
+     */
+    private record BatchResult(Path config, Path output, int classes, long nanos, String error) { }
+
+    /**
+     * The output formats of the --format flag
+     */
+    private enum OutputFormat {
+        JSON(".json"), BINARY(".bin"), SHARDED(""), HTML("");
+
+        /** Extension of the output of every project in batch mode without --batch-output */
+        private final String batchExtension;
+
+        OutputFormat(String batchExtension) {
+            this.batchExtension = batchExtension;
+        }
+
+        /** Value of the --format flag */
+        String flagValue() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+        /** Whether the output is a directory instead of a file */
+        boolean isDirectory() {
+            return this == SHARDED || this == HTML;
+        }
+    }
+
+    /**
+     * Writes a doc in one of the output formats, with the index that was built for it
+     */
+    @FunctionalInterface
+    private interface DocWriter {
+        void write(LuaDoc doc, SymbolIndex symbols, OutputStream out) throws IOException;
+    }
+
+    public static void main(String[] rawArgs) throws IOException {
+        ParserEngine engine = ParserEngine.LEXER;
+        // Not given until set, see below
+        int parallelism = 0;
+        String cacheDir = null;
+        boolean watch = false;
+        boolean batch = false;
+        String batchOutput = null;
+        Integer servePort = null;
+        boolean stream = false;
+        // The last --format flag wins, like the other flags
+        OutputFormat format = OutputFormat.JSON;
+        boolean stats = false;
+        String metricsFile = null;
+        List<String> positional = new ArrayList<>();
+        for (int i = 0; i < rawArgs.length; i++) {
+            if (rawArgs[i].equals("--engine")) {
+                if (i + 1 >= rawArgs.length) {
+                    System.err.println("Error: --engine flag requires a value (lexer or regex)");
+                    System.exit(1);
+                }
+                try {
+                    engine = ParserEngine.of(rawArgs[++i]);
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Error: --engine flag requires lexer or regex, got: " + rawArgs[i]);
+                    System.exit(1);
+                }
+            } else if (rawArgs[i].equals("--parallel")) {
+                if (i + 1 >= rawArgs.length) {
+                    System.err.println("Error: --parallel flag requires a thread count");
+                    System.exit(1);
+                }
+                parallelism = numberArgument(rawArgs[++i], 1, Integer.MAX_VALUE);
+                if (parallelism < 0) {
+                    System.err.println("Error: --parallel flag requires a thread count of at least 1, got: " + rawArgs[i]);
+                    System.exit(1);
+                }
+            } else if (rawArgs[i].equals("--cache")) {
+                if (i + 1 >= rawArgs.length) {
+                    System.err.println("Error: --cache flag requires a directory");
+                    System.exit(1);
+                }
+                cacheDir = rawArgs[++i];
+            } else if (rawArgs[i].equals("--watch")) {
+                watch = true;
+            } else if (rawArgs[i].equals("--batch")) {
+                batch = true;
+            } else if (rawArgs[i].equals("--batch-output")) {
+                if (i + 1 >= rawArgs.length) {
+                    System.err.println("Error: --batch-output flag requires a path");
+                    System.exit(1);
+                }
+                batchOutput = rawArgs[++i];
+            } else if (rawArgs[i].equals("--serve")) {
+                if (i + 1 >= rawArgs.length) {
+                    System.err.println("Error: --serve flag requires a port (0 for any free port)");
+                    System.exit(1);
+                }
+                servePort = numberArgument(rawArgs[++i], 0, 65535);
+                if (servePort < 0) {
+                    System.err.println("Error: --serve flag requires a port from 0 to 65535, got: " + rawArgs[i]);
+                    System.exit(1);
+                }
+            } else if (rawArgs[i].equals("--stats")) {
+                stats = true;
+            } else if (rawArgs[i].equals("--metrics")) {
+                if (i + 1 >= rawArgs.length) {
+                    System.err.println("Error: --metrics flag requires a file");
+                    System.exit(1);
+                }
+                metricsFile = rawArgs[++i];
+            } else if (rawArgs[i].equals("--stream")) {
+                stream = true;
+            } else if (rawArgs[i].equals("--format")) {
+                if (i + 1 >= rawArgs.length) {
+                    System.err.println("Error: --format flag requires a value (json, binary, sharded or html)");
+                    System.exit(1);
+                }
+                String value = rawArgs[++i];
+                format = null;
+                for (OutputFormat candidate : OutputFormat.values()) {
+                    if (candidate.flagValue().equals(value)) {
+                        format = candidate;
+                    }
+                }
+                if (format == null) {
+                    System.err.println("Error: Unknown output format: " + value + " (expected json, binary, sharded or html)");
+                    System.exit(1);
+                }
+            } else {
+                positional.add(rawArgs[i]);
+            }
+        }
+        String[] args = positional.toArray(new String[0]);
+        if (parallelism == 0) {
+            // Batch mode generates as many projects at a time as there are processors
+            parallelism = batch ? Runtime.getRuntime().availableProcessors() : 1;
+        }
+
         if (args.length == 0) {
             System.err.println("Usage:");
-            System.err.println("  Single file mode: java Main <lua-file> [output-json-file]");
-            System.err.println("  Project mode:     java Main --project <config-json> [output-json-file]");
+            System.err.println("  Single file mode: java Main <lua-file> [output-file]");
+            System.err.println("  Project mode:     java Main --project <config-json> [output-file]");
+            System.err.println("  Batch mode:       java Main --batch <config-json or glob>...");
+            System.err.println();
+            System.err.println("Options:");
+            System.err.println("  --engine <lexer|regex>  Parser engine to use (default: lexer)");
+            System.err.println("  --parallel <threads>    Parse project files and render HTML pages on this many threads, in batch");
+            System.err.println("                          mode also the number of projects generated at a time");
+            System.err.println("                          (default: 1, the number of processors in batch mode)");
+            System.err.println("  --cache <dir>           Reuse parse results of unchanged project files from this directory");
+            System.err.println("  --watch                 Project mode: regenerate the output file whenever project files change");
+            System.err.println("  --serve <port>          Project mode: keep the project in memory and answer requests on this");
+            System.err.println("                          local port, regenerating the output file on request");
+            System.err.println("  --batch-output <path>   Batch mode: output of every project, relative to the directory of its");
+            System.err.println("                          config (default: docs.json, docs.bin or docs for sharded and html),");
+            System.err.println("                          projects whose outputs would be the same file fail");
+            System.err.println("  --stream                Single file mode: write the output while parsing, for files too large for memory");
+            System.err.println("  --format <json|binary|sharded|html>");
+            System.err.println("                          Output format (default: json), binary requires an output file,");
+            System.err.println("                          sharded an output directory for a manifest and one file per namespace,");
+            System.err.println("                          html an output directory for a static site with a page per class");
+            System.err.println("  --stats                 Print the time of every phase, the throughput and the slowest files");
+            System.err.println("  --metrics <file>        Write the timings and throughput of the run as JSON to this file");
             System.err.println();
             System.err.println("Project config JSON format:");
             System.err.println("  {");
@@ -24,10 +223,52 @@ public class Main {
             System.exit(1);
         }
         
+        RunMetrics metrics = stats || metricsFile != null ? new RunMetrics() : RunMetrics.NONE;
+        BinaryExport binaryExport = new BinaryExport();
+        // The binary format has no symbols
+        DocWriter docWriter = format == OutputFormat.BINARY ? (written, symbols, out) -> binaryExport.export(written, out)
+                : new JsonExport(true)::export;
+        if (batch || batchOutput != null) {
+            if (!batch || watch || servePort != null || stream || metrics != RunMetrics.NONE || args[0].equals("--project") || args[0].equals("-p")) {
+                System.err.println("Error: --batch-output requires --batch, which cannot be used with --project, --watch, --serve,");
+                System.err.println("       --stream, --stats or --metrics");
+                System.exit(1);
+            }
+            String output = batchOutput != null ? batchOutput : BATCH_OUTPUT + format.batchExtension;
+            ParseCache cache = cacheDir != null ? ParseCache.open(Paths.get(cacheDir), engine.name()) : null;
+            if (!runBatch(List.of(args), output, engine, parallelism, cache, docWriter, format)) {
+                System.exit(1);
+            }
+            return;
+        }
+
         LuaDoc doc;
         
         // Check if using project mode
-        if (args[0].equals("--project") || args[0].equals("-p")) {
+        boolean projectMode = args[0].equals("--project") || args[0].equals("-p");
+        if (stream && projectMode) {
+            System.err.println("Error: --stream is only supported in single file mode");
+            System.exit(1);
+        }
+        String outputPath = args.length > (projectMode ? 2 : 1) ? args[projectMode ? 2 : 1] : null;
+        if (format == OutputFormat.BINARY && (stream || outputPath == null)) {
+            System.err.println("Error: --format binary requires an output file and cannot be used with --stream");
+            System.exit(1);
+        }
+        if (format.isDirectory() && (stream || outputPath == null)) {
+            System.err.println("Error: --format " + format.flagValue()
+                    + " requires an output directory and cannot be used with --stream");
+            System.exit(1);
+        }
+        if ((watch || servePort != null) && (stats || metricsFile != null)) {
+            System.err.println("Error: --stats and --metrics cannot be used with --watch or --serve");
+            System.exit(1);
+        }
+        if (servePort != null && (watch || stream || !projectMode)) {
+            System.err.println("Error: --serve is only supported in project mode and cannot be used with --watch");
+            System.exit(1);
+        }
+        if (projectMode) {
             if (args.length < 2) {
                 System.err.println("Error: --project flag requires a config file path");
                 System.exit(1);
@@ -36,47 +277,386 @@ public class Main {
             String configPath = args[1];
             System.out.println("Parsing project from config: " + configPath);
             
-            ProjectConfig projectConfig = new ProjectConfig();
+            ParseCache cache = cacheDir != null ? ParseCache.open(Paths.get(cacheDir), engine.name()) : null;
+            ProjectConfig projectConfig = new ProjectConfig.Builder().engine(engine).parallelism(parallelism)
+                    .cache(cache).metrics(metrics).build();
+            if (watch) {
+                if (args.length < 3) {
+                    System.err.println("Error: --watch requires an output file");
+                    System.exit(1);
+                }
+                Path output = Paths.get(outputPath);
+                watchProject(projectConfig, Paths.get(configPath), output,
+                        outputListener(output, docWriter, format, parallelism));
+                return;
+            }
+            if (servePort != null) {
+                ProjectWatcher.Listener listener = outputPath == null ? null
+                        : outputListener(Paths.get(outputPath), docWriter, format, parallelism);
+                serveProject(new ProjectState(projectConfig, Paths.get(configPath)), listener, servePort);
+                return;
+            }
             doc = projectConfig.parseProject(configPath);
             
             System.out.println("Successfully parsed project documentation!");
             
-            // Export to JSON
-            JsonExport jsonExport = new JsonExport(true);
-            String json = jsonExport.export(doc);
-            
-            // Write to file or stdout
-            if (args.length > 2) {
-                String outputPath = args[2];
-                Files.writeString(Paths.get(outputPath), json);
-                System.out.println("JSON documentation written to: " + outputPath);
-            } else {
-                System.out.println("\nJSON Output:");
-                System.out.println(json);
-            }
+            // Export, written to file or stdout
+            long start = System.nanoTime();
+            writeDoc(doc, outputPath, docWriter, format, parallelism);
+            metrics.phase("export", start);
+        } else if (watch) {
+            System.err.println("Error: --watch is only supported in project mode");
+            System.exit(1);
+        } else if (stream) {
+            long start = System.nanoTime();
+            RunMetrics.FileTimer timer = metrics.startFile(Paths.get(args[0]));
+            timer.parsed(streamFile(Paths.get(args[0]), engine, outputPath));
+            timer.stop();
+            metrics.phase("stream", start);
         } else {
             // Single file mode
             String luaFilePath = args[0];
-            String content = Files.readString(Paths.get(luaFilePath));
+            long start = System.nanoTime();
+            RunMetrics.FileTimer timer = metrics.startFile(Paths.get(luaFilePath));
+            LuaSource source = LuaSource.read(Paths.get(luaFilePath));
+            metrics.phase("read", start);
             
-            DocParser parser = new DocParser(content);
+            start = System.nanoTime();
+            DocParser parser = new DocParser(source, engine);
             doc = parser.parse();
+            timer.parsed(parser.linesRead());
+            timer.stop();
+            metrics.phase("parse", start);
             
             System.out.println("Successfully parsed Lua documentation!");
             
-            // Export to JSON
-            JsonExport jsonExport = new JsonExport(true);
-            String json = jsonExport.export(doc);
-            
-            // Write to file or stdout
-            if (args.length > 1) {
-                String outputPath = args[1];
-                Files.writeString(Paths.get(outputPath), json);
-                System.out.println("JSON documentation written to: " + outputPath);
+            // Export, written to file or stdout
+            start = System.nanoTime();
+            writeDoc(doc, outputPath, docWriter, format, parallelism);
+            metrics.phase("export", start);
+        }
+
+        if (metrics != RunMetrics.NONE) {
+            reportMetrics(metrics, outputPath, format == OutputFormat.JSON, stats, metricsFile);
+        }
+    }
+
+    /**
+     * The value of a numeric flag
+     *
+     * @param min smallest valid value, not negative
+     * @return the value, or -1 if it is not a number from min to max
+     */
+    private static int numberArgument(String value, int min, int max) {
+        try {
+            int number = Integer.parseInt(value);
+            return number >= min && number <= max ? number : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Print the metrics of the run and write them to the metrics file, if one was given
+     *
+     * @param searchIndex whether a search index was written next to the output file
+     */
+    private static void reportMetrics(RunMetrics metrics, String outputPath, boolean searchIndex,
+                                      boolean stats, String metricsFile) throws IOException {
+        if (outputPath != null) {
+            metrics.output(Paths.get(outputPath));
+            if (searchIndex) {
+                metrics.output(SearchIndexExport.indexPath(Paths.get(outputPath)));
+            }
+        }
+        if (stats) {
+            metrics.printSummary(System.out);
+        }
+        if (metricsFile != null) {
+            metrics.writeJson(Paths.get(metricsFile));
+            System.out.println("Metrics written to: " + metricsFile);
+        }
+    }
+
+    /**
+     * Parse a single file and write the JSON export while parsing, to the output file or to
+     * stdout if there is none. Neither the source nor its documentation is held in memory as a whole.
+     *
+     * @return the number of lines of the file
+     */
+    private static int streamFile(Path luaFile, ParserEngine engine, String outputPath) throws IOException {
+        if (outputPath == null) {
+            System.out.println("\nJSON Output:");
+            Writer writer = new OutputStreamWriter(System.out, System.out.charset());
+            int lines = streamFile(luaFile, engine, writer);
+            System.out.println();
+            return lines;
+        }
+        int lines;
+        try (Writer writer = Files.newBufferedWriter(Paths.get(outputPath))) {
+            lines = streamFile(luaFile, engine, writer);
+        }
+        System.out.println("Successfully parsed Lua documentation!");
+        System.out.println("JSON documentation written to: " + outputPath);
+        return lines;
+    }
+
+    /**
+     * @return the number of lines of the file
+     */
+    private static int streamFile(Path luaFile, ParserEngine engine, Writer writer) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(luaFile);
+             JsonStreamExport export = new JsonStreamExport(writer, true)) {
+            DocParser parser = new DocParser(reader, engine);
+            parser.parse(export);
+            export.finish();
+            return parser.linesRead();
+        }
+    }
+
+    /**
+     * Regenerate the output of a project whenever its files change, until the process is stopped
+     */
+    private static void watchProject(ProjectConfig projectConfig, Path configPath, Path outputPath,
+                                     ProjectWatcher.Listener listener) throws IOException {
+        try (ProjectWatcher watcher = new ProjectWatcher(projectConfig, configPath, WATCH_DEBOUNCE, listener)) {
+            System.out.println("Watching project for changes, output: " + outputPath);
+            watcher.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Generate the output of every project in this JVM. The projects are generated at the same
+     * time and parse their files on one pool of worker threads, sharing type names, identifiers
+     * and the parse cache. Failed projects do not stop the others.
+     *
+     * @param configEntries paths and glob patterns of the project configurations
+     * @param outputName    output of every project, relative to the directory of its configuration
+     * @return whether all projects succeeded
+     */
+    private static boolean runBatch(List<String> configEntries, String outputName, ParserEngine engine, int parallelism,
+                                    ParseCache cache, DocWriter docWriter, OutputFormat format)
+            throws IOException {
+        List<Path> configs = ProjectConfig.findConfigs(Paths.get("."), configEntries);
+        if (configs.isEmpty()) {
+            System.err.println("Error: No project configurations found");
+            return false;
+        }
+        if (Paths.get(outputName).isAbsolute() && configs.size() > 1) {
+            System.err.println("Error: --batch-output must be relative to the configs of the " + configs.size()
+                    + " projects, an absolute path would be the output of all of them");
+            return false;
+        }
+        // Projects writing the same output would overwrite each other, none of them is generated
+        Map<Path, List<Path>> configsByTarget = new HashMap<>();
+        for (Path config : configs) {
+            configsByTarget.computeIfAbsent(batchTarget(config, outputName), target -> new ArrayList<>()).add(config);
+        }
+        System.out.println("Generating documentation of " + configs.size() + " projects");
+
+        long start = System.nanoTime();
+        SymbolTable symbols = new SymbolTable();
+        List<Future<BatchResult>> futures = new ArrayList<>();
+        // Projects wait for their files on virtual threads, the workers do the parsing
+        try (ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+             ExecutorService projects = Executors.newVirtualThreadPerTaskExecutor()) {
+            // As many projects in memory at a time as there are workers
+            Semaphore running = new Semaphore(parallelism);
+            for (Path config : configs) {
+                Path output = config.resolveSibling(outputName).normalize();
+                Path target = batchTarget(config, outputName);
+                List<Path> sharing = configsByTarget.get(target);
+                if (sharing.size() > 1) {
+                    String others = sharing.stream().filter(other -> !other.equals(config))
+                            .map(Path::toString).collect(Collectors.joining(", "));
+                    futures.add(CompletableFuture.completedFuture(new BatchResult(config, output, 0, 0,
+                            "Output " + output + " is also the output of " + others)));
+                    continue;
+                }
+                ProjectConfig projectConfig = new ProjectConfig.Builder().engine(engine).executor(workers)
+                        .symbols(symbols).cache(cache).build();
+                ProjectWatcher.Listener listener = outputListener(target, docWriter, format, 1);
+                futures.add(projects.submit(() -> {
+                    running.acquire();
+                    try {
+                        return generateProject(config, output, target, projectConfig, listener);
+                    } finally {
+                        running.release();
+                    }
+                }));
+            }
+
+            List<BatchResult> results = new ArrayList<>();
+            for (Future<BatchResult> future : futures) {
+                results.add(future.get());
+            }
+            printBatchSummary(results, System.nanoTime() - start);
+            return results.stream().allMatch(result -> result.error() == null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while generating the projects");
+        } catch (ExecutionException e) {
+            // Failures of a project are part of its result
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * The absolute path of the output of a project in batch mode
+     */
+    private static Path batchTarget(Path config, String outputName) {
+        return config.toAbsolutePath().resolveSibling(outputName).normalize();
+    }
+
+    /**
+     * @param output path of the output as given to the user
+     * @param target absolute path of the output
+     */
+    private static BatchResult generateProject(Path config, Path output, Path target, ProjectConfig projectConfig,
+                                               ProjectWatcher.Listener listener) {
+        long start = System.nanoTime();
+        try {
+            LuaDoc doc = projectConfig.parseProject(config.toString());
+            Files.createDirectories(target.getParent());
+            listener.update(doc, SymbolIndex.of(doc));
+            int classes = doc.namespaces().stream().mapToInt(namespace -> namespace.classes().size()).sum();
+            return new BatchResult(config, output, classes, System.nanoTime() - start, null);
+        } catch (NoSuchFileException e) {
+            return new BatchResult(config, output, 0, System.nanoTime() - start, "File not found: " + e.getFile());
+        } catch (IOException | RuntimeException e) {
+            String error = e.getMessage() != null ? e.getMessage() : e.toString();
+            return new BatchResult(config, output, 0, System.nanoTime() - start, error);
+        }
+    }
+
+    private static void printBatchSummary(List<BatchResult> results, long nanos) {
+        long failed = results.stream().filter(result -> result.error() != null).count();
+        System.out.println();
+        System.out.printf(Locale.ROOT, "Batch finished: %d of %d projects succeeded in %.2f s%n",
+                results.size() - failed, results.size(), nanos / 1e9);
+        for (BatchResult result : results) {
+            long millis = result.nanos() / 1_000_000;
+            if (result.error() == null) {
+                System.out.printf(Locale.ROOT, "  OK      %s -> %s (%d classes, %d ms)%n",
+                        result.config(), result.output(), result.classes(), millis);
             } else {
-                System.out.println("\nJSON Output:");
-                System.out.println(json);
+                System.out.printf(Locale.ROOT, "  FAILED  %s (%d ms): %s%n", result.config(), millis, result.error());
             }
         }
+        if (failed > 0) {
+            System.err.println("Error: " + failed + " of " + results.size() + " projects failed");
+        }
+    }
+
+    /**
+     * Keep the project in memory and answer requests for it until a shutdown request
+     */
+    private static void serveProject(ProjectState state, ProjectWatcher.Listener listener, int port) throws IOException {
+        try (DocServer server = new DocServer(state, listener, port)) {
+            server.start();
+            System.out.println("Serving project documentation on http://127.0.0.1:" + server.port() + "/");
+            server.awaitShutdown();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes every update of a watched or served project to the output in the selected format
+     */
+    private static ProjectWatcher.Listener outputListener(Path output, DocWriter docWriter, OutputFormat format,
+                                                          int parallelism) {
+        return switch (format) {
+            case SHARDED -> (updated, symbols) -> new ShardedExport().export(updated, symbols, output);
+            case HTML -> {
+                HtmlSiteExport siteExport = new HtmlSiteExport(parallelism);
+                yield (updated, symbols) -> siteExport.export(updated, symbols, output);
+            }
+            case BINARY -> (updated, symbols) -> writeAtomically(docWriter, updated, symbols, output);
+            case JSON -> {
+                DocWriter searchIndex = (updated, symbols, out) -> new SearchIndexExport().export(updated, out);
+                yield (updated, symbols) -> {
+                    writeAtomically(docWriter, updated, symbols, output);
+                    writeAtomically(searchIndex, updated, symbols, SearchIndexExport.indexPath(output));
+                };
+            }
+        };
+    }
+
+    /**
+     * Write the export to a temporary file next to the output and move it in place, so
+     * readers of the output never see a partially written file
+     */
+    private static void writeAtomically(DocWriter docWriter, LuaDoc doc, SymbolIndex symbols, Path outputPath)
+            throws IOException {
+        Path absolute = outputPath.toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                docWriter.write(doc, symbols, out);
+            }
+            try {
+                Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Write a doc in the selected format. JSON files get the search index of the viewer next to them.
+     */
+    private static void writeDoc(LuaDoc doc, String outputPath, DocWriter docWriter, OutputFormat format,
+                                 int parallelism) throws IOException {
+        SymbolIndex symbols = SymbolIndex.of(doc);
+        if (format == OutputFormat.SHARDED) {
+            writeSharded(doc, symbols, outputPath);
+            return;
+        }
+        if (format == OutputFormat.HTML) {
+            HtmlSiteExport.Result result = new HtmlSiteExport(parallelism).export(doc, symbols, Paths.get(outputPath));
+            System.out.println("HTML site written to: " + outputPath + " (" + result.written() + " of "
+                    + result.pages() + " pages updated, " + result.removed() + " removed)");
+            return;
+        }
+        writeOutput(doc, symbols, outputPath, docWriter, format == OutputFormat.BINARY ? "Binary" : "JSON");
+        if (format == OutputFormat.JSON && outputPath != null) {
+            Path indexPath = SearchIndexExport.indexPath(Paths.get(outputPath));
+            try (OutputStream out = Files.newOutputStream(indexPath)) {
+                new SearchIndexExport().export(doc, out);
+            }
+            System.out.println("Search index written to: " + indexPath);
+        }
+    }
+
+    /**
+     * Write the sharded export of a doc into the output directory
+     */
+    private static void writeSharded(LuaDoc doc, SymbolIndex symbols, String outputPath) throws IOException {
+        Path directory = Paths.get(outputPath);
+        new ShardedExport().export(doc, symbols, directory);
+        System.out.println("Sharded documentation written to: " + directory.resolve(ShardedExport.MANIFEST_FILE));
+    }
+
+    /**
+     * Stream the export of a doc to the output file, or its JSON export to stdout if there is none
+     */
+    private static void writeOutput(LuaDoc doc, SymbolIndex symbols, String outputPath, DocWriter docWriter,
+                                    String formatName) throws IOException {
+        if (outputPath != null) {
+            try (OutputStream out = Files.newOutputStream(Paths.get(outputPath))) {
+                docWriter.write(doc, symbols, out);
+            }
+            System.out.println(formatName + " documentation written to: " + outputPath);
+        } else {
+            System.out.println("\nJSON Output:");
+            Writer writer = new OutputStreamWriter(System.out, System.out.charset());
+            new JsonExport(true).export(doc, symbols, writer);
+            System.out.println();
+        }
     }
 }
@@ -0,0 +1,216 @@
+package org.xgen.lua.doc.generator.doc;
+
+import org.jetbrains.annotations.NotNull;
+import org.xgen.lua.doc.generator.doc.SymbolIndex.Symbol;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The inheritance between the classes of a {@link SymbolIndex}, resolved once for the whole
+ * doc. Parent names are resolved like type names, in the namespace of the class first. Parents
+ * that are not a class of the doc, like {@code table} or classes of other libraries, end the
+ * chain.
+ * <p>
+ * Cycles are reported as a warning and broken at the class whose parent closes them, so every
+ * chain ends. The flattened member table of a class is built from the table of its parent when
+ * it is first asked for and kept, so a member of a deep hierarchy is visited once per class
+ * instead of once per class and ancestor. A hierarchy can be used by several threads at the
+ * same time.
+ */
+public final class ClassHierarchy {
+
+    /**
+     * All fields and functions of a class: its own in declaration order, followed by the
+     * inherited ones that are not overridden, nearest ancestor first
+     *
+     * @param ownFields    number of fields declared by the class itself
+     * @param ownFunctions number of functions declared by the class itself
+     */
+    public record Members(@NotNull List<Symbol> fields, @NotNull List<Symbol> functions, int ownFields, int ownFunctions) {
+
+        public List<Symbol> inheritedFields() {
+            return fields.subList(ownFields, fields.size());
+        }
+
+        public List<Symbol> inheritedFunctions() {
+            return functions.subList(ownFunctions, functions.size());
+        }
+    }
+
+    private static final int NONE = -1;
+
+    private final SymbolIndex symbols;
+    /** Resolved parent of every class symbol, {@link #NONE} for other symbols and roots */
+    private final int[] parents;
+    private final List<List<Symbol>> cycles;
+    private final Map<Integer, Members> members = new ConcurrentHashMap<>();
+
+    private ClassHierarchy(SymbolIndex symbols, int[] parents, List<List<Symbol>> cycles) {
+        this.symbols = symbols;
+        this.parents = parents;
+        this.cycles = cycles;
+    }
+
+    /**
+     * Resolve the parents of all classes of an index, use {@link SymbolIndex#hierarchy()} to
+     * share the result
+     */
+    static ClassHierarchy of(SymbolIndex symbols) {
+        int count = symbols.symbols().size();
+        int[] parents = new int[count];
+        Arrays.fill(parents, NONE);
+        for (Symbol symbol : symbols.symbols()) {
+            if (symbol.kind() == SymbolIndex.Kind.CLASS
+                    && symbols.declaration(symbol.id()) instanceof LuaClass clazz && clazz.parent().isPresent()) {
+                symbols.resolveClass(symbol.namespace(), baseName(clazz.parent().get()))
+                        .ifPresent(parent -> parents[symbol.id()] = parent.id());
+            }
+        }
+        return new ClassHierarchy(symbols, parents, breakCycles(symbols, parents));
+    }
+
+    /**
+     * The name of a parent without type arguments, e.g. {@code List} for {@code List<T>}
+     */
+    private static String baseName(String parent) {
+        int generic = parent.indexOf('<');
+        return generic < 0 ? parent : parent.substring(0, generic);
+    }
+
+    /**
+     * Follow the chain of every class, removing the parent of the class that leads back into
+     * the chain being followed
+     */
+    private static List<List<Symbol>> breakCycles(SymbolIndex symbols, int[] parents) {
+        List<List<Symbol>> cycles = new ArrayList<>();
+        // 0 = not visited, 1 = on the chain being followed, 2 = chain known to end
+        byte[] state = new byte[parents.length];
+        List<Integer> chain = new ArrayList<>();
+        for (int start = 0; start < parents.length; start++) {
+            chain.clear();
+            int current = start;
+            while (current != NONE && state[current] == 0) {
+                state[current] = 1;
+                chain.add(current);
+                int parent = parents[current];
+                if (parent != NONE && state[parent] == 1) {
+                    List<Symbol> cycle = new ArrayList<>();
+                    for (int i = chain.indexOf(parent); i < chain.size(); i++) {
+                        cycle.add(symbols.symbol(chain.get(i)));
+                    }
+                    cycles.add(List.copyOf(cycle));
+                    System.err.println("Warning: Inheritance cycle " + describe(cycle) + ", ignoring the parent of "
+                            + cycle.getLast().qualifiedName());
+                    parents[current] = NONE;
+                    parent = NONE;
+                }
+                current = parent;
+            }
+            for (int id : chain) {
+                state[id] = 2;
+            }
+        }
+        return List.copyOf(cycles);
+    }
+
+    private static String describe(List<Symbol> cycle) {
+        StringBuilder description = new StringBuilder();
+        for (Symbol symbol : cycle) {
+            description.append(symbol.qualifiedName()).append(" -> ");
+        }
+        return description.append(cycle.getFirst().qualifiedName()).toString();
+    }
+
+    /**
+     * The cycles that were found, each as the classes along it, with the parent of the last
+     * class ignored
+     */
+    public List<List<Symbol>> cycles() {
+        return cycles;
+    }
+
+    /**
+     * The resolved parent of a class
+     */
+    public Optional<Symbol> parent(@NotNull Symbol clazz) {
+        int parent = parents[clazz.id()];
+        return parent != NONE ? Optional.of(symbols.symbol(parent)) : Optional.empty();
+    }
+
+    /**
+     * The ancestors of a class, nearest first
+     */
+    public List<Symbol> ancestors(@NotNull Symbol clazz) {
+        List<Symbol> ancestors = new ArrayList<>();
+        for (int parent = parents[clazz.id()]; parent != NONE; parent = parents[parent]) {
+            ancestors.add(symbols.symbol(parent));
+        }
+        return ancestors;
+    }
+
+    /**
+     * The flattened member table of a class
+     *
+     * @throws IllegalArgumentException if the symbol is not a class
+     */
+    public Members members(@NotNull Symbol clazz) {
+        if (clazz.kind() != SymbolIndex.Kind.CLASS) {
+            throw new IllegalArgumentException("Not a class: " + clazz.qualifiedName());
+        }
+        Members result = members.get(clazz.id());
+        if (result != null) {
+            return result;
+        }
+        // Build the tables from the nearest ancestor that has one down to the class
+        Deque<Integer> pending = new ArrayDeque<>();
+        Members inherited = null;
+        for (int id = clazz.id(); id != NONE; id = parents[id]) {
+            inherited = members.get(id);
+            if (inherited != null) {
+                break;
+            }
+            pending.push(id);
+        }
+        while (!pending.isEmpty()) {
+            int id = pending.pop();
+            Members table = flatten(id, inherited);
+            // Another thread may have built the same table meanwhile, both are equal
+            Members existing = members.putIfAbsent(id, table);
+            inherited = existing != null ? existing : table;
+        }
+        return inherited;
+    }
+
+    private Members flatten(int classId, Members inherited) {
+        List<Symbol> fields = new ArrayList<>();
+        List<Symbol> functions = new ArrayList<>();
+        // The members of a class follow its symbol
+        for (int id = classId + 1; id < parents.length; id++) {
+            Symbol member = symbols.symbol(id);
+            if (member.kind() == SymbolIndex.Kind.CLASS || member.owner() == null) {
+                break;
+            }
+            (member.kind() == SymbolIndex.Kind.FIELD ? fields : functions).add(member);
+        }
+        int ownFields = fields.size();
+        int ownFunctions = functions.size();
+        if (inherited != null) {
+            addInherited(fields, inherited.fields());
+            addInherited(functions, inherited.functions());
+        }
+        return new Members(List.copyOf(fields), List.copyOf(functions), ownFields, ownFunctions);
+    }
+
+    private static void addInherited(List<Symbol> members, List<Symbol> inherited) {
+        Set<String> names = new HashSet<>();
+        for (Symbol member : members) {
+            names.add(member.name());
+        }
+        for (Symbol member : inherited) {
+            if (!names.contains(member.name())) {
+                members.add(member);
+            }
+        }
+    }
+}
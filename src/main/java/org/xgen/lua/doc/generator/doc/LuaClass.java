@@ -5,25 +5,54 @@ import java.util.Optional;
 
 public interface LuaClass extends LuaDocumentableObject {
     String name();
+    /**
+     * The parent class as declared with {@code ---@class Name : Parent}
+     */
+    Optional<String> parent();
     Optional<String> description();
     List<LuaField> fields();
     List<LuaFunction> functions();
+    /**
+     * Where the class is first declared with {@code ---@class} or {@code ---@enum}, empty if it
+     * is never declared or the file is not known
+     */
+    Optional<SourceLocation> source();
 
     @Override
     default LuaDocumentableType documentableType() {
         return LuaDocumentableType.CLASS;
     }
 
-    public record Impl(String name, Optional<String> description, List<LuaField> fields, List<LuaFunction> functions) implements LuaClass { }
+    public record Impl(String name, Optional<String> parent, Optional<String> description, List<LuaField> fields, List<LuaFunction> functions,
+                       Optional<SourceLocation> source) implements LuaClass { }
 
     public static class Builder implements org.xgen.lua.doc.generator.doc.Builder<LuaClass> {
         private String name;
+        private String parent;
         private String description;
+        private SourceLocation source;
         private final List<LuaField> fields = new java.util.ArrayList<>();
         private final List<LuaFunction> functions = new java.util.ArrayList<>();
+        private final SymbolTable symbols;
+
+        public Builder() {
+            this(SymbolTable.NONE);
+        }
+
+        /**
+         * Builder that shares its name through the given table
+         */
+        public Builder(SymbolTable symbols) {
+            this.symbols = symbols;
+        }
 
         public Builder name(String name) {
-            this.name = name;
+            this.name = symbols.intern(name);
+            return this;
+        }
+
+        public Builder parent(String parent) {
+            this.parent = symbols.intern(parent);
             return this;
         }
 
@@ -32,6 +61,11 @@ public interface LuaClass extends LuaDocumentableObject {
             return this;
         }
 
+        public Builder source(SourceLocation source) {
+            this.source = source;
+            return this;
+        }
+
         public Builder addField(LuaField field) {
             this.fields.add(field);
             return this;
@@ -57,9 +91,17 @@ public interface LuaClass extends LuaDocumentableObject {
             return name;
         }
 
+        public String getParent() {
+            return parent;
+        }
+
+        public SourceLocation getSource() {
+            return source;
+        }
+
         @Override
         public LuaClass build() {
-            return new Impl(name, Optional.ofNullable(description), List.copyOf(fields), List.copyOf(functions));
+            return new Impl(name, Optional.ofNullable(parent), Optional.ofNullable(description), List.copyOf(fields), List.copyOf(functions), Optional.ofNullable(source));
         }
     }
 }
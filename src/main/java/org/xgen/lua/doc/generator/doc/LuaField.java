@@ -7,36 +7,57 @@ public interface LuaField extends LuaDocumentableObject {
     String name();
     String type();
     Optional<String> description();
+    /**
+     * Where the field is declared, empty if the file is not known
+     */
+    Optional<SourceLocation> source();
 
     @Override
     default LuaDocumentableType documentableType() {
         return LuaDocumentableType.FIELD;
     }
 
-    public record Impl(boolean isStatic, String name, String type, Optional<String> description) implements LuaField { }
+    public record Impl(boolean isStatic, String name, String type, Optional<String> description, Optional<SourceLocation> source) implements LuaField { }
 
     public class Builder implements org.xgen.lua.doc.generator.doc.Builder<LuaField> {
         private boolean isStatic = true;
         private String name = null;
         private String type = null;
         private String description = null;
+        private SourceLocation source = null;
+        private final SymbolTable symbols;
+
+        public Builder() {
+            this(SymbolTable.NONE);
+        }
+
+        /**
+         * Builder that shares its names and types through the given table
+         */
+        public Builder(SymbolTable symbols) {
+            this.symbols = symbols;
+        }
 
         public void setStatic(boolean isStatic) {
             this.isStatic = isStatic;
         }
 
         public void setName(String name) {
-            this.name = name;
+            this.name = symbols.intern(name);
         }
 
         public void setType(String type) {
-            this.type = type;
+            this.type = symbols.intern(type);
         }
 
         public void setDescription(String description) {
             this.description = description;
         }
 
+        public void setSource(SourceLocation source) {
+            this.source = source;
+        }
+
         public String getDescription() {
             return description;
         }
@@ -59,7 +80,7 @@ public interface LuaField extends LuaDocumentableObject {
                 throw new IllegalStateException("Lua Field must have a name");
             if (type == null)
                 throw new IllegalStateException("Lua Field must have a type");
-            return new LuaField.Impl(isStatic, name, type, Optional.ofNullable(description));
+            return new LuaField.Impl(isStatic, name, type, Optional.ofNullable(description), Optional.ofNullable(source));
         }
     }
 }
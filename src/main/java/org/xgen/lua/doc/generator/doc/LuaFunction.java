@@ -9,23 +9,41 @@ public interface LuaFunction extends LuaDocumentableObject {
     Optional<String> description();
     List<LuaParameter> parameters();
     List<LuaReturnValue> returns();
+    /**
+     * Where the function is declared, empty if the file is not known
+     */
+    Optional<SourceLocation> source();
 
     @Override
     default LuaDocumentableType documentableType() {
         return LuaDocumentableType.FUNCTION;
     }
 
-    public record Impl(String name, boolean isStatic, Optional<String> description, List<LuaParameter> parameters, List<LuaReturnValue> returns) implements LuaFunction { }
+    public record Impl(String name, boolean isStatic, Optional<String> description, List<LuaParameter> parameters, List<LuaReturnValue> returns,
+                       Optional<SourceLocation> source) implements LuaFunction { }
 
     public static class Builder implements org.xgen.lua.doc.generator.doc.Builder<LuaFunction> {
         private String name;
         private boolean isStatic;
         private String description;
+        private SourceLocation source;
         private final List<LuaParameter> parameters = new java.util.ArrayList<>();
         private final List<LuaReturnValue> returns = new java.util.ArrayList<>();
+        private final SymbolTable symbols;
+
+        public Builder() {
+            this(SymbolTable.NONE);
+        }
+
+        /**
+         * Builder that shares its name through the given table
+         */
+        public Builder(SymbolTable symbols) {
+            this.symbols = symbols;
+        }
 
         public Builder name(String name) {
-            this.name = name;
+            this.name = symbols.intern(name);
             return this;
         }
 
@@ -39,6 +57,11 @@ public interface LuaFunction extends LuaDocumentableObject {
             return this;
         }
 
+        public Builder source(SourceLocation source) {
+            this.source = source;
+            return this;
+        }
+
         public Builder addParameter(LuaParameter parameter) {
             this.parameters.add(parameter);
             return this;
@@ -71,7 +94,7 @@ public interface LuaFunction extends LuaDocumentableObject {
 
         @Override
         public LuaFunction build() {
-            return new Impl(name, isStatic, Optional.ofNullable(description), List.copyOf(parameters), List.copyOf(returns));
+            return new Impl(name, isStatic, Optional.ofNullable(description), List.copyOf(parameters), List.copyOf(returns), Optional.ofNullable(source));
         }
     }
 }
\ No newline at end of file
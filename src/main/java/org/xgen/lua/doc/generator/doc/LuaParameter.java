@@ -15,13 +15,25 @@ public interface LuaParameter {
         private String type = null;
         private boolean optional = false;
         private String description = null;
+        private final SymbolTable symbols;
+
+        public Builder() {
+            this(SymbolTable.NONE);
+        }
+
+        /**
+         * Builder that shares its names and types through the given table
+         */
+        public Builder(SymbolTable symbols) {
+            this.symbols = symbols;
+        }
 
         public void setName(String name) {
-            this.name = name;
+            this.name = symbols.intern(name);
         }
 
         public void setType(String type) {
-            this.type = type;
+            this.type = symbols.intern(type);
         }
 
         public void setOptional(boolean optional) {
@@ -13,14 +13,26 @@ public interface LuaReturnValue {
         private String type;
         private String name;
         private String description;
+        private final SymbolTable symbols;
+
+        public Builder() {
+            this(SymbolTable.NONE);
+        }
+
+        /**
+         * Builder that shares its names and types through the given table
+         */
+        public Builder(SymbolTable symbols) {
+            this.symbols = symbols;
+        }
 
         public Builder setType(String type) {
-            this.type = type;
+            this.type = symbols.intern(type);
             return this;
         }
 
         public Builder setName(String name) {
-            this.name = name;
+            this.name = symbols.intern(name);
             return this;
         }
 
@@ -0,0 +1,18 @@
+package org.xgen.lua.doc.generator.doc;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Where a class, field or function is declared
+ *
+ * @param file the path of the source file relative to the project configuration, or as given on
+ *             the command line for a single file
+ * @param line number of the line of the declaration, starting at 1
+ */
+public record SourceLocation(@NotNull String file, int line) {
+
+    @Override
+    public String toString() {
+        return file + ":" + line;
+    }
+}
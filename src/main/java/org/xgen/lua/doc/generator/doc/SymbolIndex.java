@@ -0,0 +1,236 @@
+package org.xgen.lua.doc.generator.doc;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Every declaration of a doc by a numeric id, and the classes named by its type strings. Ids
+ * are positions in {@link #symbols()}: per namespace each class followed by its fields and
+ * functions, then the global functions and fields of the namespace.
+ * <p>
+ * Type strings are resolved to the spans that name a class, for unions, optional markers,
+ * arrays, generics and function types alike, e.g. {@code table<string, Player>|nil} refers to
+ * {@code Player}. Names are looked up in the namespace of the type first, then in all
+ * namespaces in order. Type strings repeat a lot, each one is resolved once per namespace.
+ * The inheritance between the classes is resolved by {@link #hierarchy()} when it is first
+ * needed. An index can be used by several threads at the same time.
+ */
+public final class SymbolIndex {
+
+    public enum Kind {
+        CLASS, FIELD, FUNCTION;
+
+        /**
+         * Name of the kind in exports
+         */
+        public String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * A declaration
+     *
+     * @param owner class of a member, {@code null} for classes and global functions and fields
+     */
+    public record Symbol(int id, @NotNull Kind kind, @NotNull String namespace, @Nullable String owner, @NotNull String name) {
+
+        /**
+         * Unique name of the declaration: {@code namespace/Class}, {@code namespace/Class.member}
+         * or {@code namespace/member}
+         */
+        public String qualifiedName() {
+            return namespace + "/" + (owner != null ? owner + "." + name : name);
+        }
+    }
+
+    /**
+     * Part of a type string that names a class
+     *
+     * @param start  index of the first character of the name
+     * @param end    index after the last character of the name
+     * @param symbol id of the class
+     */
+    public record TypeRef(int start, int end, int symbol) { }
+
+    /** Index without symbols, for docs that are written before they are complete */
+    public static final SymbolIndex EMPTY = new SymbolIndex();
+
+    private final List<Symbol> symbols = new ArrayList<>();
+    /** The class, field or function of every symbol, by id */
+    private final List<LuaDocumentableObject> declarations = new ArrayList<>();
+    private final Map<String, Integer> qualifiedNames = new HashMap<>();
+    /** First class of every name in the whole doc */
+    private final Map<String, Integer> classes = new HashMap<>();
+    /** First class of every name per namespace */
+    private final Map<String, Map<String, Integer>> namespaceClasses = new HashMap<>();
+    /** Resolved type strings per namespace */
+    private final Map<String, Map<String, List<TypeRef>>> resolved = new ConcurrentHashMap<>();
+    private volatile ClassHierarchy hierarchy;
+
+    private SymbolIndex() { }
+
+    public static SymbolIndex of(LuaDoc doc) {
+        SymbolIndex index = new SymbolIndex();
+        for (LuaNamespace namespace : doc.namespaces()) {
+            Map<String, Integer> local = index.namespaceClasses.computeIfAbsent(namespace.name(), key -> new HashMap<>());
+            for (LuaClass clazz : namespace.classes()) {
+                int id = index.add(Kind.CLASS, namespace.name(), null, clazz.name(), clazz);
+                local.putIfAbsent(clazz.name(), id);
+                index.classes.putIfAbsent(clazz.name(), id);
+                for (LuaField field : clazz.fields()) {
+                    index.add(Kind.FIELD, namespace.name(), clazz.name(), field.name(), field);
+                }
+                for (LuaFunction function : clazz.functions()) {
+                    index.add(Kind.FUNCTION, namespace.name(), clazz.name(), function.name(), function);
+                }
+            }
+            for (LuaFunction function : namespace.functions()) {
+                index.add(Kind.FUNCTION, namespace.name(), null, function.name(), function);
+            }
+            for (LuaField field : namespace.fields()) {
+                index.add(Kind.FIELD, namespace.name(), null, field.name(), field);
+            }
+        }
+        return index;
+    }
+
+    private int add(Kind kind, String namespace, String owner, String name, LuaDocumentableObject declaration) {
+        Symbol symbol = new Symbol(symbols.size(), kind, namespace, owner, name);
+        symbols.add(symbol);
+        declarations.add(declaration);
+        // Overloads and redeclarations share the name of their first declaration
+        qualifiedNames.putIfAbsent(symbol.qualifiedName(), symbol.id());
+        return symbol.id();
+    }
+
+    /**
+     * All symbols, by id
+     */
+    public List<Symbol> symbols() {
+        return Collections.unmodifiableList(symbols);
+    }
+
+    public Symbol symbol(int id) {
+        return symbols.get(id);
+    }
+
+    /**
+     * The {@link LuaClass}, {@link LuaField} or {@link LuaFunction} a symbol was created for
+     */
+    public LuaDocumentableObject declaration(int id) {
+        return declarations.get(id);
+    }
+
+    /**
+     * Where the declaration of a symbol is in the sources, empty if that is not known
+     */
+    public Optional<SourceLocation> source(int id) {
+        return switch (declarations.get(id)) {
+            case LuaClass clazz -> clazz.source();
+            case LuaField field -> field.source();
+            case LuaFunction function -> function.source();
+            default -> Optional.empty();
+        };
+    }
+
+    /**
+     * The inheritance between the classes of the doc, resolved on the first call
+     */
+    public ClassHierarchy hierarchy() {
+        ClassHierarchy result = hierarchy;
+        if (result == null) {
+            synchronized (this) {
+                result = hierarchy;
+                if (result == null) {
+                    hierarchy = result = ClassHierarchy.of(this);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The first declaration of a qualified name, see {@link Symbol#qualifiedName()}
+     */
+    public Optional<Symbol> lookup(@NotNull String qualifiedName) {
+        Integer id = qualifiedNames.get(qualifiedName);
+        return id != null ? Optional.of(symbols.get(id)) : Optional.empty();
+    }
+
+    /**
+     * The class a name refers to from the given namespace
+     */
+    public Optional<Symbol> resolveClass(@NotNull String namespace, @NotNull String name) {
+        Integer id = namespaceClasses.getOrDefault(namespace, Map.of()).get(name);
+        if (id == null) {
+            id = classes.get(name);
+        }
+        return id != null ? Optional.of(symbols.get(id)) : Optional.empty();
+    }
+
+    /**
+     * The parts of a type string used in a namespace that name a class, in order
+     */
+    public List<TypeRef> resolve(@NotNull String namespace, @Nullable String type) {
+        if (type == null || type.isEmpty()) {
+            return List.of();
+        }
+        return resolved.computeIfAbsent(namespace, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(type, key -> parse(namespace, key));
+    }
+
+    private List<TypeRef> parse(String namespace, String type) {
+        List<TypeRef> refs = new ArrayList<>();
+        int length = type.length();
+        int i = 0;
+        while (i < length) {
+            char c = type.charAt(i);
+            if (!isNameStart(c)) {
+                // Skip numbers as a whole, so their digits and letters are not taken for a name
+                do {
+                    i++;
+                } while (isNamePart(c) && i < length && isNamePart(type.charAt(i)));
+                continue;
+            }
+            int start = i;
+            while (i < length && isNamePart(type.charAt(i))) {
+                i++;
+            }
+            // Dotted names like XCore.Player, but not a trailing dot
+            int end = i;
+            while (end > start && type.charAt(end - 1) == '.') {
+                end--;
+            }
+            if (!isParameterName(type, i)) {
+                Optional<Symbol> target = resolveClass(namespace, type.substring(start, end));
+                if (target.isPresent()) {
+                    refs.add(new TypeRef(start, end, target.get().id()));
+                }
+            }
+        }
+        return refs.isEmpty() ? List.of() : List.copyOf(refs);
+    }
+
+    /**
+     * Whether the name that ends before the given index is followed by a colon, like the
+     * parameter names of {@code fun(player: Player)} and the keys of {@code {id: number}}
+     */
+    private static boolean isParameterName(String type, int end) {
+        while (end < type.length() && type.charAt(end) == ' ') {
+            end++;
+        }
+        return end < type.length() && type.charAt(end) == ':';
+    }
+
+    private static boolean isNameStart(char c) {
+        return Character.isLetter(c) || c == '_';
+    }
+
+    private static boolean isNamePart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '.';
+    }
+}
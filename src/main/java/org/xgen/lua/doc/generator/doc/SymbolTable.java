@@ -0,0 +1,49 @@
+package org.xgen.lua.doc.generator.doc;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shares identical type names and identifiers between the objects of a doc. Types like
+ * {@code string}, {@code number} or a class name repeat in every field, parameter and return
+ * value of a project; builders created with a table keep a single instance of each. Descriptions
+ * are not shared, they are rarely repeated.
+ * <p>
+ * A table can be used by several parsers at the same time.
+ */
+public final class SymbolTable {
+
+    /** Table that shares nothing, used by builders created without a table */
+    public static final SymbolTable NONE = new SymbolTable(false);
+
+    private final ConcurrentHashMap<String, String> symbols;
+
+    public SymbolTable() {
+        this(true);
+    }
+
+    private SymbolTable(boolean share) {
+        this.symbols = share ? new ConcurrentHashMap<>() : null;
+    }
+
+    /**
+     * The shared instance of a value, the value itself if it is the first of its kind
+     */
+    public String intern(String value) {
+        if (value == null || symbols == null) {
+            return value;
+        }
+        String existing = symbols.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        existing = symbols.putIfAbsent(value, value);
+        return existing != null ? existing : value;
+    }
+
+    /**
+     * Number of distinct values in the table
+     */
+    public int size() {
+        return symbols == null ? 0 : symbols.size();
+    }
+}
@@ -0,0 +1,248 @@
+package org.xgen.lua.doc.generator.metrics;
+
+import org.jetbrains.annotations.NotNull;
+import org.xgen.lua.doc.generator.write.JsonOutput;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Stream;
+
+/**
+ * Timings and throughput of a generator run: the wall time of each phase, the parse time, size
+ * and line count of every source file, and the size of the output. Phases that run several
+ * times add up. Files can be recorded from several threads at the same time.
+ */
+public final class RunMetrics {
+
+    /** Metrics that record nothing, used when no metrics are asked for */
+    public static final RunMetrics NONE = new RunMetrics(false);
+
+    private static final int SLOWEST_FILES = 10;
+
+    /**
+     * Parse of a single source file
+     *
+     * @param lines  number of lines parsed, 0 if the result came from the parse cache
+     */
+    public record FileMetrics(Path path, long nanos, long bytes, int lines, boolean cached) { }
+
+    /**
+     * Measures the parse of one file, see {@link #startFile(Path)}
+     */
+    public final class FileTimer {
+        private final Path path;
+        private final long start = System.nanoTime();
+        private int lines = -1;
+
+        private FileTimer(Path path) {
+            this.path = path;
+        }
+
+        /**
+         * Record the number of lines of the file, called when the file was parsed and not loaded from a cache
+         */
+        public void parsed(int lines) {
+            this.lines = lines;
+        }
+
+        public void stop() throws IOException {
+            if (!enabled) {
+                return;
+            }
+            long nanos = System.nanoTime() - start;
+            boolean cached = lines < 0;
+            files.add(new FileMetrics(path, nanos, Files.size(path), cached ? 0 : lines, cached));
+        }
+    }
+
+    private final boolean enabled;
+    private final long start = System.nanoTime();
+    /** Map of phase name -> nanoseconds, in order of the first run of a phase */
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+    private final Queue<FileMetrics> files = new ConcurrentLinkedQueue<>();
+    private long extraBytesRead;
+    private long outputBytes;
+
+    public RunMetrics() {
+        this(true);
+    }
+
+    private RunMetrics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Record the end of a phase
+     *
+     * @param phaseStart {@link System#nanoTime()} at the start of the phase
+     */
+    public synchronized void phase(@NotNull String name, long phaseStart) {
+        if (enabled) {
+            phases.merge(name, System.nanoTime() - phaseStart, Long::sum);
+        }
+    }
+
+    /**
+     * Start measuring the parse of a file
+     */
+    public FileTimer startFile(@NotNull Path path) {
+        return new FileTimer(path);
+    }
+
+    /**
+     * Record bytes read besides the source files, e.g. the project configuration
+     */
+    public synchronized void bytesRead(long bytes) {
+        if (enabled) {
+            extraBytesRead += bytes;
+        }
+    }
+
+    /**
+     * Record the size of the output, a file or a directory of files
+     */
+    public void output(@NotNull Path output) throws IOException {
+        if (!enabled || !Files.exists(output)) {
+            return;
+        }
+        long size;
+        if (Files.isDirectory(output)) {
+            try (Stream<Path> walk = Files.walk(output)) {
+                size = walk.filter(Files::isRegularFile).mapToLong(path -> path.toFile().length()).sum();
+            }
+        } else {
+            size = Files.size(output);
+        }
+        synchronized (this) {
+            outputBytes += size;
+        }
+    }
+
+    /**
+     * Print the phases, the throughput and the slowest files as a table
+     */
+    public synchronized void printSummary(@NotNull PrintStream out) {
+        long total = System.nanoTime() - start;
+        Totals totals = totals();
+
+        out.println();
+        out.printf("%-20s %12s%n", "Phase", "Time (ms)");
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            out.printf("%-20s %12.1f%n", phase.getKey(), millis(phase.getValue()));
+        }
+        out.printf("%-20s %12.1f%n", "total", millis(total));
+        out.println();
+        out.printf("Files:   %d (%d parsed, %d from cache), %.1f files/s%n",
+                files.size(), totals.parsed(), files.size() - totals.parsed(), perSecond(files.size(), totals.parseNanos()));
+        out.printf("Lines:   %d, %.1f lines/s%n", totals.lines(), perSecond(totals.lines(), totals.parseNanos()));
+        out.printf("Read:    %s%n", bytes(totals.bytesRead()));
+        out.printf("Output:  %s%n", bytes(outputBytes));
+
+        List<FileMetrics> slowest = slowestFirst();
+        if (!slowest.isEmpty()) {
+            out.println();
+            out.println("Slowest files:");
+            for (FileMetrics file : slowest.subList(0, Math.min(SLOWEST_FILES, slowest.size()))) {
+                out.printf("%10.1f ms  %8d lines  %s%s%n", millis(file.nanos()), file.lines(), file.path(),
+                        file.cached() ? " (cached)" : "");
+            }
+        }
+    }
+
+    /**
+     * Write the metrics as JSON, with the files slowest first
+     */
+    public synchronized void writeJson(@NotNull Path file) throws IOException {
+        long total = System.nanoTime() - start;
+        Totals totals = totals();
+
+        StringBuilder json = new StringBuilder(256 + files.size() * 128);
+        json.append("{\n");
+        json.append("  \"totalMillis\": ").append(decimal(millis(total))).append(",\n");
+        json.append("  \"phases\": [");
+        boolean first = true;
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            json.append(first ? "\n" : ",\n");
+            first = false;
+            json.append("    {\"name\": ");
+            JsonOutput.appendString(json, phase.getKey());
+            json.append(", \"millis\": ").append(decimal(millis(phase.getValue()))).append("}");
+        }
+        json.append(first ? "],\n" : "\n  ],\n");
+        json.append("  \"fileCount\": ").append(files.size()).append(",\n");
+        json.append("  \"parsedFiles\": ").append(totals.parsed()).append(",\n");
+        json.append("  \"cachedFiles\": ").append(files.size() - totals.parsed()).append(",\n");
+        json.append("  \"lines\": ").append(totals.lines()).append(",\n");
+        json.append("  \"filesPerSecond\": ").append(decimal(perSecond(files.size(), totals.parseNanos()))).append(",\n");
+        json.append("  \"linesPerSecond\": ").append(decimal(perSecond(totals.lines(), totals.parseNanos()))).append(",\n");
+        json.append("  \"bytesRead\": ").append(totals.bytesRead()).append(",\n");
+        json.append("  \"outputBytes\": ").append(outputBytes).append(",\n");
+        json.append("  \"files\": [");
+        first = true;
+        for (FileMetrics metrics : slowestFirst()) {
+            json.append(first ? "\n" : ",\n");
+            first = false;
+            json.append("    {\"path\": ");
+            JsonOutput.appendString(json, metrics.path().toString());
+            json.append(", \"millis\": ").append(decimal(millis(metrics.nanos())))
+                    .append(", \"bytes\": ").append(metrics.bytes())
+                    .append(", \"lines\": ").append(metrics.lines())
+                    .append(", \"cached\": ").append(metrics.cached()).append("}");
+        }
+        json.append(first ? "]\n" : "\n  ]\n");
+        json.append("}\n");
+        Files.writeString(file, json, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Sums over all files. Files are parsed in parallel, so the parse time is the wall time of
+     * the "parse" phase if there is one, and the sum of the file times otherwise.
+     */
+    private record Totals(int parsed, long lines, long bytesRead, long parseNanos) { }
+
+    private Totals totals() {
+        int parsed = 0;
+        long lines = 0;
+        long bytesRead = extraBytesRead;
+        long fileNanos = 0;
+        for (FileMetrics file : files) {
+            if (!file.cached()) {
+                parsed++;
+            }
+            // Cached files are read as well, to compare their content hash
+            bytesRead += file.bytes();
+            lines += file.lines();
+            fileNanos += file.nanos();
+        }
+        return new Totals(parsed, lines, bytesRead, phases.getOrDefault("parse", fileNanos));
+    }
+
+    private List<FileMetrics> slowestFirst() {
+        List<FileMetrics> sorted = new ArrayList<>(files);
+        sorted.sort(Comparator.comparingLong(FileMetrics::nanos).reversed());
+        return sorted;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static double perSecond(long count, long nanos) {
+        return nanos == 0 ? 0 : count * 1_000_000_000.0 / nanos;
+    }
+
+    private static String decimal(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static String bytes(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        if (bytes < 1024 * 1024) return String.format(Locale.ROOT, "%.1f KB", bytes / 1024.0);
+        return String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+}
@@ -0,0 +1,216 @@
+package org.xgen.lua.doc.generator.process;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Follows the block structure of Lua code line by line. Openers ({@code function}, {@code if},
+ * {@code do}, {@code repeat}) and closers ({@code end}, {@code until}) are counted outside of
+ * strings and comments, so the end of a function is found without reading ahead, no matter
+ * how long the body is or how many closures it contains.
+ */
+final class BlockTracker {
+
+    /**
+     * Callback for a function whose body is being tracked.
+     */
+    interface FunctionBody {
+        /**
+         * Called once the matching {@code end} has been scanned.
+         *
+         * @param hasReturn whether the body returns a value at its own level (returns in
+         *                  nested functions are not counted)
+         */
+        void close(boolean hasReturn);
+    }
+
+    private static final class Frame {
+        private final boolean function;
+        private final FunctionBody body;
+        private boolean hasReturn;
+
+        private Frame(boolean function, FunctionBody body) {
+            this.function = function;
+            this.body = body;
+        }
+    }
+
+    private static final Frame BLOCK = new Frame(false, null);
+    private static final Frame ANONYMOUS_FUNCTION = new Frame(true, null);
+
+    private final Deque<Frame> frames = new ArrayDeque<>();
+    private FunctionBody expected;
+    /** Level of the long bracket ({@code [==[}) that is still open at the end of the last line, or -1. */
+    private int openLongBracket = -1;
+
+    /**
+     * Binds the next {@code function} keyword scanned on the current line to the given body.
+     * If the line turns out to contain no such keyword, the body is closed without a return.
+     */
+    void expectFunction(final @NotNull FunctionBody body) {
+        this.expected = body;
+    }
+
+    /**
+     * Scan one line of code.
+     */
+    void scan(final @NotNull CharSequence line) {
+        int length = line.length();
+        int i = 0;
+        if (openLongBracket >= 0) {
+            i = skipLongBracket(line, 0, openLongBracket);
+        }
+        while (i < length) {
+            char c = line.charAt(i);
+            if (c == '-' && i + 1 < length && line.charAt(i + 1) == '-') {
+                int level = longBracketLevel(line, i + 2);
+                if (level < 0) {
+                    break;
+                }
+                i = skipLongBracket(line, i + 2 + level + 2, level);
+            } else if (c == '[') {
+                int level = longBracketLevel(line, i);
+                i = level < 0 ? i + 1 : skipLongBracket(line, i + level + 2, level);
+            } else if (c == '"' || c == '\'') {
+                i = skipQuoted(line, i + 1, c);
+            } else if (isWord(c)) {
+                int end = i + 1;
+                while (end < length && isWord(line.charAt(end))) {
+                    end++;
+                }
+                if (!Character.isDigit(c)) {
+                    keyword(line, i, end);
+                }
+                i = end;
+            } else {
+                i++;
+            }
+        }
+
+        if (expected != null) {
+            expected.close(false);
+            expected = null;
+        }
+    }
+
+    /**
+     * Close every function that is still open, e.g. because the file ends without its {@code end}.
+     */
+    void finish() {
+        while (!frames.isEmpty()) {
+            close(frames.pop());
+        }
+    }
+
+    private void keyword(CharSequence line, int start, int end) {
+        if (is(line, start, end, "function")) {
+            if (expected != null) {
+                frames.push(new Frame(true, expected));
+                expected = null;
+            } else {
+                frames.push(ANONYMOUS_FUNCTION);
+            }
+        } else if (is(line, start, end, "if") || is(line, start, end, "do") || is(line, start, end, "repeat")) {
+            frames.push(BLOCK);
+        } else if (is(line, start, end, "end") || is(line, start, end, "until")) {
+            if (!frames.isEmpty()) {
+                close(frames.pop());
+            }
+        } else if (is(line, start, end, "return") && returnsValue(line, end)) {
+            for (Frame frame : frames) {
+                if (frame.function) {
+                    frame.hasReturn = true;
+                    break;
+                }
+            }
+        }
+    }
+
+    private static void close(Frame frame) {
+        if (frame.body != null) {
+            frame.body.close(frame.hasReturn);
+        }
+    }
+
+    /**
+     * Whether the {@code return} keyword ending at {@code pos} is followed by a value on the same line.
+     */
+    private static boolean returnsValue(CharSequence line, int pos) {
+        int length = line.length();
+        while (pos < length && Character.isWhitespace(line.charAt(pos))) {
+            pos++;
+        }
+        if (pos >= length || line.charAt(pos) == ';' || Text.startsWith(line, "--", pos)) {
+            return false;
+        }
+        int end = pos;
+        while (end < length && isWord(line.charAt(end))) {
+            end++;
+        }
+        return !is(line, pos, end, "end") && !is(line, pos, end, "else")
+            && !is(line, pos, end, "elseif") && !is(line, pos, end, "until");
+    }
+
+    private static boolean is(CharSequence line, int start, int end, String keyword) {
+        return end - start == keyword.length() && Text.startsWith(line, keyword, start);
+    }
+
+    /**
+     * Returns the level of a long bracket opening ({@code [[}, {@code [=[}, ...) at {@code pos}, or -1.
+     */
+    private static int longBracketLevel(CharSequence line, int pos) {
+        if (pos >= line.length() || line.charAt(pos) != '[') {
+            return -1;
+        }
+        int level = 0;
+        int i = pos + 1;
+        while (i < line.length() && line.charAt(i) == '=') {
+            level++;
+            i++;
+        }
+        return i < line.length() && line.charAt(i) == '[' ? level : -1;
+    }
+
+    /**
+     * Skips to just after the closing long bracket of the given level. If the line ends first,
+     * the bracket stays open for the next line.
+     */
+    private int skipLongBracket(CharSequence line, int pos, int level) {
+        int close = pos;
+        while ((close = Text.indexOf(line, ']', close)) >= 0) {
+            int i = close + 1;
+            int equals = 0;
+            while (i < line.length() && line.charAt(i) == '=') {
+                equals++;
+                i++;
+            }
+            if (equals == level && i < line.length() && line.charAt(i) == ']') {
+                openLongBracket = -1;
+                return i + 1;
+            }
+            close++;
+        }
+        openLongBracket = level;
+        return line.length();
+    }
+
+    private static int skipQuoted(CharSequence line, int pos, char quote) {
+        while (pos < line.length()) {
+            char c = line.charAt(pos);
+            if (c == '\\') {
+                pos += 2;
+            } else if (c == quote) {
+                return pos + 1;
+            } else {
+                pos++;
+            }
+        }
+        return line.length();
+    }
+
+    private static boolean isWord(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+}
@@ -0,0 +1,32 @@
+package org.xgen.lua.doc.generator.process;
+
+/**
+ * A single classified doc comment line. Which components are set depends on the kind:
+ * <ul>
+ *     <li>{@code CLASS}/{@code ENUM}: name, parent and description</li>
+ *     <li>{@code FIELD}: name, type and description</li>
+ *     <li>{@code TYPE}: type and description</li>
+ *     <li>{@code PARAM}: name, type and description</li>
+ *     <li>{@code RETURN}: type, name and description</li>
+ * </ul>
+ */
+record DocAnnotation(Kind kind, String name, String type, String parent, String description) {
+
+    static final DocAnnotation NON_STATIC = new DocAnnotation(Kind.NON_STATIC, null, null, null, null);
+    static final DocAnnotation OTHER = new DocAnnotation(Kind.OTHER, null, null, null, null);
+    static final DocAnnotation TEXT = new DocAnnotation(Kind.TEXT, null, null, null, null);
+
+    enum Kind {
+        CLASS,
+        ENUM,
+        FIELD,
+        TYPE,
+        PARAM,
+        RETURN,
+        NON_STATIC,
+        /** A recognized but unsupported annotation, which is ignored. */
+        OTHER,
+        /** Plain description text. */
+        TEXT
+    }
+}
@@ -0,0 +1,68 @@
+package org.xgen.lua.doc.generator.process;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.xgen.lua.doc.generator.doc.*;
+
+import java.util.*;
+
+/**
+ * Collects the declarations of a source file into a {@link LuaDoc}, merging everything
+ * declared for a class into one {@link LuaClass}. Classes are kept in the order of their first
+ * declaration.
+ */
+final class DocCollector implements DocSink {
+    private final Map<String, LuaClass.Builder> classes = new LinkedHashMap<>();
+    private final List<LuaFunction> globalFunctions = new ArrayList<>();
+    private final SymbolTable symbols;
+
+    DocCollector(SymbolTable symbols) {
+        this.symbols = symbols;
+    }
+
+    @Override
+    public void classDeclared(@NotNull String name, @Nullable String parent, @Nullable String description, @NotNull List<LuaField> fields,
+                              @Nullable SourceLocation source) {
+        LuaClass.Builder classBuilder = classBuilder(name);
+        if (classBuilder.getParent() == null) {
+            classBuilder.parent(parent);
+        }
+        if (classBuilder.getSource() == null) {
+            classBuilder.source(source);
+        }
+        classBuilder.description(description);
+        for (LuaField field : fields) {
+            classBuilder.addField(field);
+        }
+    }
+
+    @Override
+    public void field(@NotNull String className, @NotNull LuaField field) {
+        classBuilder(className).addField(field);
+    }
+
+    @Override
+    public void function(@Nullable String className, @NotNull LuaFunction function) {
+        if (className != null) {
+            classBuilder(className).addFunction(function);
+        } else {
+            globalFunctions.add(function);
+        }
+    }
+
+    private LuaClass.Builder classBuilder(String name) {
+        return classes.computeIfAbsent(name, key -> new LuaClass.Builder(symbols).name(key));
+    }
+
+    LuaDoc build() {
+        List<LuaClass> classList = new ArrayList<>();
+        for (LuaClass.Builder builder : classes.values()) {
+            classList.add(builder.build());
+        }
+
+        List<LuaNamespace> namespaces = new ArrayList<>();
+        namespaces.add(new LuaNamespace("global", new ArrayList<>(globalFunctions), classList, new ArrayList<>()));
+
+        return new LuaDoc(namespaces);
+    }
+}
@@ -5,129 +5,231 @@ import org.xgen.lua.doc.generator.doc.*;
 
 import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class DocParser {
-    private final BufferedReader reader;
+
+    /**
+     * A declaration waiting to be passed to the sink. Functions are complete once their body
+     * is closed, everything else right away.
+     */
+    private static final class Declaration {
+        private final SinkCall call;
+        private boolean complete;
+
+        private Declaration(SinkCall call, boolean complete) {
+            this.call = call;
+            this.complete = complete;
+        }
+    }
+
+    @FunctionalInterface
+    private interface SinkCall {
+        void send(DocSink sink) throws IOException;
+    }
+
+    private final LineReader lines;
+    private final DocSyntax syntax;
+    private final SymbolTable symbols;
+    /** File recorded in the locations of the declarations, {@code null} to record none */
+    private final String file;
     private final Set<String> localVariables = new HashSet<>();
     private final List<String> commentBlock = new ArrayList<>();
-    private final Map<String, LuaClass.Builder> classes = new LinkedHashMap<>();
-    private final List<LuaFunction.Builder> globalFunctions = new ArrayList<>();
+    /** Number of the line of every comment of the block */
+    private final List<Integer> commentLines = new ArrayList<>();
+    /** Declarations in source order, a function body that is still open holds back the ones after it */
+    private final Deque<Declaration> declarations = new ArrayDeque<>();
+    private final BlockTracker blocks = new BlockTracker();
+    /** Whether the current line was already scanned for blocks while processing it */
+    private boolean lineScanned;
 
     public DocParser(final @NotNull String luaContent) {
-        this.reader = new BufferedReader(new StringReader(luaContent));
+        this(luaContent, ParserEngine.LEXER);
+    }
+
+    public DocParser(final @NotNull String luaContent, final @NotNull ParserEngine engine) {
+        this(LuaSource.of(luaContent), engine);
+    }
+
+    public DocParser(final @NotNull LuaSource source, final @NotNull ParserEngine engine) {
+        this(source, engine, new SymbolTable());
+    }
+
+    /**
+     * Parser that shares type names and identifiers through the given table, e.g. with the
+     * other files of a project
+     */
+    public DocParser(final @NotNull LuaSource source, final @NotNull ParserEngine engine, final @NotNull SymbolTable symbols) {
+        this.lines = source.lines();
+        this.syntax = engine.syntax();
+        this.symbols = symbols;
+        this.file = source.file();
+    }
+
+    /**
+     * Parser that streams the source from a reader, so the source is never held in memory as a
+     * whole. The reader is not closed.
+     */
+    public DocParser(final @NotNull BufferedReader source, final @NotNull ParserEngine engine) {
+        this.lines = new LineReader(source);
+        this.syntax = engine.syntax();
+        this.symbols = new SymbolTable();
+        this.file = null;
     }
 
     public LuaDoc parse() throws IOException {
-        String line;
-        
-        while ((line = reader.readLine()) != null) {
-            processLine(line, reader);
+        DocCollector collector = new DocCollector(symbols);
+        parse(collector);
+        return collector.build();
+    }
+
+    /**
+     * Parse the source and pass each declaration to the sink as soon as it is complete, instead
+     * of collecting the whole documentation first. Declarations are passed in source order, so
+     * besides the current line only the declarations inside a function body that is still open
+     * are held back.
+     */
+    public void parse(final @NotNull DocSink sink) throws IOException {
+        try {
+            while (lines.next()) {
+                processLine(lines.trimmed());
+                if (!lineScanned) {
+                    blocks.scan(lines.line());
+                }
+                lineScanned = false;
+                emitCompleted(sink);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
+        blocks.finish();
+        emitCompleted(sink);
+    }
 
-        return build();
+    /**
+     * Number of source lines read so far, all of them once {@link #parse()} returned
+     */
+    public int linesRead() {
+        return lines.count();
     }
-    
-    private LuaDoc build() {
-        List<LuaClass> classList = new ArrayList<>();
-        for (LuaClass.Builder builder : classes.values()) {
-            classList.add(builder.build());
+
+    private void emitCompleted(DocSink sink) throws IOException {
+        while (!declarations.isEmpty() && declarations.peekFirst().complete) {
+            declarations.removeFirst().call.send(sink);
         }
-        
-        List<LuaFunction> globalFunctionList = new ArrayList<>();
-        for (LuaFunction.Builder builder : globalFunctions) {
-            globalFunctionList.add(builder.build());
+    }
+
+    private void declare(SinkCall call) {
+        declarations.addLast(new Declaration(call, true));
+    }
+
+    /**
+     * Declare a function that is complete once the body declared on the current line is closed,
+     * adding an {@code any} return value if the body turns out to return a value
+     */
+    private void declareTrackedFunction(String className, LuaFunction.Builder funcBuilder) {
+        Declaration declaration = new Declaration(sink -> sink.function(className, funcBuilder.build()), false);
+        declarations.addLast(declaration);
+        blocks.expectFunction(hasReturn -> {
+            if (hasReturn) {
+                LuaReturnValue.Builder returnBuilder = new LuaReturnValue.Builder(symbols);
+                returnBuilder.setType("any");
+                funcBuilder.addReturnValue(returnBuilder.build());
+            }
+            declaration.complete = true;
+        });
+    }
+
+    /**
+     * Location of a line of the source, {@code null} if the file is not known
+     */
+    private SourceLocation location(int line) {
+        return file != null ? new SourceLocation(file, line) : null;
+    }
+
+    private static List<LuaField> buildFields(List<LuaField.Builder> builders) {
+        List<LuaField> fields = new ArrayList<>();
+        for (LuaField.Builder builder : builders) {
+            fields.add(builder.build());
         }
-        
-        List<LuaNamespace> namespaces = new ArrayList<>();
-        namespaces.add(new LuaNamespace("global", globalFunctionList, classList, new ArrayList<>()));
-        
-        return new LuaDoc(namespaces);
+        return fields;
     }
 
-    private void processLine(final @NotNull String line, final @NotNull BufferedReader reader) throws IOException {
-        String trimmed = line.trim();
-        
-        if (Patterns.LOCAL.matcher(trimmed).find()) {
-            Matcher assignMatcher = Patterns.ASSIGNMENT.matcher(trimmed);
-            if (assignMatcher.find()) {
-                String varName = assignMatcher.group(1);
+    /**
+     * Process one line. The line is a view that changes with the next line, it is only copied
+     * into a string where it is kept or handed to the doc block handling.
+     */
+    private void processLine(final @NotNull LineReader.View trimmed) {
+        if (syntax.isLocal(trimmed)) {
+            String varName = syntax.assignmentTarget(trimmed);
+            if (varName != null) {
                 localVariables.add(varName);
             }
         }
         
-        if (Patterns.DOC_COMMENT.matcher(trimmed).find() && !Patterns.META.matcher(trimmed).find()) {
-                commentBlock.add(trimmed);
+        if (syntax.isDocComment(trimmed) && !syntax.isMeta(trimmed)) {
+                commentBlock.add(trimmed.toString());
+                commentLines.add(lines.count());
         } else if (!trimmed.isEmpty() && !trimmed.startsWith("--")) {
             // Process the collected comments with the current line
             if (!commentBlock.isEmpty()) {
-                processDocBlock(commentBlock, trimmed, classes, globalFunctions, localVariables, reader);
+                processDocBlock(commentBlock, trimmed.toString(), localVariables);
                 commentBlock.clear();
+                commentLines.clear();
             } else {
                 // No doc comments, check for undocumented function
-                processUndocumentedFunction(trimmed, classes, globalFunctions, localVariables, reader);
+                processUndocumentedFunction(trimmed, localVariables);
             }
         } else if (trimmed.isEmpty()) {
             // Empty line breaks the comment block
             if (!commentBlock.isEmpty()) {
                 // Process class/enum definitions that don't have code on the next line
-                DocBlock docBlock = parseCommentBlock(commentBlock);
+                DocBlock docBlock = parseCommentBlock(commentBlock, commentLines);
                 if (docBlock.getClassBuilder() != null) {
                     String className = docBlock.getClassBuilder().getName();
-                    LuaClass.Builder classBuilder = classes.getOrDefault(className, new LuaClass.Builder());
-                    classBuilder.name(className);
-                    classBuilder.description(docBlock.getDescription());
-                    classes.put(className, classBuilder);
-                    for (LuaField.Builder field : docBlock.getFields()) {
-                        classBuilder.addField(field.build());
-                    }
+                    String parent = docBlock.getClassBuilder().getParent();
+                    String description = docBlock.getDescription();
+                    SourceLocation source = docBlock.getClassBuilder().getSource();
+                    List<LuaField> fields = buildFields(docBlock.getFields());
+                    declare(sink -> sink.classDeclared(className, parent, description, fields, source));
                 } else if (docBlock.getClassBuilder() != null) {
                     return;
                 }
                 commentBlock.clear();
+                commentLines.clear();
             }
         }
     }
 
-    private void processDocBlock(List<String> comments, String codeLine, 
-                                  Map<String, LuaClass.Builder> classes,
-                                  List<LuaFunction.Builder> globalFunctions,
-                                  Set<String> localVariables,
-                                  BufferedReader reader) throws IOException {
+    private void processDocBlock(List<String> comments, String codeLine, Set<String> localVariables) {
         
-        DocBlock docBlock = parseCommentBlock(comments);
+        DocBlock docBlock = parseCommentBlock(comments, commentLines);
         
         if (docBlock.getClassBuilder() != null && !docBlock.isEnum()) {
             // Handle @class
             String className = docBlock.getClassBuilder().getName();
-            LuaClass.Builder classBuilder = classes.getOrDefault(className, new LuaClass.Builder());
-            classes.put(className, classBuilder);
-            classBuilder.name(className);
-            classBuilder.description(docBlock.getDescription());
-            for (LuaField.Builder field : docBlock.getFields()) {
-                classBuilder.addField(field.build());
-            }
+            String parent = docBlock.getClassBuilder().getParent();
+            String description = docBlock.getDescription();
+            SourceLocation source = docBlock.getClassBuilder().getSource();
+            List<LuaField> fields = buildFields(docBlock.getFields());
+            declare(sink -> sink.classDeclared(className, parent, description, fields, source));
         } else if (docBlock.getClassBuilder() != null && docBlock.isEnum()) {
             // Handle @enum as a class
             String enumName = docBlock.getClassBuilder().getName();
-            LuaClass.Builder classBuilder = classes.getOrDefault(enumName, new LuaClass.Builder());
-            classes.put(enumName, classBuilder);
-            classBuilder.name(enumName);
-            classBuilder.description(docBlock.getDescription());
+            String description = docBlock.getDescription();
+            SourceLocation source = docBlock.getClassBuilder().getSource();
             
             // Parse enum values (codeLine should contain the opening brace)
-            parseEnumValues(reader, classBuilder, codeLine);
+            List<LuaField> values = new ArrayList<>();
+            parseEnumValues(values, codeLine);
+            declare(sink -> sink.classDeclared(enumName, null, description, values, source));
         } else if (docBlock.getTypeBuilder() != null) {
             // Handle @type for static fields
-            Matcher assignMatcher = Patterns.ASSIGNMENT.get().matcher(codeLine);
-            if (assignMatcher.find()) {
-                String fullName = assignMatcher.group(1);
-                
+            String fullName = syntax.assignmentTarget(codeLine);
+            if (fullName != null) {
                 // Skip local variables
-                if (Patterns.LOCAL.get().matcher(codeLine).find()) {
+                if (syntax.isLocal(codeLine)) {
                     return;
                 }
                 
@@ -142,37 +244,37 @@ public class DocParser {
                         return;
                     }
                     
-                    LuaClass.Builder classBuilder = classes.getOrDefault(className, new LuaClass.Builder());
-                    classes.put(className, classBuilder);
-                    classBuilder.name(className);
-                    LuaField.Builder fieldBuilder = new LuaField.Builder();
+                    LuaField.Builder fieldBuilder = new LuaField.Builder(symbols);
                     fieldBuilder.setName(fieldName);
                     fieldBuilder.setType(docBlock.getTypeBuilder().getType());
                     fieldBuilder.setDescription(docBlock.getTypeBuilder().getDescription());
-                    classBuilder.addField(fieldBuilder.build());
+                    fieldBuilder.setSource(location(lines.count()));
+                    LuaField field = fieldBuilder.build();
+                    declare(sink -> sink.field(className, field));
                 }
             }
         } else {
             // Handle function
             // Skip local functions
-            if (Patterns.LOCAL.get().matcher(codeLine).find()) {
+            if (syntax.isLocal(codeLine)) {
                 return;
             }
             
-            Matcher funcMatcher = Patterns.FUNCTION.get().matcher(codeLine);
-            if (funcMatcher.find()) {
-                String className = funcMatcher.group(1);
-                String separator = funcMatcher.group(2);
-                String funcName = funcMatcher.group(3);
-                String params = funcMatcher.group(4);
+            FunctionSignature signature = syntax.function(codeLine);
+            if (signature != null) {
+                String className = signature.className();
+                String separator = signature.separator();
+                String funcName = signature.name();
+                String params = signature.params();
                 
                 // Skip if the function belongs to a local variable
                 if (className != null && localVariables.contains(className.split("\\.")[0])) {
                     return;
                 }
                 
-                LuaFunction.Builder funcBuilder = new LuaFunction.Builder().name(funcName);
+                LuaFunction.Builder funcBuilder = new LuaFunction.Builder(symbols).name(funcName);
                 funcBuilder.description(docBlock.getDescription());
+                funcBuilder.source(location(lines.count()));
                 
                 // Check for @non-static or @none-static annotation
                 boolean hasNonStaticAnnotation = docBlock.hasNonStatic();
@@ -199,7 +301,7 @@ public class DocParser {
                     if (paramInfo != null) {
                         funcBuilder.addParameter(paramInfo.build());
                     } else {
-                        LuaParameter.Builder paramBuilder = new LuaParameter.Builder();
+                        LuaParameter.Builder paramBuilder = new LuaParameter.Builder(symbols);
                         paramBuilder.setName(paramName);
                         funcBuilder.addParameter(paramBuilder.build());
                     }
@@ -210,50 +312,37 @@ public class DocParser {
                     for (LuaReturnValue.Builder returnBuilder : docBlock.getReturnBuilders()) {
                         funcBuilder.addReturnValue(returnBuilder.build());
                     }
-                } else if (hasReturnStatement(codeLine, reader)) {
-                    LuaReturnValue.Builder returnBuilder = new LuaReturnValue.Builder();
-                    returnBuilder.setType("any");
-                    funcBuilder.addReturnValue(returnBuilder.build());
-                }
-                // If neither @return nor return statement exists, don't add any return value
-                
-                // Add to class or global functions
-                if (className != null) {
-                    LuaClass.Builder classBuilder = classes.getOrDefault(className, new LuaClass.Builder());
-                    classes.put(className, classBuilder);
-                    classBuilder.name(className);
-                    classBuilder.addFunction(funcBuilder.build());
+                    LuaFunction function = funcBuilder.build();
+                    declare(sink -> sink.function(className, function));
                 } else {
-                    globalFunctions.add(funcBuilder);
+                    declareTrackedFunction(className, funcBuilder);
                 }
+                // If neither @return nor return statement exists, don't add any return value
             }
         }
     }
     
-    private void processUndocumentedFunction(String codeLine,
-                                              Map<String, LuaClass.Builder> classes,
-                                              List<LuaFunction.Builder> globalFunctions,
-                                              Set<String> localVariables,
-                                              BufferedReader reader) throws IOException {
+    private void processUndocumentedFunction(CharSequence codeLine, Set<String> localVariables) {
         // Skip local functions
-        if (Patterns.LOCAL.get().matcher(codeLine).find()) {
+        if (syntax.isLocal(codeLine)) {
             return;
         }
         
-        Matcher funcMatcher = Patterns.FUNCTION.get().matcher(codeLine);
-        if (funcMatcher.find()) {
-            String className = funcMatcher.group(1);
-            String separator = funcMatcher.group(2);
-            String funcName = funcMatcher.group(3);
-            String params = funcMatcher.group(4);
+        FunctionSignature signature = syntax.function(codeLine);
+        if (signature != null) {
+            String className = signature.className();
+            String separator = signature.separator();
+            String funcName = signature.name();
+            String params = signature.params();
             
             // Skip if the function belongs to a local variable
             if (className != null && localVariables.contains(className.split("\\.")[0])) {
                 return;
             }
             
-            LuaFunction.Builder funcBuilder = new LuaFunction.Builder().name(funcName);
+            LuaFunction.Builder funcBuilder = new LuaFunction.Builder(symbols).name(funcName);
             funcBuilder.description(null);
+            funcBuilder.source(location(lines.count()));
             
             // Determine if static
             boolean isStatic = separator == null || ".".equals(separator);
@@ -262,133 +351,109 @@ public class DocParser {
             // Parse parameters - all type "any"
             List<String> paramNames = parseParameterNames(params);
             for (String paramName : paramNames) {
-                LuaParameter.Builder paramBuilder = new LuaParameter.Builder();
+                LuaParameter.Builder paramBuilder = new LuaParameter.Builder(symbols);
                 paramBuilder.setName(paramName);
                 paramBuilder.setType("any");
                 funcBuilder.addParameter(paramBuilder.build());
             }
             
             // Only add return value if function actually has a return statement
-            if (hasReturnStatement(codeLine, reader)) {
-                LuaReturnValue.Builder returnBuilder = new LuaReturnValue.Builder();
-                returnBuilder.setType("any");
-                funcBuilder.addReturnValue(returnBuilder.build());
-            }
-            // If no return statement exists, don't add any return value
-            
-            // Add to class or global functions
-            if (className != null) {
-                LuaClass.Builder classBuilder = classes.getOrDefault(className, new LuaClass.Builder());
-                classes.put(className, classBuilder);
-                classBuilder.name(className);
-                classBuilder.addFunction(funcBuilder.build());
-            } else {
-                globalFunctions.add(funcBuilder);
-            }
+            declareTrackedFunction(className, funcBuilder);
         }
     }
     
-    private DocBlock parseCommentBlock(List<String> comments) {
+    /**
+     * @param commentLines number of the line of every comment, empty if the locations are not
+     *                     needed
+     */
+    private DocBlock parseCommentBlock(List<String> comments, List<Integer> commentLines) {
         DocBlock block = new DocBlock();
         StringBuilder description = new StringBuilder();
         LuaField.Builder lastField = null;
         LuaParameter.Builder lastParam = null;
         
-        for (String comment : comments) { 
-            Matcher matcher = Patterns.CLASS.get().matcher(comment);
-            if (matcher.find()) {
-                lastField = null;
-                lastParam = null;
-                LuaClass.Builder classBuilder = new LuaClass.Builder();
-                block.setClassBuilder(classBuilder);
-                classBuilder.name(matcher.group(1));
-                String desc = matcher.group(3);
-                if (desc != null && !desc.isEmpty()) {
-                    description.append(desc);
+        for (int i = 0; i < comments.size(); i++) {
+            String comment = comments.get(i);
+            SourceLocation source = i < commentLines.size() ? location(commentLines.get(i)) : null;
+            DocAnnotation annotation = syntax.annotation(comment);
+            switch (annotation.kind()) {
+                case CLASS, ENUM -> {
+                    lastField = null;
+                    lastParam = null;
+                    LuaClass.Builder classBuilder = new LuaClass.Builder(symbols);
+                    block.setClassBuilder(classBuilder);
+                    if (annotation.kind() == DocAnnotation.Kind.ENUM) {
+                        block.setIsEnum(true);
+                    } else {
+                        classBuilder.parent(parentName(annotation.parent()));
+                    }
+                    classBuilder.name(annotation.name());
+                    classBuilder.source(source);
+                    String desc = annotation.description();
+                    if (desc != null && !desc.isEmpty()) {
+                        description.append(desc);
+                    }
+                    continue;
                 }
-                continue;
-            }
-            matcher = Patterns.ENUM.get().matcher(comment);
-            if (matcher.find()) {
-                lastField = null;
-                lastParam = null;
-                LuaClass.Builder classBuilder = new LuaClass.Builder();
-                block.setClassBuilder(classBuilder);
-                block.setIsEnum(true);
-                classBuilder.name(matcher.group(1));
-                String desc = matcher.group(3);
-                if (desc != null && !desc.isEmpty()) {
-                    description.append(desc);
+                case FIELD -> {
+                    lastParam = null;
+                    LuaField.Builder fieldBuilder = new LuaField.Builder(symbols);
+                    fieldBuilder.setStatic(false);
+                    fieldBuilder.setName(annotation.name());
+                    fieldBuilder.setType(annotation.type());
+                    fieldBuilder.setDescription(annotation.description());
+                    fieldBuilder.setSource(source);
+                    block.addField(fieldBuilder);
+                    lastField = fieldBuilder;
+                    continue;
                 }
-                continue;
-            }
-
-            matcher = Patterns.FIELD.get().matcher(comment);
-            if (matcher.find()) {
-                lastParam = null;
-                LuaField.Builder fieldBuilder = new LuaField.Builder();
-                fieldBuilder.setStatic(false);
-                fieldBuilder.setName(matcher.group(2));
-                fieldBuilder.setType(matcher.group(3));
-                fieldBuilder.setDescription(matcher.group(4));
-                block.addField(fieldBuilder);
-                lastField = fieldBuilder;
-                continue;
-            }
-
-            matcher = Patterns.TYPE.get().matcher(comment);
-            if (matcher.find()) {
-                lastField = null;
-                lastParam = null;
-                LuaField.Builder fieldBuilder = new LuaField.Builder();
-                fieldBuilder.setType(matcher.group(1));
-                fieldBuilder.setDescription(matcher.group(2));
-                block.setTypeBuilder(fieldBuilder);
-                continue;
-            }
-
-            matcher = Patterns.PARAM.get().matcher(comment);
-            if (matcher.find()) {
-                lastField = null;
+                case TYPE -> {
+                    lastField = null;
+                    lastParam = null;
+                    LuaField.Builder fieldBuilder = new LuaField.Builder(symbols);
+                    fieldBuilder.setType(annotation.type());
+                    fieldBuilder.setDescription(annotation.description());
+                    block.setTypeBuilder(fieldBuilder);
+                    continue;
+                }
+                case PARAM -> {
+                    lastField = null;
 
-                LuaParameter.Builder paramBuilder = new LuaParameter.Builder();
-                paramBuilder.setName(matcher.group(1));
-                paramBuilder.setType(matcher.group(2));
-                paramBuilder.setDescription(matcher.group(3));
-                block.addParameter(paramBuilder);
-                
-                lastParam = paramBuilder;
-                continue;
-            }
-            
-            matcher = Patterns.RETURN_DOC.get().matcher(comment);
-            if (matcher.find()) {
-                lastField = null;
-                lastParam = null;
-                
-                LuaReturnValue.Builder returnBuilder = new LuaReturnValue.Builder();
-                returnBuilder.setType(matcher.group(1));
-                returnBuilder.setName(matcher.group(2));
-                returnBuilder.setDescription(matcher.group(3));
-                block.addReturnBuilder(returnBuilder);
-                
-                continue;
-            }
-            
-            matcher = Patterns.NON_STATIC.get().matcher(comment);
-            if (matcher.find()) {
-                block.setHasNonStatic(true);
-                lastField = null;
-                lastParam = null;
-                continue;
-            }
-            
-            matcher = Patterns.ANY_ANNOTATION.get().matcher(comment);
-            if (matcher.find()) {
-                // Ignore unrecognized annotations
-                lastField = null;
-                lastParam = null;
-                continue;
+                    LuaParameter.Builder paramBuilder = new LuaParameter.Builder(symbols);
+                    paramBuilder.setName(annotation.name());
+                    paramBuilder.setType(annotation.type());
+                    paramBuilder.setDescription(annotation.description());
+                    block.addParameter(paramBuilder);
+                    
+                    lastParam = paramBuilder;
+                    continue;
+                }
+                case RETURN -> {
+                    lastField = null;
+                    lastParam = null;
+                    
+                    LuaReturnValue.Builder returnBuilder = new LuaReturnValue.Builder(symbols);
+                    returnBuilder.setType(annotation.type());
+                    returnBuilder.setName(annotation.name());
+                    returnBuilder.setDescription(annotation.description());
+                    block.addReturnBuilder(returnBuilder);
+                    
+                    continue;
+                }
+                case NON_STATIC -> {
+                    block.setHasNonStatic(true);
+                    lastField = null;
+                    lastParam = null;
+                    continue;
+                }
+                case OTHER -> {
+                    // Ignore unrecognized annotations
+                    lastField = null;
+                    lastParam = null;
+                    continue;
+                }
+                case TEXT -> {
+                }
             }
             
             if (comment.isEmpty()) {
@@ -425,61 +490,75 @@ public class DocParser {
         return block;
     }
     
-    private void parseEnumValues(BufferedReader reader, LuaClass.Builder classBuilder, String firstLine) {
-        String line;
+    /**
+     * The first parent of {@code ---@class Name : Parent, Other}, only single inheritance is
+     * recorded
+     */
+    private static String parentName(String parent) {
+        if (parent == null) {
+            return null;
+        }
+        int comma = parent.indexOf(',');
+        String first = comma < 0 ? parent : parent.substring(0, comma);
+        return first.isEmpty() ? null : first;
+    }
+
+    private void parseEnumValues(List<LuaField> values, String firstLine) {
         List<String> valueComments = new ArrayList<>();
         boolean inEnum = false;
         
-        try {
-            // Check if opening brace is on the first line
-            if (firstLine.contains("{")) {
-                inEnum = true;
-                int braceIndex = firstLine.indexOf('{');
-                if (braceIndex < firstLine.length() - 1) {
-                    String afterBrace = firstLine.substring(braceIndex + 1).trim();
-                    if (!afterBrace.isEmpty() && !afterBrace.startsWith("--")) {
-                        processEnumValue(afterBrace, valueComments, classBuilder);
-                    }
+        // Lines consumed here are not seen by parse(), so they are scanned for blocks on the way,
+        // starting with the opening line before the reader moves past it
+        blocks.scan(lines.line());
+        lineScanned = true;
+        
+        // Check if opening brace is on the first line
+        if (firstLine.contains("{")) {
+            inEnum = true;
+            int braceIndex = firstLine.indexOf('{');
+            if (braceIndex < firstLine.length() - 1) {
+                String afterBrace = firstLine.substring(braceIndex + 1).trim();
+                if (!afterBrace.isEmpty() && !afterBrace.startsWith("--")) {
+                    processEnumValue(afterBrace, valueComments, values);
                 }
             }
+        }
+        
+        while (lines.next()) {
+            blocks.scan(lines.line());
+            String trimmed = lines.trimmed().toString();
             
-            while ((line = reader.readLine()) != null) {
-                String trimmed = line.trim();
-                
-                // Check for opening brace if not already in enum
-                if (!inEnum && trimmed.contains("{")) {
-                    inEnum = true;
-                    int braceIndex = trimmed.indexOf('{');
-                    if (braceIndex < trimmed.length() - 1) {
-                        String afterBrace = trimmed.substring(braceIndex + 1).trim();
-                        if (!afterBrace.isEmpty() && !afterBrace.startsWith("--")) {
-                            processEnumValue(afterBrace, valueComments, classBuilder);
-                        }
+            // Check for opening brace if not already in enum
+            if (!inEnum && trimmed.contains("{")) {
+                inEnum = true;
+                int braceIndex = trimmed.indexOf('{');
+                if (braceIndex < trimmed.length() - 1) {
+                    String afterBrace = trimmed.substring(braceIndex + 1).trim();
+                    if (!afterBrace.isEmpty() && !afterBrace.startsWith("--")) {
+                        processEnumValue(afterBrace, valueComments, values);
                     }
-                    continue;
                 }
+                continue;
+            }
+        
+            // Check for closing brace
+            if (trimmed.startsWith("}") || trimmed.equals("}")) {
+                break;
+            }
             
-                // Check for closing brace
-                if (trimmed.startsWith("}") || trimmed.equals("}")) {
-                    break;
-                }
-                
-                if (inEnum) {
-                    if (trimmed.startsWith("---@type")) {
-                        valueComments.add(trimmed);
-                    } else if (trimmed.startsWith("---")) {
-                        // Ignore other comments
-                    } else if (!trimmed.isEmpty() && !trimmed.startsWith("--")) {
-                        processEnumValue(trimmed, valueComments, classBuilder);
-                    }
+            if (inEnum) {
+                if (trimmed.startsWith("---@type")) {
+                    valueComments.add(trimmed);
+                } else if (trimmed.startsWith("---")) {
+                    // Ignore other comments
+                } else if (!trimmed.isEmpty() && !trimmed.startsWith("--")) {
+                    processEnumValue(trimmed, valueComments, values);
                 }
             }
-        } catch (IOException e) {
-            throw new RuntimeException(e);
         }
     }
     
-    private void processEnumValue(String line, List<String> valueComments, LuaClass.Builder classBuilder) {
+    private void processEnumValue(String line, List<String> valueComments, List<LuaField> values) {
         // Parse enum value - handle lines that might have commas and comments
         String cleanLine = line;
         
@@ -492,16 +571,15 @@ public class DocParser {
         }
         cleanLine = cleanLine.trim();
         
-        Matcher assignMatcher = Pattern.compile("(\\w+)\\s*=").matcher(cleanLine);
-        if (assignMatcher.find()) {
-            String valueName = assignMatcher.group(1);
-            
-            LuaField.Builder fieldBuilder = new LuaField.Builder();
+        String valueName = syntax.enumValueName(cleanLine);
+        if (valueName != null) {
+            LuaField.Builder fieldBuilder = new LuaField.Builder(symbols);
             fieldBuilder.setName(valueName);
             fieldBuilder.setType("any");
+            fieldBuilder.setSource(location(lines.count()));
             
             if (!valueComments.isEmpty()) {
-                DocBlock valueBlock = parseCommentBlock(valueComments);
+                DocBlock valueBlock = parseCommentBlock(valueComments, List.of());
                 if (valueBlock.getTypeBuilder() != null) {
                     fieldBuilder.setType(valueBlock.getTypeBuilder().getType());
                     fieldBuilder.setDescription(valueBlock.getTypeBuilder().getDescription());
@@ -509,7 +587,7 @@ public class DocParser {
                 valueComments.clear();
             }
             
-            classBuilder.addField(fieldBuilder.build());
+            values.add(fieldBuilder.build());
         }
     }
     
@@ -527,54 +605,4 @@ public class DocParser {
         }
         return names;
     }
-    
-    private boolean hasReturnStatement(String functionLine, BufferedReader reader) throws IOException {
-        // The function line has already been read, so we start looking from the body
-        reader.mark(10000);
-        String line;
-        boolean foundReturn = false;
-        
-        // Check the function line itself (after the function declaration)
-        String cleanFunctionLine = functionLine;
-        if (cleanFunctionLine.contains("--")) {
-            cleanFunctionLine = cleanFunctionLine.substring(0, cleanFunctionLine.indexOf("--"));
-        }
-        // Check if there's a return statement on the same line as the function declaration
-        int functionIndex = cleanFunctionLine.indexOf("function");
-        if (functionIndex >= 0) {
-            String afterFunction = cleanFunctionLine.substring(functionIndex);
-            if (Patterns.RETURN.get().matcher(afterFunction).find()) {
-                foundReturn = true;
-            }
-        }
-        
-        // Now read the function body until we hit 'end'
-        while ((line = reader.readLine()) != null) {
-            String trimmed = line.trim();
-            
-            // Skip comment-only lines
-            if (trimmed.startsWith("--")) {
-                continue;
-            }
-            
-            // Remove inline comments before checking
-            String codePart = trimmed;
-            if (codePart.contains("--")) {
-                codePart = codePart.substring(0, codePart.indexOf("--")).trim();
-            }
-            
-            // Stop at the first 'end' (this closes our function)
-            if (codePart.equals("end")) {
-                break;
-            }
-            
-            // Check for return statement in code (not in comments)
-            if (Patterns.RETURN.get().matcher(codePart).find()) {
-                foundReturn = true;
-            }
-        }
-        
-        reader.reset();
-        return foundReturn;
-    }
 }
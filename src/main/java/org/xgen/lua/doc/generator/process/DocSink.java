@@ -0,0 +1,42 @@
+package org.xgen.lua.doc.generator.process;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.xgen.lua.doc.generator.doc.LuaField;
+import org.xgen.lua.doc.generator.doc.LuaFunction;
+import org.xgen.lua.doc.generator.doc.SourceLocation;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Receives the documentation of a source file from {@link DocParser#parse(DocSink)} one
+ * declaration at a time, in the order of the declarations in the source. A class can be
+ * declared in several places, and its fields and functions can follow anywhere later in the
+ * file; they belong to the class of the same name.
+ */
+public interface DocSink {
+
+    /**
+     * A {@code @class} or {@code @enum} declaration
+     *
+     * @param parent the parent class of a {@code @class}, {@code null} if it has none
+     * @param fields the fields declared with the class, or the values of an enum
+     * @param source location of the {@code @class} or {@code @enum} annotation, {@code null} if
+     *               the file is not known
+     */
+    void classDeclared(@NotNull String name, @Nullable String parent, @Nullable String description, @NotNull List<LuaField> fields,
+                       @Nullable SourceLocation source) throws IOException;
+
+    /**
+     * A static field assigned to a class
+     */
+    void field(@NotNull String className, @NotNull LuaField field) throws IOException;
+
+    /**
+     * A function, passed once its body is closed and its return values are known
+     *
+     * @param className the class of the function, or {@code null} for a global function
+     */
+    void function(@Nullable String className, @NotNull LuaFunction function) throws IOException;
+}
@@ -0,0 +1,55 @@
+package org.xgen.lua.doc.generator.process;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Line level recognizers used by {@link DocParser}. Implementations agree on the results for
+ * lines with at most one {@code ---@} tag, so the parser builds the same model from such lines
+ * with either engine.
+ * <p>
+ * Lines with several tags differ: the lexer classifies them by their first tag, while the regex
+ * engine tries the tags in a fixed order (class, enum, field, type, param, return, non-static)
+ * and takes the first one found anywhere in the line. E.g. {@code ---@param x number ---@class A}
+ * is a parameter for the lexer and a class for the regex engine.
+ */
+interface DocSyntax {
+
+    /**
+     * Whether the line contains a {@code local} declaration.
+     */
+    boolean isLocal(@NotNull CharSequence line);
+
+    /**
+     * Returns the (possibly dotted) name on the left hand side of the first assignment,
+     * or {@code null} if the line contains no assignment.
+     */
+    @Nullable String assignmentTarget(@NotNull CharSequence line);
+
+    /**
+     * Whether the line contains a {@code ---} doc comment.
+     */
+    boolean isDocComment(@NotNull CharSequence line);
+
+    /**
+     * Whether the line contains a {@code ---@meta} comment.
+     */
+    boolean isMeta(@NotNull CharSequence line);
+
+    /**
+     * Returns the name of the first {@code name =} entry of an enum table line,
+     * or {@code null} if there is none.
+     */
+    @Nullable String enumValueName(@NotNull String line);
+
+    /**
+     * Returns the signature of the first function declaration on the line,
+     * or {@code null} if there is none.
+     */
+    @Nullable FunctionSignature function(@NotNull CharSequence line);
+
+    /**
+     * Classifies a single doc comment line.
+     */
+    @NotNull DocAnnotation annotation(@NotNull String comment);
+}
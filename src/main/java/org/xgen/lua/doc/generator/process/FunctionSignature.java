@@ -0,0 +1,12 @@
+package org.xgen.lua.doc.generator.process;
+
+/**
+ * A function declaration as found on a single line of code.
+ *
+ * @param className the owning table (e.g. {@code A.b}), or {@code null} for global functions
+ * @param separator {@code "."} or {@code ":"}, or {@code null} for global functions
+ * @param name the function name
+ * @param params the raw text between the parentheses
+ */
+record FunctionSignature(String className, String separator, String name, String params) {
+}
@@ -0,0 +1,410 @@
+package org.xgen.lua.doc.generator.process;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * {@link DocSyntax} implemented as a hand written scanner. Every recognizer walks the line
+ * at most once and never backtracks, while producing the same results as the
+ * corresponding expression in {@link Patterns}.
+ */
+final class LexerDocSyntax implements DocSyntax {
+
+    @Override
+    public boolean isLocal(@NotNull CharSequence line) {
+        return indexOfKeyword(line, "local") >= 0;
+    }
+
+    @Override
+    public @Nullable String assignmentTarget(@NotNull CharSequence line) {
+        int length = line.length();
+        int i = 0;
+        while (i < length) {
+            if (!isWord(line.charAt(i))) {
+                i++;
+                continue;
+            }
+            int end = skipChain(line, i);
+            int next = skipSpaces(line, end);
+            if (next < length && line.charAt(next) == '=') {
+                return Text.substring(line, i, end);
+            }
+            i = skipWord(line, i);
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isDocComment(@NotNull CharSequence line) {
+        return Text.contains(line, "---");
+    }
+
+    @Override
+    public boolean isMeta(@NotNull CharSequence line) {
+        return Text.contains(line, "---@meta");
+    }
+
+    @Override
+    public @Nullable String enumValueName(@NotNull String line) {
+        int length = line.length();
+        int i = 0;
+        while (i < length) {
+            if (!isWord(line.charAt(i))) {
+                i++;
+                continue;
+            }
+            int end = skipWord(line, i);
+            int next = skipSpaces(line, end);
+            if (next < length && line.charAt(next) == '=') {
+                return line.substring(i, end);
+            }
+            i = end;
+        }
+        return null;
+    }
+
+    @Override
+    public @Nullable FunctionSignature function(@NotNull CharSequence line) {
+        int from = 0;
+        int start;
+        while ((start = Text.indexOf(line, "function", from)) >= 0) {
+            from = start + 1;
+            int pos = start + "function".length();
+            if (pos >= line.length() || !isSpace(line.charAt(pos))) {
+                continue;
+            }
+            FunctionSignature signature = signature(line, skipSpaces(line, pos));
+            if (signature != null) {
+                return signature;
+            }
+        }
+        return null;
+    }
+
+    private @Nullable FunctionSignature signature(CharSequence line, int start) {
+        int length = line.length();
+        int firstEnd = skipWord(line, start);
+        if (firstEnd == start) {
+            return null;
+        }
+
+        // Walk the dotted chain and remember where its last segment starts
+        int chainEnd = firstEnd;
+        int lastDot = -1;
+        while (chainEnd + 1 < length && line.charAt(chainEnd) == '.' && isWord(line.charAt(chainEnd + 1))) {
+            lastDot = chainEnd;
+            chainEnd = skipWord(line, chainEnd + 1);
+        }
+
+        String className;
+        String separator;
+        int nameStart;
+        int nameEnd;
+        if (chainEnd < length && line.charAt(chainEnd) == ':') {
+            nameStart = chainEnd + 1;
+            nameEnd = skipWord(line, nameStart);
+            if (nameEnd == nameStart) {
+                return null;
+            }
+            className = Text.substring(line, start, chainEnd);
+            separator = ":";
+        } else if (lastDot >= 0) {
+            className = Text.substring(line, start, lastDot);
+            separator = ".";
+            nameStart = lastDot + 1;
+            nameEnd = chainEnd;
+        } else {
+            className = null;
+            separator = null;
+            nameStart = start;
+            nameEnd = firstEnd;
+        }
+
+        int open = skipSpaces(line, nameEnd);
+        if (open >= length || line.charAt(open) != '(') {
+            return null;
+        }
+        int close = Text.indexOf(line, ')', open + 1);
+        if (close < 0) {
+            return null;
+        }
+        return new FunctionSignature(className, separator, Text.substring(line, nameStart, nameEnd),
+            Text.substring(line, open + 1, close));
+    }
+
+    @Override
+    public @NotNull DocAnnotation annotation(@NotNull String comment) {
+        int at = comment.indexOf("---@");
+        if (at < 0) {
+            return DocAnnotation.TEXT;
+        }
+        int tagStart = at + 4;
+        int tagEnd = skipWord(comment, tagStart);
+        if (tagEnd == tagStart) {
+            return DocAnnotation.TEXT;
+        }
+
+        DocAnnotation annotation = switch (comment.substring(tagStart, tagEnd)) {
+            case "class" -> classAnnotation(comment, tagEnd, DocAnnotation.Kind.CLASS);
+            case "enum" -> classAnnotation(comment, tagEnd, DocAnnotation.Kind.ENUM);
+            case "field" -> fieldAnnotation(comment, tagEnd);
+            case "type" -> typeAnnotation(comment, tagEnd);
+            case "param" -> paramAnnotation(comment, tagEnd);
+            case "return" -> returnAnnotation(comment, tagEnd);
+            case "non", "none" -> comment.startsWith("-static", tagEnd) ? DocAnnotation.NON_STATIC : null;
+            default -> null;
+        };
+        return annotation != null ? annotation : DocAnnotation.OTHER;
+    }
+
+    private @Nullable DocAnnotation classAnnotation(String comment, int pos, DocAnnotation.Kind kind) {
+        if (!isSpaceAt(comment, pos)) {
+            return null;
+        }
+        int nameStart = skipSpaces(comment, pos);
+        // The name ends at a colon, so "Dog: Animal" and "Dog:Animal" name the parent too
+        int nameEnd = nameStart;
+        while (nameEnd < comment.length() && !isSpace(comment.charAt(nameEnd)) && comment.charAt(nameEnd) != ':') {
+            nameEnd++;
+        }
+        if (nameEnd == nameStart) {
+            return null;
+        }
+
+        String parent = null;
+        int rest = nameEnd;
+        int colon = skipSpaces(comment, nameEnd);
+        if (colon < comment.length() && comment.charAt(colon) == ':') {
+            int parentStart = skipSpaces(comment, colon + 1);
+            int parentEnd = skipNonSpace(comment, parentStart);
+            if (parentEnd > parentStart) {
+                parent = comment.substring(parentStart, parentEnd);
+                rest = parentEnd;
+            }
+        }
+        String description = restOfLine(comment, skipSpaces(comment, rest));
+        return new DocAnnotation(kind, comment.substring(nameStart, nameEnd), null, parent, description);
+    }
+
+    private @Nullable DocAnnotation fieldAnnotation(String comment, int pos) {
+        if (!isSpaceAt(comment, pos)) {
+            return null;
+        }
+        int start = skipSpaces(comment, pos);
+        for (String modifier : new String[] { "private", "public" }) {
+            int modifierEnd = start + modifier.length();
+            if (comment.startsWith(modifier, start) && isSpaceAt(comment, modifierEnd)) {
+                DocAnnotation field = fieldBody(comment, skipSpaces(comment, modifierEnd));
+                if (field != null) {
+                    return field;
+                }
+            }
+        }
+        return fieldBody(comment, start);
+    }
+
+    private @Nullable DocAnnotation fieldBody(String comment, int nameStart) {
+        int nameEnd = skipWord(comment, nameStart);
+        if (nameEnd == nameStart || !isSpaceAt(comment, nameEnd)) {
+            return null;
+        }
+        int typeStart = skipSpaces(comment, nameEnd);
+        int typeEnd = skipType(comment, typeStart);
+        if (typeEnd < 0) {
+            return null;
+        }
+        String description = restOfLine(comment, skipSpaces(comment, typeEnd));
+        return new DocAnnotation(DocAnnotation.Kind.FIELD, comment.substring(nameStart, nameEnd),
+            comment.substring(typeStart, typeEnd), null, description);
+    }
+
+    private @Nullable DocAnnotation typeAnnotation(String comment, int pos) {
+        if (!isSpaceAt(comment, pos)) {
+            return null;
+        }
+        int typeStart = skipSpaces(comment, pos);
+        int typeEnd = skipType(comment, typeStart);
+        if (typeEnd < 0) {
+            return null;
+        }
+        return new DocAnnotation(DocAnnotation.Kind.TYPE, null, comment.substring(typeStart, typeEnd), null,
+            trailingDescription(comment, typeEnd));
+    }
+
+    private @Nullable DocAnnotation paramAnnotation(String comment, int pos) {
+        if (!isSpaceAt(comment, pos)) {
+            return null;
+        }
+        int nameStart = skipSpaces(comment, pos);
+        int nameEnd = skipWord(comment, nameStart);
+        if (nameEnd == nameStart || !isSpaceAt(comment, nameEnd)) {
+            return null;
+        }
+        int typeStart = skipSpaces(comment, nameEnd);
+        int typeEnd = skipType(comment, typeStart);
+        if (typeEnd < 0) {
+            return null;
+        }
+        return new DocAnnotation(DocAnnotation.Kind.PARAM, comment.substring(nameStart, nameEnd),
+            comment.substring(typeStart, typeEnd), null, trailingDescription(comment, typeEnd));
+    }
+
+    private @Nullable DocAnnotation returnAnnotation(String comment, int pos) {
+        if (!isSpaceAt(comment, pos)) {
+            return null;
+        }
+        int typeStart = skipSpaces(comment, pos);
+        int typeEnd = skipType(comment, typeStart);
+        if (typeEnd < 0) {
+            return null;
+        }
+
+        String name = null;
+        int rest = typeEnd;
+        if (isSpaceAt(comment, typeEnd)) {
+            int nameStart = skipSpaces(comment, typeEnd);
+            int nameEnd = skipWord(comment, nameStart);
+            if (nameEnd > nameStart) {
+                name = comment.substring(nameStart, nameEnd);
+                rest = nameEnd;
+            }
+        }
+        return new DocAnnotation(DocAnnotation.Kind.RETURN, name, comment.substring(typeStart, typeEnd), null,
+            trailingDescription(comment, rest));
+    }
+
+    /**
+     * Skips a type expression: one or more {@code |} separated elements, where an element is
+     * either {@code fun(...)} with an optional {@code : ret} or a run of non-space characters.
+     *
+     * @return the end of the type, or -1 if there is no type at {@code pos}
+     */
+    private int skipType(String text, int pos) {
+        int end = skipTypeElement(text, pos);
+        if (end < 0) {
+            return -1;
+        }
+        while (true) {
+            int pipe = skipSpaces(text, end);
+            if (pipe >= text.length() || text.charAt(pipe) != '|') {
+                return end;
+            }
+            int next = skipTypeElement(text, skipSpaces(text, pipe + 1));
+            if (next < 0) {
+                return end;
+            }
+            end = next;
+        }
+    }
+
+    private int skipTypeElement(String text, int pos) {
+        if (text.startsWith("fun(", pos)) {
+            int close = text.indexOf(')', pos + 4);
+            if (close >= 0) {
+                int end = close + 1;
+                int colon = skipSpaces(text, end);
+                if (colon < text.length() && text.charAt(colon) == ':') {
+                    int returnStart = skipSpaces(text, colon + 1);
+                    int returnEnd = skipNonSpace(text, returnStart);
+                    if (returnEnd > returnStart) {
+                        end = returnEnd;
+                    }
+                }
+                return end;
+            }
+        }
+        int end = skipNonSpace(text, pos);
+        return end > pos ? end : -1;
+    }
+
+    /**
+     * The description following whitespace at {@code pos}, or {@code null} if there is none.
+     */
+    private static @Nullable String trailingDescription(String text, int pos) {
+        if (!isSpaceAt(text, pos)) {
+            return null;
+        }
+        int start = skipSpaces(text, pos);
+        String description = restOfLine(text, start);
+        if (!description.isEmpty()) {
+            return description;
+        }
+        // Like "\s+(.+)", give back the last whitespace that is not a line terminator
+        for (int i = start - 1; i > pos; i--) {
+            if (!isLineTerminator(text.charAt(i))) {
+                return text.substring(i, i + 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds a keyword that is directly followed by whitespace.
+     */
+    private static int indexOfKeyword(CharSequence line, String keyword) {
+        int index = Text.indexOf(line, keyword, 0);
+        while (index >= 0) {
+            if (isSpaceAt(line, index + keyword.length())) {
+                return index;
+            }
+            index = Text.indexOf(line, keyword, index + 1);
+        }
+        return -1;
+    }
+
+    private static String restOfLine(String text, int pos) {
+        int end = pos;
+        while (end < text.length() && !isLineTerminator(text.charAt(end))) {
+            end++;
+        }
+        return text.substring(pos, end);
+    }
+
+    private static int skipChain(CharSequence text, int pos) {
+        int end = skipWord(text, pos);
+        while (end + 1 < text.length() && text.charAt(end) == '.' && isWord(text.charAt(end + 1))) {
+            end = skipWord(text, end + 1);
+        }
+        return end;
+    }
+
+    private static int skipWord(CharSequence text, int pos) {
+        while (pos < text.length() && isWord(text.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int skipSpaces(CharSequence text, int pos) {
+        while (pos < text.length() && isSpace(text.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int skipNonSpace(CharSequence text, int pos) {
+        while (pos < text.length() && !isSpace(text.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean isSpaceAt(CharSequence text, int pos) {
+        return pos < text.length() && isSpace(text.charAt(pos));
+    }
+
+    /** Same as {@code \w} in {@link java.util.regex.Pattern}. */
+    private static boolean isWord(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    /** Same as {@code \s} in {@link java.util.regex.Pattern}. */
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /** Characters that {@code .} in {@link java.util.regex.Pattern} does not match. */
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
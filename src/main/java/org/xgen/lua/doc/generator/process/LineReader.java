@@ -0,0 +1,192 @@
+package org.xgen.lua.doc.generator.process;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Reads a {@link LuaSource} line by line. The current line and its trimmed form are views into
+ * the source text that are moved along by {@link #next()}, so no string is created per line.
+ * Lines end at {@code \n}, {@code \r} or {@code \r\n}, like {@link BufferedReader#readLine()}.
+ * <p>
+ * A reader can also stream its lines from a {@link BufferedReader}, for sources that are too
+ * large to keep in memory. Then each line is read into a string of its own and the views are
+ * moved to it.
+ */
+final class LineReader {
+
+    /**
+     * A range of the source text. Only valid until the reader moves on, use {@link #toString()}
+     * to keep the content.
+     */
+    static final class View implements CharSequence {
+        private String text;
+        private int start;
+        private int end;
+
+        private View(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return text.charAt(start + index);
+        }
+
+        @Override
+        public @NotNull String subSequence(int from, int to) {
+            if (from < 0 || to > end - start || from > to) {
+                throw new IndexOutOfBoundsException("[" + from + ", " + to + ") of " + (end - start));
+            }
+            return text.substring(start + from, start + to);
+        }
+
+        boolean startsWith(String prefix) {
+            return startsWith(prefix, 0);
+        }
+
+        boolean startsWith(String prefix, int offset) {
+            return offset >= 0 && offset <= end - start - prefix.length() && text.startsWith(prefix, start + offset);
+        }
+
+        int indexOf(char c, int from) {
+            int index = text.indexOf(c, start + Math.max(from, 0), end);
+            return index < 0 ? -1 : index - start;
+        }
+
+        int indexOf(String target, int from) {
+            int index = text.indexOf(target, Math.min(start + Math.max(from, 0), end), end);
+            return index < 0 ? -1 : index - start;
+        }
+
+        @Override
+        public @NotNull String toString() {
+            return text.substring(start, end);
+        }
+    }
+
+    private final String text;
+    private final BufferedReader reader;
+    private final View line;
+    private final View trimmed;
+    private int position;
+    /** Position of the next {@code \n} at or after {@link #position}, or the length if there is none */
+    private int nextNewline = -1;
+    private int count;
+
+    LineReader(String text) {
+        this.text = text;
+        this.reader = null;
+        this.line = new View(text);
+        this.trimmed = new View(text);
+    }
+
+    /**
+     * Reader that streams the lines from a reader, which is not closed
+     */
+    LineReader(BufferedReader reader) {
+        this.text = null;
+        this.reader = reader;
+        this.line = new View(null);
+        this.trimmed = new View(null);
+    }
+
+    /**
+     * Move to the next line.
+     *
+     * @return false if the source has no more lines
+     * @throws UncheckedIOException if the lines are streamed and reading fails
+     */
+    boolean next() {
+        if (reader != null) {
+            return nextStreamed();
+        }
+        int length = text.length();
+        if (position >= length) {
+            return false;
+        }
+        int start = position;
+        if (nextNewline < start) {
+            // Remembered, so sources with \r line ends are not searched to the end for every line
+            nextNewline = text.indexOf('\n', start);
+            if (nextNewline < 0) {
+                nextNewline = length;
+            }
+        }
+        int end = nextNewline;
+        int cr = text.indexOf('\r', start, end);
+        if (cr >= 0) {
+            end = cr;
+        }
+        position = end;
+        if (position < length) {
+            position += text.charAt(position) == '\r' && position + 1 < length && text.charAt(position + 1) == '\n' ? 2 : 1;
+        }
+        moveTo(text, start, end);
+        count++;
+        return true;
+    }
+
+    private boolean nextStreamed() {
+        String next;
+        try {
+            next = reader.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (next == null) {
+            return false;
+        }
+        line.text = next;
+        trimmed.text = next;
+        moveTo(next, 0, next.length());
+        count++;
+        return true;
+    }
+
+    private void moveTo(String text, int start, int end) {
+        line.start = start;
+        line.end = end;
+
+        // Same as String.trim()
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        trimmed.start = start;
+        trimmed.end = end;
+    }
+
+    /**
+     * Number of lines read so far
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * The current line, without its terminator
+     */
+    View line() {
+        return line;
+    }
+
+    /**
+     * The current line without leading and trailing whitespace
+     */
+    View trimmed() {
+        return trimmed;
+    }
+}
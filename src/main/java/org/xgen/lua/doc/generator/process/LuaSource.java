@@ -0,0 +1,156 @@
+package org.xgen.lua.doc.generator.process;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Text of a Lua source file, decoded once into a single string. {@link DocParser} reads it
+ * through {@link LineReader} views instead of copying every line into a string of its own.
+ * <p>
+ * Large files are memory-mapped, small files are read into a buffer that is reused per thread.
+ * Either way the bytes are decoded in chunks through a reused array-backed buffer, which is
+ * what the decoders are fastest on, straight into the text of the source.
+ * <p>
+ * Sources read from a file carry its name, which the parser records as the
+ * {@link org.xgen.lua.doc.generator.doc.SourceLocation} of every declaration.
+ */
+public final class LuaSource {
+
+    /** Files larger than this are memory-mapped */
+    private static final int MAP_THRESHOLD = 64 * 1024;
+    private static final int DECODE_CHUNK = 16 * 1024;
+    private static final ThreadLocal<ByteBuffer> READ_BUFFER =
+        ThreadLocal.withInitial(() -> ByteBuffer.allocate(MAP_THRESHOLD));
+    private static final ThreadLocal<ByteBuffer> DECODE_BYTES =
+        ThreadLocal.withInitial(() -> ByteBuffer.allocate(DECODE_CHUNK));
+    private static final ThreadLocal<CharBuffer> DECODE_CHARS =
+        ThreadLocal.withInitial(() -> CharBuffer.allocate(DECODE_CHUNK));
+
+    private final String text;
+    private final @Nullable String file;
+
+    private LuaSource(String text, @Nullable String file) {
+        this.text = text;
+        this.file = file;
+    }
+
+    /**
+     * Source from text that is already in memory, without a file
+     */
+    public static LuaSource of(final @NotNull String content) {
+        return new LuaSource(content, null);
+    }
+
+    /**
+     * Read a UTF-8 encoded source file
+     */
+    public static LuaSource read(final @NotNull Path file) throws IOException {
+        return read(file, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read a source file in the given encoding. Malformed input is reported as an error, as
+     * with {@link java.nio.file.Files#readString(Path, Charset)}.
+     */
+    public static LuaSource read(final @NotNull Path file, final @NotNull Charset charset) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File too large: " + file);
+            }
+            if (size > MAP_THRESHOLD) {
+                return decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), charset).named(file.normalize().toString());
+            }
+            ByteBuffer buffer = READ_BUFFER.get().clear();
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Read until the buffer is full or the file ends
+            }
+            return decode(buffer.flip(), charset).named(file.normalize().toString());
+        }
+    }
+
+    /**
+     * Decode encoded source text, e.g. bytes that were already read to compute a hash. The source
+     * has no file until it is {@link #named(String) named}.
+     */
+    public static LuaSource decode(final @NotNull ByteBuffer bytes, final @NotNull Charset charset) throws CharacterCodingException {
+        CharsetDecoder decoder = charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+        // Sized for single byte characters, the common case for Lua sources
+        StringBuilder text = new StringBuilder(bytes.remaining());
+        ByteBuffer in = bytes.hasArray() ? bytes : DECODE_BYTES.get().clear().flip();
+        CharBuffer out = DECODE_CHARS.get().clear();
+        while (true) {
+            if (in != bytes) {
+                // Copy the next chunk of a direct or mapped buffer behind the bytes left over from the last one
+                in.compact();
+                int count = Math.min(in.remaining(), bytes.remaining());
+                in.put(bytes.slice(bytes.position(), count));
+                bytes.position(bytes.position() + count);
+                in.flip();
+            }
+            // All bytes are handed to the decoder at once when the buffer is array-backed, bytes
+            // it leaves over are then an incomplete sequence at the end of the input
+            boolean endOfInput = in == bytes || !bytes.hasRemaining();
+            CoderResult result = decoder.decode(in, out, endOfInput);
+            if (result.isError()) {
+                result.throwException();
+            }
+            text.append(out.array(), 0, out.position());
+            out.clear();
+            if (endOfInput && result.isUnderflow()) {
+                break;
+            }
+        }
+        CoderResult result = decoder.flush(out);
+        if (!result.isUnderflow()) {
+            result.throwException();
+        }
+        text.append(out.array(), 0, out.position());
+        return new LuaSource(text.toString(), null);
+    }
+
+    /**
+     * The same source under the given file name
+     */
+    public LuaSource named(final @NotNull String file) {
+        return new LuaSource(text, file);
+    }
+
+    /**
+     * Name of the file of the source, {@code null} if it was not read from a file
+     */
+    public @Nullable String file() {
+        return file;
+    }
+
+    /**
+     * Number of characters in the source
+     */
+    public int length() {
+        return text.length();
+    }
+
+    LineReader lines() {
+        return new LineReader(text);
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,35 @@
+package org.xgen.lua.doc.generator.process;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Selects how {@link DocParser} recognizes code and doc comment lines.
+ */
+public enum ParserEngine {
+    /** Hand written single pass scanner, the default. */
+    LEXER(new LexerDocSyntax()),
+    /** The original regex based recognizers from {@link Patterns}. */
+    REGEX(new RegexDocSyntax());
+
+    private final @NotNull DocSyntax syntax;
+
+    ParserEngine(final @NotNull DocSyntax syntax) {
+        this.syntax = syntax;
+    }
+
+    @NotNull DocSyntax syntax() {
+        return syntax;
+    }
+
+    /**
+     * Look up an engine by its case-insensitive name.
+     */
+    public static @NotNull ParserEngine of(final @NotNull String name) {
+        for (ParserEngine engine : values()) {
+            if (engine.name().equalsIgnoreCase(name)) {
+                return engine;
+            }
+        }
+        throw new IllegalArgumentException("Unknown parser engine: " + name);
+    }
+}
@@ -10,31 +10,40 @@ import org.jetbrains.annotations.NotNull;
  */
 public enum Patterns {
     DOC_COMMENT("---"),
-    CLASS("---@class\\s+(\\S+)(?:\\s*:\\s*(\\S+))?\\s*(.*)"),
+    CLASS("---@class\\s+([^\\s:]+)(?:\\s*:\\s*(\\S+))?\\s*(.*)"),
     FIELD("---@field\\s+(?:(private|public)\\s+)?(\\w+)\\s+((?:fun\\([^)]*\\)(?:\\s*:\\s*[^\\s]+)?|\\S+)(?:\\s*\\|\\s*(?:fun\\([^)]*\\)(?:\\s*:\\s*[^\\s]+)?|\\S+))*)\\s*(.*)"),
     TYPE("---@type\\s+((?:fun\\([^)]*\\)(?:\\s*:\\s*[^\\s]+)?|\\S+)(?:\\s*\\|\\s*(?:fun\\([^)]*\\)(?:\\s*:\\s*[^\\s]+)?|\\S+))*)(?:\\s+(.+))?"),
     PARAM("---@param\\s+(\\w+)\\s+((?:fun\\([^)]*\\)(?:\\s*:\\s*[^\\s]+)?|\\S+)(?:\\s*\\|\\s*(?:fun\\([^)]*\\)(?:\\s*:\\s*[^\\s]+)?|\\S+))*)(?:\\s+(.+))?"),
     RETURN_DOC("---@return\\s+((?:fun\\([^)]*\\)(?:\\s*:\\s*[^\\s]+)?|\\S+)(?:\\s*\\|\\s*(?:fun\\([^)]*\\)(?:\\s*:\\s*[^\\s]+)?|\\S+))*)(?:\\s+(\\w+))?(?:\\s+(.+))?"),
-    ENUM("---@enum\\s+(\\S+)(?:\\s*:\\s*(\\S+))?\\s*(.*)"),
+    ENUM("---@enum\\s+([^\\s:]+)(?:\\s*:\\s*(\\S+))?\\s*(.*)"),
     FUNCTION("function\\s+(?:(\\w+(?:\\.\\w+)*)([.:]))?([\\w]+)\\s*\\(([^)]*)\\)"),
     ASSIGNMENT("(\\w+(?:\\.\\w+)*)\\s*="),
     LOCAL("local\\s+"),
-    RETURN("return\\s+"),
     META("---@meta"),
     NON_STATIC("---(@non-static|@none-static)"),
-    ANY_ANNOTATION("---@\\w+.*");
+    ANY_ANNOTATION("---@\\w+.*"),
+    ENUM_VALUE("(\\w+)\\s*=");
     ;
-    private final @NotNull String pattern;
+    private final @NotNull Pattern pattern;
+    private final @NotNull ThreadLocal<Matcher> matcher;
 
     Patterns(final @NotNull String pattern) {
-        this.pattern = pattern;
+        this.pattern = Pattern.compile(pattern);
+        this.matcher = ThreadLocal.withInitial(() -> this.pattern.matcher(""));
     }
 
+    /**
+     * Returns the compiled pattern. Patterns are compiled once when the enum is initialized.
+     */
     public @NotNull Pattern get() {
-        return Pattern.compile(pattern);
+        return pattern;
     }
 
-    public @NotNull Matcher matcher(final @NotNull String input) {
-        return get().matcher(input);
+    /**
+     * Returns a matcher for the given input. The matcher is cached per thread and reset on
+     * every call, so it must not be held on to across another call for the same pattern.
+     */
+    public @NotNull Matcher matcher(final @NotNull CharSequence input) {
+        return matcher.get().reset(input);
     }
 }
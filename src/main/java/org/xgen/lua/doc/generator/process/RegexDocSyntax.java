@@ -0,0 +1,83 @@
+package org.xgen.lua.doc.generator.process;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.regex.Matcher;
+
+/**
+ * {@link DocSyntax} backed by the regular expressions in {@link Patterns}.
+ */
+final class RegexDocSyntax implements DocSyntax {
+
+    @Override
+    public boolean isLocal(@NotNull CharSequence line) {
+        return Patterns.LOCAL.matcher(line).find();
+    }
+
+    @Override
+    public @Nullable String assignmentTarget(@NotNull CharSequence line) {
+        Matcher matcher = Patterns.ASSIGNMENT.matcher(line);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    @Override
+    public boolean isDocComment(@NotNull CharSequence line) {
+        return Patterns.DOC_COMMENT.matcher(line).find();
+    }
+
+    @Override
+    public boolean isMeta(@NotNull CharSequence line) {
+        return Patterns.META.matcher(line).find();
+    }
+
+    @Override
+    public @Nullable String enumValueName(@NotNull String line) {
+        Matcher matcher = Patterns.ENUM_VALUE.matcher(line);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    @Override
+    public @Nullable FunctionSignature function(@NotNull CharSequence line) {
+        Matcher matcher = Patterns.FUNCTION.matcher(line);
+        if (!matcher.find()) {
+            return null;
+        }
+        return new FunctionSignature(matcher.group(1), matcher.group(2), matcher.group(3), matcher.group(4));
+    }
+
+    @Override
+    public @NotNull DocAnnotation annotation(@NotNull String comment) {
+        Matcher matcher = Patterns.CLASS.matcher(comment);
+        if (matcher.find()) {
+            return new DocAnnotation(DocAnnotation.Kind.CLASS, matcher.group(1), null, matcher.group(2), matcher.group(3));
+        }
+        matcher = Patterns.ENUM.matcher(comment);
+        if (matcher.find()) {
+            return new DocAnnotation(DocAnnotation.Kind.ENUM, matcher.group(1), null, matcher.group(2), matcher.group(3));
+        }
+        matcher = Patterns.FIELD.matcher(comment);
+        if (matcher.find()) {
+            return new DocAnnotation(DocAnnotation.Kind.FIELD, matcher.group(2), matcher.group(3), null, matcher.group(4));
+        }
+        matcher = Patterns.TYPE.matcher(comment);
+        if (matcher.find()) {
+            return new DocAnnotation(DocAnnotation.Kind.TYPE, null, matcher.group(1), null, matcher.group(2));
+        }
+        matcher = Patterns.PARAM.matcher(comment);
+        if (matcher.find()) {
+            return new DocAnnotation(DocAnnotation.Kind.PARAM, matcher.group(1), matcher.group(2), null, matcher.group(3));
+        }
+        matcher = Patterns.RETURN_DOC.matcher(comment);
+        if (matcher.find()) {
+            return new DocAnnotation(DocAnnotation.Kind.RETURN, matcher.group(2), matcher.group(1), null, matcher.group(3));
+        }
+        if (Patterns.NON_STATIC.matcher(comment).find()) {
+            return DocAnnotation.NON_STATIC;
+        }
+        if (Patterns.ANY_ANNOTATION.matcher(comment).find()) {
+            return DocAnnotation.OTHER;
+        }
+        return DocAnnotation.TEXT;
+    }
+}
@@ -0,0 +1,67 @@
+package org.xgen.lua.doc.generator.process;
+
+/**
+ * {@link String} search methods for any {@link CharSequence}, so lines can be scanned as
+ * {@link LineReader.View}s. Strings and views search their characters directly.
+ */
+final class Text {
+
+    private Text() { }
+
+    static int indexOf(CharSequence text, char c, int from) {
+        if (text instanceof String string) {
+            return string.indexOf(c, from);
+        }
+        if (text instanceof LineReader.View view) {
+            return view.indexOf(c, from);
+        }
+        for (int i = Math.max(from, 0); i < text.length(); i++) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static int indexOf(CharSequence text, String target, int from) {
+        if (text instanceof String string) {
+            return string.indexOf(target, from);
+        }
+        if (text instanceof LineReader.View view) {
+            return view.indexOf(target, from);
+        }
+        int last = text.length() - target.length();
+        for (int i = Math.max(from, 0); i <= last; i++) {
+            if (startsWith(text, target, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static boolean contains(CharSequence text, String target) {
+        return indexOf(text, target, 0) >= 0;
+    }
+
+    static boolean startsWith(CharSequence text, String prefix, int offset) {
+        if (text instanceof String string) {
+            return string.startsWith(prefix, offset);
+        }
+        if (text instanceof LineReader.View view) {
+            return view.startsWith(prefix, offset);
+        }
+        if (offset < 0 || offset > text.length() - prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (text.charAt(offset + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String substring(CharSequence text, int start, int end) {
+        return text.subSequence(start, end).toString();
+    }
+}
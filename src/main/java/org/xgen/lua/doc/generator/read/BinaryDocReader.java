@@ -0,0 +1,251 @@
+package org.xgen.lua.doc.generator.read;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.xgen.lua.doc.generator.doc.*;
+import org.xgen.lua.doc.generator.write.BinaryExport;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Reads docs written by {@link BinaryExport}. The string table and the index are decoded when
+ * the reader is created; namespaces and classes are decoded when they are asked for, so looking
+ * up a single class does not decode the rest of the doc. A reader is not thread safe.
+ */
+public final class BinaryDocReader {
+
+    /**
+     * Position of a namespace in the body and of its classes, by name
+     */
+    private record NamespaceEntry(String name, int offset, Map<String, Integer> classes) { }
+
+    private final byte[] data;
+    private final String[] strings;
+    private final List<NamespaceEntry> namespaces;
+    private final int bodyStart;
+    private int position;
+
+    private BinaryDocReader(byte[] data) throws IOException {
+        this.data = data;
+        try {
+            int magic = (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+            if (magic != BinaryExport.MAGIC) {
+                throw new IOException("Not a binary doc");
+            }
+            int version = readByte();
+            if (version != BinaryExport.FORMAT_VERSION) {
+                throw new IOException("Unsupported binary doc version: " + version);
+            }
+
+            this.strings = new String[readCount()];
+            for (int i = 0; i < strings.length; i++) {
+                int length = readVarint();
+                checkAvailable(length);
+                strings[i] = new String(data, position, length, StandardCharsets.UTF_8);
+                position += length;
+            }
+
+            int namespaceCount = readCount();
+            List<NamespaceEntry> entries = new ArrayList<>(namespaceCount);
+            for (int n = 0; n < namespaceCount; n++) {
+                String name = readString();
+                int offset = readVarint();
+                int classCount = readCount();
+                Map<String, Integer> classes = new HashMap<>(classCount * 4 / 3 + 1);
+                for (int c = 0; c < classCount; c++) {
+                    String className = readString();
+                    // The first class of a name wins, like in the viewer's class registry
+                    classes.putIfAbsent(className, readVarint());
+                }
+                entries.add(new NamespaceEntry(name, offset, classes));
+            }
+            this.namespaces = entries;
+            this.bodyStart = position;
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Damaged binary doc", e);
+        }
+    }
+
+    /**
+     * Read a binary doc file
+     */
+    public static BinaryDocReader open(final @NotNull Path file) throws IOException {
+        return new BinaryDocReader(Files.readAllBytes(file));
+    }
+
+    /**
+     * Read a binary doc that is already in memory
+     */
+    public static BinaryDocReader of(final byte @NotNull [] data) throws IOException {
+        return new BinaryDocReader(data);
+    }
+
+    /**
+     * Names of the namespaces, in the order of the doc
+     */
+    public List<String> namespaceNames() {
+        return namespaces.stream().map(NamespaceEntry::name).toList();
+    }
+
+    /**
+     * Decode the whole doc
+     */
+    public LuaDoc read() throws IOException {
+        List<LuaNamespace> result = new ArrayList<>(namespaces.size());
+        for (NamespaceEntry entry : namespaces) {
+            result.add(readNamespace(entry));
+        }
+        return new LuaDoc(result);
+    }
+
+    /**
+     * Decode a single namespace
+     *
+     * @return the namespace, or {@code null} if the doc has none of that name
+     */
+    public @Nullable LuaNamespace readNamespace(final @NotNull String name) throws IOException {
+        for (NamespaceEntry entry : namespaces) {
+            if (entry.name().equals(name)) {
+                return readNamespace(entry);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Decode a single class
+     *
+     * @return the class, or {@code null} if the namespace does not exist or has no class of that name
+     */
+    public @Nullable LuaClass readClass(final @NotNull String namespace, final @NotNull String className) throws IOException {
+        for (NamespaceEntry entry : namespaces) {
+            Integer offset = entry.name().equals(namespace) ? entry.classes().get(className) : null;
+            if (offset != null) {
+                try {
+                    position = bodyStart + offset;
+                    return readClass();
+                } catch (IndexOutOfBoundsException e) {
+                    throw new IOException("Damaged binary doc", e);
+                }
+            }
+        }
+        return null;
+    }
+
+    private LuaNamespace readNamespace(NamespaceEntry entry) throws IOException {
+        try {
+            position = bodyStart + entry.offset();
+            int classCount = readCount();
+            List<LuaClass> classes = new ArrayList<>(classCount);
+            for (int c = 0; c < classCount; c++) {
+                classes.add(readClass());
+            }
+            List<LuaFunction> functions = readFunctions();
+            List<LuaField> fields = readFields();
+            return new LuaNamespace(entry.name(), functions, classes, fields);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IOException("Damaged binary doc", e);
+        }
+    }
+
+    private LuaClass readClass() {
+        String name = readString();
+        Optional<String> parent = Optional.ofNullable(readString());
+        Optional<String> description = Optional.ofNullable(readString());
+        Optional<SourceLocation> source = readSource();
+        List<LuaField> fields = readFields();
+        List<LuaFunction> functions = readFunctions();
+        return new LuaClass.Impl(name, parent, description, fields, functions, source);
+    }
+
+    private List<LuaField> readFields() {
+        int count = readCount();
+        List<LuaField> fields = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            boolean isStatic = readByte() != 0;
+            String name = readString();
+            String type = readString();
+            Optional<String> description = Optional.ofNullable(readString());
+            fields.add(new LuaField.Impl(isStatic, name, type, description, readSource()));
+        }
+        return List.copyOf(fields);
+    }
+
+    private List<LuaFunction> readFunctions() {
+        int count = readCount();
+        List<LuaFunction> functions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = readString();
+            boolean isStatic = readByte() != 0;
+            Optional<String> description = Optional.ofNullable(readString());
+            Optional<SourceLocation> source = readSource();
+            int paramCount = readCount();
+            List<LuaParameter> parameters = new ArrayList<>(paramCount);
+            for (int p = 0; p < paramCount; p++) {
+                String paramName = readString();
+                String type = readString();
+                boolean optional = readByte() != 0;
+                parameters.add(new LuaParameter.Impl(paramName, type, optional, Optional.ofNullable(readString())));
+            }
+            int returnCount = readCount();
+            List<LuaReturnValue> returns = new ArrayList<>(returnCount);
+            for (int r = 0; r < returnCount; r++) {
+                String type = readString();
+                String returnName = readString();
+                returns.add(new LuaReturnValue.Impl(type, returnName, Optional.ofNullable(readString())));
+            }
+            functions.add(new LuaFunction.Impl(name, isStatic, description, List.copyOf(parameters), List.copyOf(returns), source));
+        }
+        return List.copyOf(functions);
+    }
+
+    private Optional<SourceLocation> readSource() {
+        String file = readString();
+        int line = readVarint();
+        return file != null ? Optional.of(new SourceLocation(file, line)) : Optional.empty();
+    }
+
+    private @Nullable String readString() {
+        int reference = readVarint();
+        return reference == 0 ? null : strings[reference - 1];
+    }
+
+    /**
+     * Number of items that follow, each item takes at least one byte
+     */
+    private int readCount() {
+        int count = readVarint();
+        checkAvailable(count);
+        return count;
+    }
+
+    private int readByte() {
+        checkAvailable(1);
+        return data[position++] & 0xFF;
+    }
+
+    private int readVarint() {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) {
+                    break;
+                }
+                return value;
+            }
+        }
+        throw new IndexOutOfBoundsException("Malformed varint at " + position);
+    }
+
+    private void checkAvailable(int count) {
+        if (count < 0 || count > data.length - position) {
+            throw new IndexOutOfBoundsException("Unexpected end of data at " + position);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package org.xgen.lua.doc.generator.read;
+
+import java.io.IOException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Finds the files matching a set of glob patterns with a single walk of the file tree. All
+ * patterns are compiled up front; each directory is listed at most once, no matter how many
+ * patterns cover it, and subtrees that no pattern can match are not entered at all.
+ * <p>
+ * Directory entries are visited in name order, so the matches of a pattern are always returned
+ * in the same order.
+ */
+final class GlobDiscovery {
+
+    private static final Comparator<Path> BY_NAME = Comparator.comparing(path -> path.getFileName().toString());
+
+    /**
+     * A compiled glob pattern and the files it matched
+     */
+    static final class Glob {
+        private final PathMatcher matcher;
+        /** Matcher for "**&#47;" matching zero directories, e.g. "client/*.lua" for "client/**&#47;*.lua" */
+        private final PathMatcher zeroDepthMatcher;
+        /**
+         * Matchers of the path segments, {@code null} for segments that can span directories, or
+         * {@code null} altogether if the pattern cannot be split into segments
+         */
+        private final PathMatcher[] segments;
+        private final Path root;
+        private final List<Path> matches = new ArrayList<>();
+
+        Glob(Path basePath, String pattern) {
+            this.matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+            this.zeroDepthMatcher = pattern.contains("**/")
+                ? FileSystems.getDefault().getPathMatcher("glob:" + pattern.replace("**/", ""))
+                : null;
+
+            // Braces and brackets may contain slashes, so segments can only be matched one by one without them
+            String[] parts = pattern.split("/");
+            if (pattern.contains("{") || pattern.contains("[")) {
+                this.segments = null;
+            } else {
+                this.segments = new PathMatcher[parts.length];
+                for (int i = 0; i < parts.length; i++) {
+                    segments[i] = parts[i].contains("**") ? null : FileSystems.getDefault().getPathMatcher("glob:" + parts[i]);
+                }
+            }
+
+            // Walk from the directories before the first wildcard (e.g., "server" from "server/**&#47;*.lua")
+            int wildcard = indexOfAny(pattern, "*?[{");
+            int slash = pattern.lastIndexOf('/', wildcard);
+            this.root = slash < 0 ? basePath : basePath.resolve(pattern.substring(0, slash));
+        }
+
+        private boolean matches(Path relativePath) {
+            return matcher.matches(relativePath) || (zeroDepthMatcher != null && zeroDepthMatcher.matches(relativePath));
+        }
+
+        /**
+         * Whether files below the directory with the given path segments can match
+         */
+        boolean mayContain(String[] directory) {
+            return segments == null || mayContain(directory, 0, 0);
+        }
+
+        private boolean mayContain(String[] directory, int segment, int depth) {
+            if (depth == directory.length) {
+                return segment < segments.length;
+            }
+            if (segment == segments.length) {
+                return false;
+            }
+            if (segments[segment] == null) {
+                return mayContain(directory, segment + 1, depth) || mayContain(directory, segment, depth + 1);
+            }
+            return segments[segment].matches(Paths.get(directory[depth])) && mayContain(directory, segment + 1, depth + 1);
+        }
+    }
+
+    private final Path basePath;
+    private final List<Glob> globs = new ArrayList<>();
+
+    GlobDiscovery(Path basePath) {
+        this.basePath = basePath;
+    }
+
+    /**
+     * Whether the path contains glob patterns
+     */
+    static boolean isGlob(String path) {
+        return indexOfAny(path, "*?") < path.length();
+    }
+
+    /**
+     * Add a pattern, relative to the base path
+     *
+     * @return the list the matches of the pattern are added to by {@link #walk()}
+     */
+    List<Path> add(String globPattern) {
+        Glob glob = new Glob(basePath, globPattern);
+        globs.add(glob);
+        return glob.matches;
+    }
+
+    /**
+     * The directories the patterns are matched in, in the order they were added
+     */
+    List<Path> roots() {
+        return globs.stream().map(glob -> glob.root).toList();
+    }
+
+    /**
+     * Walk the file tree once and collect the matches of every pattern
+     */
+    void walk() {
+        List<Path> roots = new ArrayList<>();
+        for (Glob glob : globs) {
+            if (!Files.exists(glob.root)) {
+                System.err.println("Warning: Directory not found: " + glob.root);
+            } else if (roots.stream().noneMatch(glob.root::startsWith)) {
+                roots.removeIf(root -> root.startsWith(glob.root));
+                roots.add(glob.root);
+            }
+        }
+        for (Path root : roots) {
+            List<Glob> active = globs.stream().filter(glob -> glob.root.startsWith(root)).toList();
+            walk(root, active);
+        }
+    }
+
+    private void walk(Path directory, List<Glob> active) {
+        List<Path> entries = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            stream.forEach(entries::add);
+        } catch (IOException | DirectoryIteratorException e) {
+            System.err.println("Warning: Failed to access: " + directory);
+            return;
+        }
+        entries.sort(BY_NAME);
+
+        for (Path entry : entries) {
+            // Normalize to use forward slashes for matching
+            String relativePath = basePath.relativize(entry).toString().replace('\\', '/');
+            if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS)) {
+                String[] segments = relativePath.split("/");
+                List<Glob> below = active.stream().filter(glob -> glob.mayContain(segments)).toList();
+                if (!below.isEmpty()) {
+                    walk(entry, below);
+                }
+            } else {
+                Path relativePathForMatching = Paths.get(relativePath);
+                for (Glob glob : active) {
+                    if (glob.matches(relativePathForMatching)) {
+                        glob.matches.add(entry);
+                    }
+                }
+            }
+        }
+    }
+
+    private static int indexOfAny(String pattern, String characters) {
+        for (int i = 0; i < pattern.length(); i++) {
+            if (characters.indexOf(pattern.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return pattern.length();
+    }
+}
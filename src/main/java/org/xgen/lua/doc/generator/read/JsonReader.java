@@ -0,0 +1,420 @@
+package org.xgen.lua.doc.generator.read;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.regex.Pattern;
+
+/**
+ * Pull reader for JSON documents that reads its input in a single pass through a fixed size
+ * buffer, so configurations of any size are read without holding them in memory or
+ * backtracking. Values are read one token at a time: {@link #peek()} tells the kind of the
+ * next token, the {@code next}, {@code begin} and {@code end} methods consume it.
+ * <pre>
+ * reader.beginObject();
+ * while (reader.hasNext()) {
+ *     String name = reader.nextName();
+ *     ...
+ * }
+ * reader.endObject();
+ * </pre>
+ * Malformed input is reported as an {@link IOException} with the line and column of the
+ * problem. The reader does not close its input until it is closed itself.
+ */
+public final class JsonReader implements Closeable {
+
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL,
+        /** End of the document */
+        END
+    }
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final Pattern NUMBER = Pattern.compile("-?(0|[1-9][0-9]*)(\\.[0-9]+)?([eE][+-]?[0-9]+)?");
+
+    // What the reader expects next in the enclosing value
+    private static final int EMPTY_DOCUMENT = 0;
+    private static final int NONEMPTY_DOCUMENT = 1;
+    private static final int EMPTY_ARRAY = 2;
+    private static final int NONEMPTY_ARRAY = 3;
+    private static final int EMPTY_OBJECT = 4;
+    /** A name was read, its value comes next */
+    private static final int DANGLING_NAME = 5;
+    private static final int NONEMPTY_OBJECT = 6;
+
+    private final Reader input;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    /** Number of characters read before the start of the buffer */
+    private long bufferOffset;
+    private int line = 1;
+    /** Offset of the first character of the current line */
+    private long lineStart;
+
+    private int[] scopes = new int[16];
+    private int depth = 1;
+
+    private Token peeked;
+    /** Text of a peeked name, string, number or literal */
+    private String value;
+    private final StringBuilder text = new StringBuilder();
+
+    public JsonReader(@NotNull Reader input) {
+        this.input = input;
+        scopes[0] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Kind of the next token, without consuming it
+     */
+    public @NotNull Token peek() throws IOException {
+        if (peeked != null) {
+            return peeked;
+        }
+        int scope = scopes[depth - 1];
+        switch (scope) {
+            case EMPTY_DOCUMENT -> scopes[depth - 1] = NONEMPTY_DOCUMENT;
+            case NONEMPTY_DOCUMENT -> {
+                if (nextNonWhitespace() != -1) {
+                    throw error("Unexpected content after the end of the document");
+                }
+                return peeked = Token.END;
+            }
+            case EMPTY_ARRAY, NONEMPTY_ARRAY -> {
+                scopes[depth - 1] = NONEMPTY_ARRAY;
+                int c = nextNonWhitespace();
+                if (c == ']') {
+                    return peeked = Token.END_ARRAY;
+                }
+                if (c == -1) {
+                    throw error("Unterminated array");
+                }
+                if (scope == EMPTY_ARRAY) {
+                    // The first value, read it again below
+                    position--;
+                } else if (c != ',') {
+                    throw error("Expected ',' or ']'");
+                }
+            }
+            case EMPTY_OBJECT, NONEMPTY_OBJECT -> {
+                scopes[depth - 1] = DANGLING_NAME;
+                int c = nextNonWhitespace();
+                if (c == '}') {
+                    return peeked = Token.END_OBJECT;
+                }
+                if (scope == NONEMPTY_OBJECT) {
+                    if (c != ',') {
+                        throw error("Expected ',' or '}'");
+                    }
+                    c = nextNonWhitespace();
+                }
+                if (c != '"') {
+                    throw error("Expected a name");
+                }
+                value = readString();
+                return peeked = Token.NAME;
+            }
+            case DANGLING_NAME -> {
+                scopes[depth - 1] = NONEMPTY_OBJECT;
+                if (nextNonWhitespace() != ':') {
+                    throw error("Expected ':'");
+                }
+            }
+            default -> throw new IllegalStateException("Unknown scope " + scope);
+        }
+        return peeked = readValue();
+    }
+
+    private Token readValue() throws IOException {
+        int c = nextNonWhitespace();
+        switch (c) {
+            case '{' -> {
+                return Token.BEGIN_OBJECT;
+            }
+            case '[' -> {
+                return Token.BEGIN_ARRAY;
+            }
+            case '"' -> {
+                value = readString();
+                return Token.STRING;
+            }
+            case 't' -> {
+                return readLiteral("true", Token.BOOLEAN);
+            }
+            case 'f' -> {
+                return readLiteral("false", Token.BOOLEAN);
+            }
+            case 'n' -> {
+                return readLiteral("null", Token.NULL);
+            }
+            case -1 -> throw error("Unexpected end of the document");
+            default -> {
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return readNumber((char) c);
+                }
+                throw error("Unexpected character '" + (char) c + "'");
+            }
+        }
+    }
+
+    /**
+     * Whether the current array or object has another element
+     */
+    public boolean hasNext() throws IOException {
+        Token token = peek();
+        return token != Token.END_ARRAY && token != Token.END_OBJECT && token != Token.END;
+    }
+
+    public void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    public void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        depth--;
+    }
+
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        depth--;
+    }
+
+    public @NotNull String nextName() throws IOException {
+        expect(Token.NAME);
+        return value;
+    }
+
+    public @NotNull String nextString() throws IOException {
+        expect(Token.STRING);
+        return value;
+    }
+
+    /**
+     * The next number, as written in the document
+     */
+    public @NotNull String nextNumber() throws IOException {
+        expect(Token.NUMBER);
+        return value;
+    }
+
+    public boolean nextBoolean() throws IOException {
+        expect(Token.BOOLEAN);
+        return value.equals("true");
+    }
+
+    public void nextNull() throws IOException {
+        expect(Token.NULL);
+    }
+
+    /**
+     * Skip the next value, including everything nested in it
+     */
+    public void skipValue() throws IOException {
+        int nesting = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_OBJECT -> {
+                    beginObject();
+                    nesting++;
+                }
+                case BEGIN_ARRAY -> {
+                    beginArray();
+                    nesting++;
+                }
+                case END_OBJECT -> {
+                    endObject();
+                    nesting--;
+                }
+                case END_ARRAY -> {
+                    endArray();
+                    nesting--;
+                }
+                case END -> throw error("Expected a value");
+                default -> peeked = null;
+            }
+        } while (nesting > 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    private void expect(Token token) throws IOException {
+        Token actual = peek();
+        if (actual != token) {
+            throw error("Expected " + describe(token) + " but found " + describe(actual));
+        }
+        peeked = null;
+    }
+
+    private void push(int scope) {
+        if (depth == scopes.length) {
+            scopes = Arrays.copyOf(scopes, depth * 2);
+        }
+        scopes[depth++] = scope;
+    }
+
+    private static String describe(Token token) {
+        return switch (token) {
+            case BEGIN_OBJECT -> "'{'";
+            case END_OBJECT -> "'}'";
+            case BEGIN_ARRAY -> "'['";
+            case END_ARRAY -> "']'";
+            case NAME -> "a name";
+            case STRING -> "a string";
+            case NUMBER -> "a number";
+            case BOOLEAN -> "a boolean";
+            case NULL -> "null";
+            case END -> "the end of the document";
+        };
+    }
+
+    /**
+     * Read the rest of a string whose opening quote was read, resolving escapes
+     */
+    private String readString() throws IOException {
+        text.setLength(0);
+        while (true) {
+            int start = position;
+            // Copy runs of plain characters in bulk
+            while (position < limit) {
+                char c = buffer[position];
+                if (c == '"') {
+                    text.append(buffer, start, position - start);
+                    position++;
+                    return text.toString();
+                }
+                if (c == '\\' || c < 0x20) {
+                    break;
+                }
+                position++;
+            }
+            text.append(buffer, start, position - start);
+            if (position == limit) {
+                if (!fill()) {
+                    throw error("Unterminated string");
+                }
+                continue;
+            }
+            char c = buffer[position++];
+            if (c != '\\') {
+                position--;
+                throw error("Unescaped control character in string");
+            }
+            text.append(readEscape());
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = read();
+        return switch (c) {
+            case '"', '\\', '/' -> (char) c;
+            case 'b' -> '\b';
+            case 'f' -> '\f';
+            case 'n' -> '\n';
+            case 'r' -> '\r';
+            case 't' -> '\t';
+            case 'u' -> {
+                int code = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) {
+                        throw error("Invalid unicode escape");
+                    }
+                    code = code * 16 + digit;
+                }
+                yield (char) code;
+            }
+            case -1 -> throw error("Unterminated string");
+            default -> throw error("Invalid escape '\\" + (char) c + "'");
+        };
+    }
+
+    private Token readLiteral(String literal, Token token) throws IOException {
+        for (int i = 1; i < literal.length(); i++) {
+            if (read() != literal.charAt(i)) {
+                throw error("Expected '" + literal + "'");
+            }
+        }
+        if (isLiteralPart(peekChar())) {
+            throw error("Expected '" + literal + "'");
+        }
+        value = literal;
+        return token;
+    }
+
+    private Token readNumber(char first) throws IOException {
+        text.setLength(0);
+        text.append(first);
+        for (int c = peekChar(); isLiteralPart(c); c = peekChar()) {
+            text.append((char) c);
+            position++;
+        }
+        value = text.toString();
+        if (!NUMBER.matcher(value).matches()) {
+            throw error("Invalid number '" + value + "'");
+        }
+        return Token.NUMBER;
+    }
+
+    private static boolean isLiteralPart(int c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '.' || c == '+' || c == '-';
+    }
+
+    /**
+     * The next character that is not whitespace, consumed, or -1 at the end of the input
+     */
+    private int nextNonWhitespace() throws IOException {
+        while (true) {
+            if (position == limit && !fill()) {
+                return -1;
+            }
+            char c = buffer[position++];
+            if (c == '\n') {
+                line++;
+                lineStart = bufferOffset + position;
+            } else if (c != ' ' && c != '\t' && c != '\r') {
+                return c;
+            }
+        }
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peekChar() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private boolean fill() throws IOException {
+        bufferOffset += limit;
+        position = 0;
+        // Blocks until at least one character is read or the input ended
+        int count = input.read(buffer, 0, buffer.length);
+        limit = Math.max(count, 0);
+        return count > 0;
+    }
+
+    private IOException error(String message) {
+        long column = bufferOffset + position - lineStart;
+        return new IOException("Malformed JSON at line " + line + ", column " + column + ": " + message);
+    }
+}
@@ -0,0 +1,108 @@
+package org.xgen.lua.doc.generator.read;
+
+import org.xgen.lua.doc.generator.doc.*;
+
+import java.util.*;
+
+/**
+ * Collects the documentation of all files of one namespace. Classes declared in several files
+ * are merged by name: the first parent, description and source location win, and fields and functions are
+ * deduplicated by name, keeping the first declaration.
+ */
+class NamespaceAccumulator {
+
+    private final Map<String, ClassAccumulator> classes = new LinkedHashMap<>();
+    private final List<LuaFunction> functions = new ArrayList<>();
+    private final List<LuaField> fields = new ArrayList<>();
+
+    /**
+     * Add the elements of a parsed file
+     */
+    void add(LuaDoc doc) {
+        for (LuaNamespace ns : doc.namespaces()) {
+            for (LuaClass newClass : ns.classes()) {
+                ClassAccumulator existing = classes.get(newClass.name());
+                if (existing == null) {
+                    classes.put(newClass.name(), new ClassAccumulator(newClass));
+                } else {
+                    existing.merge(newClass);
+                }
+            }
+            functions.addAll(ns.functions());
+            fields.addAll(ns.fields());
+        }
+    }
+
+    LuaNamespace build(String name) {
+        List<LuaClass> classList = new ArrayList<>(classes.size());
+        for (ClassAccumulator accumulator : classes.values()) {
+            classList.add(accumulator.build());
+        }
+        return new LuaNamespace(name, functions, classList, fields);
+    }
+
+    private static final class ClassAccumulator {
+        private final LuaClass first;
+        private Optional<String> parent;
+        private Optional<String> description;
+        private Optional<SourceLocation> source;
+        private Map<String, LuaField> fields;
+        private Map<String, LuaFunction> functions;
+
+        private ClassAccumulator(LuaClass first) {
+            this.first = first;
+            this.parent = first.parent();
+            this.description = first.description();
+            this.source = first.source();
+        }
+
+        private void merge(LuaClass newClass) {
+            if (fields == null) {
+                // A class seen only once is passed through untouched, the maps are only built on the first merge
+                fields = new LinkedHashMap<>();
+                for (LuaField field : first.fields()) {
+                    fields.put(field.name(), field);
+                }
+                functions = new LinkedHashMap<>();
+                for (LuaFunction func : first.functions()) {
+                    functions.put(func.name(), func);
+                }
+            }
+            for (LuaField field : newClass.fields()) {
+                fields.putIfAbsent(field.name(), field);
+            }
+            for (LuaFunction func : newClass.functions()) {
+                functions.putIfAbsent(func.name(), func);
+            }
+            if (parent.isEmpty()) {
+                parent = newClass.parent();
+            }
+            if (description.isEmpty()) {
+                description = newClass.description();
+            }
+            if (source.isEmpty()) {
+                source = newClass.source();
+            }
+        }
+
+        private LuaClass build() {
+            if (fields == null) {
+                return first;
+            }
+            return new MergedClass(first.name(), parent, description, List.copyOf(fields.values()), List.copyOf(functions.values()), source);
+        }
+    }
+
+    /**
+     * A simple implementation of LuaClass for merged classes
+     */
+    private record MergedClass(
+        String name,
+        Optional<String> parent,
+        Optional<String> description,
+        List<LuaField> fields,
+        List<LuaFunction> functions,
+        Optional<SourceLocation> source
+    ) implements LuaClass {
+    }
+}
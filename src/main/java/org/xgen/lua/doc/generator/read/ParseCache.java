@@ -0,0 +1,376 @@
+package org.xgen.lua.doc.generator.read;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.xgen.lua.doc.generator.doc.*;
+import org.xgen.lua.doc.generator.process.LuaSource;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Persistent cache of parsed files. Every source file gets one entry, named after the hash of
+ * its absolute path, holding the modification time, size and content hash of the source and
+ * the {@link LuaDoc} that was parsed from it. Source locations are stored as line numbers and
+ * get the file name of the current run when read back.
+ * <p>
+ * An entry is used as is when modification time and size still match. Otherwise the source is
+ * read and its content hash is compared, so touching a file does not force a reparse. The whole
+ * cache is discarded when the generator itself (its jar or class files) changes.
+ * <p>
+ * A cache that cannot be written, e.g. on a full disk or in a read-only directory, only costs
+ * the reuse: the failure is reported once and the parsed docs are returned as usual.
+ */
+public class ParseCache {
+
+    /** Bump when the entry layout changes. */
+    private static final int FORMAT_VERSION = 3;
+    private static final String VERSION_FILE = "version";
+    private static final String ENTRY_SUFFIX = ".entry";
+
+    /**
+     * Parses the content of a source file on a cache miss
+     */
+    @FunctionalInterface
+    public interface Parser {
+        @NotNull LuaDoc parse(@NotNull LuaSource source) throws IOException;
+    }
+
+    private record Entry(String key, long modified, long size, byte[] hash) { }
+
+    private record Cached(Entry entry, LuaDoc doc) { }
+
+    private final Path directory;
+    private final String engine;
+    /** Set after the first failed write, so the warning is printed once */
+    private final AtomicBoolean writeFailed = new AtomicBoolean();
+
+    private ParseCache(Path directory, String engine) {
+        this.directory = directory;
+        this.engine = engine;
+    }
+
+    /**
+     * Open the cache in the given directory, creating it if needed. Entries written by another
+     * build of the generator are deleted.
+     *
+     * @param engine name of the parser engine, entries of other engines are not used
+     */
+    public static ParseCache open(Path directory, String engine) throws IOException {
+        Files.createDirectories(directory);
+        String stamp = FORMAT_VERSION + ":" + generatorHash();
+        Path versionFile = directory.resolve(VERSION_FILE);
+        String previous = Files.exists(versionFile) ? Files.readString(versionFile) : null;
+        if (!stamp.equals(previous)) {
+            try (Stream<Path> entries = Files.list(directory)) {
+                for (Path entry : (Iterable<Path>) entries::iterator) {
+                    if (entry.getFileName().toString().endsWith(ENTRY_SUFFIX)) {
+                        Files.deleteIfExists(entry);
+                    }
+                }
+            }
+            Files.writeString(versionFile, stamp);
+        }
+        return new ParseCache(directory, engine);
+    }
+
+    /**
+     * Returns the doc of a source file, from the cache if the file did not change and from
+     * the parser otherwise. Newly parsed docs are written back to the cache.
+     */
+    public @NotNull LuaDoc load(final @NotNull Path file, final @NotNull Parser parser) throws IOException {
+        return load(file, SymbolTable.NONE, parser);
+    }
+
+    /**
+     * Same as {@link #load(Path, Parser)}, sharing the type names and identifiers of docs read
+     * from the cache through the given table
+     */
+    public @NotNull LuaDoc load(final @NotNull Path file, final @NotNull SymbolTable symbols, final @NotNull Parser parser) throws IOException {
+        return load(file, file.normalize().toString(), symbols, parser);
+    }
+
+    /**
+     * Same as {@link #load(Path, SymbolTable, Parser)}, recording the given file name in the
+     * source locations of the doc
+     */
+    public @NotNull LuaDoc load(final @NotNull Path file, final @NotNull String name, final @NotNull SymbolTable symbols,
+                                final @NotNull Parser parser) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long modified = attributes.lastModifiedTime().toMillis();
+        long size = attributes.size();
+
+        String key = file.toAbsolutePath().normalize().toString();
+        Path entryPath = directory.resolve(HexFormat.of().formatHex(sha256(key.getBytes(StandardCharsets.UTF_8))) + ENTRY_SUFFIX);
+        Cached cached = read(entryPath, key, name, symbols);
+        if (cached != null && cached.entry.modified == modified && cached.entry.size == size) {
+            return cached.doc;
+        }
+
+        byte[] bytes = Files.readAllBytes(file);
+        Entry entry = new Entry(key, modified, size, sha256(bytes));
+        if (cached != null && Arrays.equals(cached.entry.hash, entry.hash)) {
+            // Same content with a new timestamp, refresh the entry so the next run takes the fast path
+            store(entryPath, entry, cached.doc);
+            return cached.doc;
+        }
+
+        LuaDoc doc = parser.parse(LuaSource.decode(ByteBuffer.wrap(bytes), StandardCharsets.UTF_8).named(name));
+        store(entryPath, entry, doc);
+        return doc;
+    }
+
+    /**
+     * Write an entry, reporting a failure instead of failing the parse of the file
+     */
+    private void store(Path entryPath, Entry entry, LuaDoc doc) {
+        try {
+            write(entryPath, entry, doc);
+        } catch (IOException e) {
+            if (writeFailed.compareAndSet(false, true)) {
+                System.err.println("Warning: Failed to write the parse cache in " + directory + ", results are not reused: " + e);
+            }
+        }
+    }
+
+    private @Nullable Cached read(Path entryPath, String key, String file, SymbolTable symbols) {
+        if (!Files.exists(entryPath)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(entryPath)))) {
+            String entryKey = in.readUTF();
+            String entryEngine = in.readUTF();
+            long modified = in.readLong();
+            long size = in.readLong();
+            byte[] hash = in.readNBytes(in.readUnsignedByte());
+            if (!entryKey.equals(key) || !entryEngine.equals(engine)) {
+                return null;
+            }
+            return new Cached(new Entry(entryKey, modified, size, hash), readDoc(in, file, symbols));
+        } catch (IOException | RuntimeException e) {
+            // A damaged entry is a cache miss, it gets overwritten after parsing
+            return null;
+        }
+    }
+
+    private void write(Path entryPath, Entry entry, LuaDoc doc) throws IOException {
+        Path temp = Files.createTempFile(directory, "entry", ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeUTF(entry.key());
+                out.writeUTF(engine);
+                out.writeLong(entry.modified());
+                out.writeLong(entry.size());
+                out.writeByte(entry.hash().length);
+                out.write(entry.hash());
+                writeDoc(out, doc);
+            }
+            try {
+                Files.move(temp, entryPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, entryPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void writeDoc(DataOutputStream out, LuaDoc doc) throws IOException {
+        out.writeInt(doc.namespaces().size());
+        for (LuaNamespace namespace : doc.namespaces()) {
+            writeString(out, namespace.name());
+            out.writeInt(namespace.classes().size());
+            for (LuaClass clazz : namespace.classes()) {
+                writeString(out, clazz.name());
+                writeString(out, clazz.parent().orElse(null));
+                writeString(out, clazz.description().orElse(null));
+                writeLine(out, clazz.source());
+                writeFields(out, clazz.fields());
+                writeFunctions(out, clazz.functions());
+            }
+            writeFunctions(out, namespace.functions());
+            writeFields(out, namespace.fields());
+        }
+    }
+
+    private static void writeFields(DataOutputStream out, List<LuaField> fields) throws IOException {
+        out.writeInt(fields.size());
+        for (LuaField field : fields) {
+            out.writeBoolean(field.isStatic());
+            writeString(out, field.name());
+            writeString(out, field.type());
+            writeString(out, field.description().orElse(null));
+            writeLine(out, field.source());
+        }
+    }
+
+    private static void writeFunctions(DataOutputStream out, List<LuaFunction> functions) throws IOException {
+        out.writeInt(functions.size());
+        for (LuaFunction function : functions) {
+            writeString(out, function.name());
+            out.writeBoolean(function.isStatic());
+            writeString(out, function.description().orElse(null));
+            writeLine(out, function.source());
+            out.writeInt(function.parameters().size());
+            for (LuaParameter param : function.parameters()) {
+                writeString(out, param.name());
+                writeString(out, param.type());
+                out.writeBoolean(param.optional());
+                writeString(out, param.description().orElse(null));
+            }
+            out.writeInt(function.returns().size());
+            for (LuaReturnValue returnValue : function.returns()) {
+                writeString(out, returnValue.type());
+                writeString(out, returnValue.name());
+                writeString(out, returnValue.description().orElse(null));
+            }
+        }
+    }
+
+    /**
+     * Line of a source location, 0 if there is none
+     */
+    private static void writeLine(DataOutputStream out, Optional<SourceLocation> source) throws IOException {
+        out.writeInt(source.map(SourceLocation::line).orElse(0));
+    }
+
+    private static void writeString(DataOutputStream out, @Nullable String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static LuaDoc readDoc(DataInputStream in, String file, SymbolTable symbols) throws IOException {
+        int namespaceCount = in.readInt();
+        List<LuaNamespace> namespaces = new ArrayList<>(namespaceCount);
+        for (int n = 0; n < namespaceCount; n++) {
+            String name = readString(in);
+            int classCount = in.readInt();
+            List<LuaClass> classes = new ArrayList<>(classCount);
+            for (int c = 0; c < classCount; c++) {
+                String className = symbols.intern(readString(in));
+                Optional<String> parent = Optional.ofNullable(symbols.intern(readString(in)));
+                Optional<String> description = Optional.ofNullable(readString(in));
+                Optional<SourceLocation> source = readLine(in, file);
+                List<LuaField> fields = readFields(in, file, symbols);
+                List<LuaFunction> functions = readFunctions(in, file, symbols);
+                classes.add(new LuaClass.Impl(className, parent, description, fields, functions, source));
+            }
+            List<LuaFunction> functions = readFunctions(in, file, symbols);
+            List<LuaField> fields = readFields(in, file, symbols);
+            namespaces.add(new LuaNamespace(name, functions, classes, fields));
+        }
+        return new LuaDoc(namespaces);
+    }
+
+    private static List<LuaField> readFields(DataInputStream in, String file, SymbolTable symbols) throws IOException {
+        int count = in.readInt();
+        List<LuaField> fields = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            boolean isStatic = in.readBoolean();
+            String name = symbols.intern(readString(in));
+            String type = symbols.intern(readString(in));
+            Optional<String> description = Optional.ofNullable(readString(in));
+            fields.add(new LuaField.Impl(isStatic, name, type, description, readLine(in, file)));
+        }
+        return fields;
+    }
+
+    private static List<LuaFunction> readFunctions(DataInputStream in, String file, SymbolTable symbols) throws IOException {
+        int count = in.readInt();
+        List<LuaFunction> functions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = symbols.intern(readString(in));
+            boolean isStatic = in.readBoolean();
+            Optional<String> description = Optional.ofNullable(readString(in));
+            Optional<SourceLocation> source = readLine(in, file);
+            int paramCount = in.readInt();
+            List<LuaParameter> parameters = new ArrayList<>(paramCount);
+            for (int p = 0; p < paramCount; p++) {
+                String paramName = symbols.intern(readString(in));
+                String type = symbols.intern(readString(in));
+                boolean optional = in.readBoolean();
+                parameters.add(new LuaParameter.Impl(paramName, type, optional, Optional.ofNullable(readString(in))));
+            }
+            int returnCount = in.readInt();
+            List<LuaReturnValue> returns = new ArrayList<>(returnCount);
+            for (int r = 0; r < returnCount; r++) {
+                String type = symbols.intern(readString(in));
+                String returnName = symbols.intern(readString(in));
+                returns.add(new LuaReturnValue.Impl(type, returnName, Optional.ofNullable(readString(in))));
+            }
+            functions.add(new LuaFunction.Impl(name, isStatic, description, List.copyOf(parameters), List.copyOf(returns), source));
+        }
+        return functions;
+    }
+
+    private static Optional<SourceLocation> readLine(DataInputStream in, String file) throws IOException {
+        int line = in.readInt();
+        return line > 0 ? Optional.of(new SourceLocation(file, line)) : Optional.empty();
+    }
+
+    private static @Nullable String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Hash of the jar (or class directory) the generator was loaded from
+     */
+    private static String generatorHash() throws IOException {
+        CodeSource source = ParseCache.class.getProtectionDomain().getCodeSource();
+        if (source == null) {
+            return "unknown";
+        }
+        Path location;
+        try {
+            location = Path.of(source.getLocation().toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return "unknown";
+        }
+
+        MessageDigest digest = sha256();
+        if (Files.isDirectory(location)) {
+            List<Path> classFiles;
+            try (Stream<Path> files = Files.walk(location)) {
+                classFiles = files.filter(Files::isRegularFile).sorted().toList();
+            }
+            for (Path classFile : classFiles) {
+                digest.update(location.relativize(classFile).toString().getBytes(StandardCharsets.UTF_8));
+                digest.update(Files.readAllBytes(classFile));
+            }
+        } else {
+            digest.update(Files.readAllBytes(location));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static byte[] sha256(byte[] bytes) {
+        return sha256().digest(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
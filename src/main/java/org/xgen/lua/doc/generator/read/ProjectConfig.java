@@ -1,263 +1,386 @@
 package org.xgen.lua.doc.generator.read;
 
+import org.jetbrains.annotations.Nullable;
 import org.xgen.lua.doc.generator.doc.*;
+import org.xgen.lua.doc.generator.metrics.RunMetrics;
 import org.xgen.lua.doc.generator.process.DocParser;
+import org.xgen.lua.doc.generator.process.LuaSource;
+import org.xgen.lua.doc.generator.process.ParserEngine;
 
 import java.io.IOException;
-import java.nio.file.FileSystems;
-import java.nio.file.FileVisitResult;
+import java.io.InterruptedIOException;
+import java.io.Reader;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class ProjectConfig {
-    
-    private static final Pattern JSON_ARRAY_PATTERN = Pattern.compile("\"([^\"]+)\"\\s*:\\s*\\[([^\\]]+)\\]");
-    private static final Pattern FILE_PATH_PATTERN = Pattern.compile("\"([^\"]+)\"");
-    
+
+    /**
+     * Source files of a project as configured at one point in time.
+     *
+     * @param namespaces  existing files of every namespace, in configuration order
+     * @param directories directories of explicitly listed files
+     * @param trees       root directories of glob patterns, whose whole subtree can contain matches
+     */
+    record Sources(Map<String, List<Path>> namespaces, Set<Path> directories, Set<Path> trees) { }
+
+    private final ParserEngine engine;
+    private final int parallelism;
+    /** Pool shared with other projects, {@code null} to create a pool of {@link #parallelism} threads */
+    private final @Nullable ExecutorService executor;
+    private final ParseCache cache;
+    private final RunMetrics metrics;
+    /** Shared by all files of the project, so each type name and identifier is kept once */
+    private final SymbolTable symbols;
+
+    /**
+     * Options of a project configuration, all optional. By default files are parsed one at a
+     * time with the lexer engine, without a cache or metrics.
+     */
+    public static class Builder {
+        private ParserEngine engine = ParserEngine.LEXER;
+        private int parallelism = 1;
+        private @Nullable ExecutorService executor;
+        private @Nullable ParseCache cache;
+        private RunMetrics metrics = RunMetrics.NONE;
+        private @Nullable SymbolTable symbols;
+
+        public Builder engine(ParserEngine engine) {
+            this.engine = engine;
+            return this;
+        }
+
+        /**
+         * @param parallelism number of files parsed at the same time, 1 parses on the calling thread
+         */
+        public Builder parallelism(int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("Parallelism must be at least 1, got " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Parse on a pool shared with other projects, e.g. by all projects of a batch, instead
+         * of a pool of the configured parallelism
+         *
+         * @param executor pool the files are parsed on, it is not shut down
+         */
+        public Builder executor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * @param cache cache of previously parsed files, or {@code null} to parse every file
+         */
+        public Builder cache(@Nullable ParseCache cache) {
+            this.cache = cache;
+            return this;
+        }
+
+        /**
+         * @param metrics records the time of every phase of {@link #parseProject(String)} and the parse of every file
+         */
+        public Builder metrics(RunMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * Share type names and identifiers through a table used by other projects as well,
+         * instead of a table of this project only
+         */
+        public Builder symbols(SymbolTable symbols) {
+            this.symbols = symbols;
+            return this;
+        }
+
+        public ProjectConfig build() {
+            if (executor != null && parallelism > 1) {
+                throw new IllegalStateException("Parallelism " + parallelism + " has no effect on a shared executor");
+            }
+            return new ProjectConfig(this);
+        }
+    }
+
+    private ProjectConfig(Builder builder) {
+        this.engine = builder.engine;
+        this.parallelism = builder.parallelism;
+        this.executor = builder.executor;
+        this.cache = builder.cache;
+        this.metrics = builder.metrics;
+        this.symbols = builder.symbols != null ? builder.symbols : new SymbolTable();
+    }
+
     /**
      * Parse a project configuration JSON file and generate documentation
      */
     public LuaDoc parseProject(String jsonConfigPath) throws IOException {
-        String jsonContent = Files.readString(Paths.get(jsonConfigPath));
-        Map<String, List<String>> namespaceFiles = parseJsonConfig(jsonContent);
-        
-        Path basePath = Paths.get(jsonConfigPath).getParent();
-        if (basePath == null) {
-            basePath = Paths.get(".");
+        // Resolve the files of every namespace up front, so they can be parsed in any order
+        Path configPath = Paths.get(jsonConfigPath);
+        Map<String, List<Path>> namespacePaths = resolveSources(configPath).namespaces();
+        Set<Path> uniquePaths = new LinkedHashSet<>();
+        for (List<Path> paths : namespacePaths.values()) {
+            uniquePaths.addAll(paths);
         }
+        long start = System.nanoTime();
+        Map<Path, LuaDoc> parsedFiles = parseFiles(baseDirectory(configPath), uniquePaths);
+        metrics.phase("parse", start);
 
+        // Merge in configuration order, so the result does not depend on which file finished first
+        start = System.nanoTime();
         List<LuaNamespace> namespaces = new ArrayList<>();
         
-        for (Map.Entry<String, List<String>> entry : namespaceFiles.entrySet()) {
-            String namespaceName = entry.getKey();
-            List<String> files = entry.getValue();
-            
-            // Parse all files for this namespace
-            List<LuaClass> allClasses = new ArrayList<>();
-            List<LuaFunction> allFunctions = new ArrayList<>();
-            List<LuaField> allFields = new ArrayList<>();
-            
-            for (String relativeFilePath : files) {
-                // Check if the path contains glob patterns
-                if (relativeFilePath.contains("*") || relativeFilePath.contains("?")) {
-                    // Expand glob pattern
-                    List<Path> matchingFiles = expandGlobPattern(basePath, relativeFilePath);
-                    for (Path fullPath : matchingFiles) {
-                        parseAndCollectFile(fullPath, allClasses, allFunctions, allFields);
-                    }
-                } else {
-                    // Regular file path
-                    Path fullPath = basePath.resolve(relativeFilePath);
-                    parseAndCollectFile(fullPath, allClasses, allFunctions, allFields);
-                }
-            }
-            
-            // Create namespace with all collected elements
-            LuaNamespace namespace = new LuaNamespace(namespaceName, allFunctions, allClasses, allFields);
-            namespaces.add(namespace);
+        for (Map.Entry<String, List<Path>> entry : namespacePaths.entrySet()) {
+            namespaces.add(mergeNamespace(entry.getKey(), entry.getValue(), parsedFiles));
         }
+        metrics.phase("merge", start);
         
         return new LuaDoc(namespaces);
     }
-    
+
     /**
-     * Parse a single file and collect its documentation elements
+     * Read the project configuration and resolve the files of every namespace
      */
-    private void parseAndCollectFile(Path fullPath, 
-                                     List<LuaClass> allClasses, 
-                                     List<LuaFunction> allFunctions, 
-                                     List<LuaField> allFields) throws IOException {
-        if (!Files.exists(fullPath)) {
-            System.err.println("Warning: File not found: " + fullPath);
-            return;
+    Sources resolveSources(Path jsonConfigPath) throws IOException {
+        long start = System.nanoTime();
+        Map<String, List<String>> namespaceFiles;
+        try (Reader reader = Files.newBufferedReader(jsonConfigPath)) {
+            namespaceFiles = readConfig(reader);
         }
+        metrics.bytesRead(Files.size(jsonConfigPath));
+        metrics.phase("config", start);
         
-        if (!Files.isRegularFile(fullPath)) {
-            return;
+        Path basePath = baseDirectory(jsonConfigPath);
+
+        start = System.nanoTime();
+        Sources sources = resolveFiles(basePath, namespaceFiles);
+        metrics.phase("discovery", start);
+        return sources;
+    }
+
+    /**
+     * The directory the entries of a project configuration are relative to
+     */
+    static Path baseDirectory(Path jsonConfigPath) {
+        Path basePath = jsonConfigPath.getParent();
+        return basePath != null ? basePath : Paths.get(".");
+    }
+
+    /**
+     * Name of a source file in the source locations of the doc: its path relative to the
+     * directory of the configuration, so the doc does not depend on where or how the project
+     * was generated
+     */
+    static String sourceName(Path baseDirectory, Path file) {
+        Path base = baseDirectory.toAbsolutePath().normalize();
+        Path absolute = file.toAbsolutePath().normalize();
+        try {
+            return base.relativize(absolute).toString().replace('\\', '/');
+        } catch (IllegalArgumentException e) {
+            // On another drive than the configuration
+            return absolute.toString();
         }
-        
-        String luaContent = Files.readString(fullPath);
-        DocParser luaDocParser = new DocParser(luaContent);
-        LuaDoc doc = luaDocParser.parse();
-        
-        // Extract all elements from the parsed document
-        for (LuaNamespace ns : doc.namespaces()) {
-            // Merge classes instead of just adding them
-            for (LuaClass newClass : ns.classes()) {
-                mergeClass(allClasses, newClass);
-            }
-            allFunctions.addAll(ns.functions());
-            allFields.addAll(ns.fields());
+    }
+
+    /**
+     * Merge the parsed files of a namespace in the given order
+     */
+    static LuaNamespace mergeNamespace(String name, List<Path> paths, Map<Path, LuaDoc> parsedFiles) {
+        NamespaceAccumulator accumulator = new NamespaceAccumulator();
+        for (Path fullPath : paths) {
+            accumulator.add(parsedFiles.get(fullPath));
         }
+        return accumulator.build(name);
     }
-    
+
     /**
-     * Merge a class into the list of classes. If a class with the same name already exists,
-     * merge their fields and functions. Otherwise, add the new class.
+     * Expand the configured entries of every namespace to the existing files they refer to, and
+     * record the directories they were looked up in
      */
-    private void mergeClass(List<LuaClass> allClasses, LuaClass newClass) {
-        // Find existing class with the same name (EXACT match only)
-        int existingIndex = -1;
-        
-        for (int i = 0; i < allClasses.size(); i++) {
-            if (allClasses.get(i).name().equals(newClass.name())) {
-                existingIndex = i;
-                break;
+    private Sources resolveFiles(Path basePath, Map<String, List<String>> namespaceFiles) throws IOException {
+        // Collect the globs of all namespaces first, so the file tree is walked only once
+        GlobDiscovery discovery = new GlobDiscovery(basePath);
+        Map<String, List<List<Path>>> namespaceEntries = new LinkedHashMap<>();
+        Set<Path> directories = new LinkedHashSet<>();
+        for (Map.Entry<String, List<String>> entry : namespaceFiles.entrySet()) {
+            List<List<Path>> entries = new ArrayList<>();
+            for (String relativeFilePath : entry.getValue()) {
+                if (GlobDiscovery.isGlob(relativeFilePath)) {
+                    entries.add(discovery.add(relativeFilePath));
+                } else {
+                    // Regular file path
+                    Path fullPath = basePath.resolve(relativeFilePath);
+                    Path directory = fullPath.getParent();
+                    directories.add(directory != null ? directory : basePath);
+                    if (!Files.exists(fullPath)) {
+                        System.err.println("Warning: File not found: " + fullPath);
+                    }
+                    entries.add(List.of(fullPath));
+                }
             }
+            namespaceEntries.put(entry.getKey(), entries);
         }
-        
-        if (existingIndex >= 0) {
-            // Merge the classes
-            LuaClass existingClass = allClasses.get(existingIndex);
-            
-            // Combine fields (avoiding duplicates by name)
-            Map<String, LuaField> fieldMap = new LinkedHashMap<>();
-            for (LuaField field : existingClass.fields()) {
-                fieldMap.put(field.name(), field);
-            }
-            for (LuaField field : newClass.fields()) {
-                fieldMap.putIfAbsent(field.name(), field);
-            }
-            List<LuaField> mergedFields = new ArrayList<>(fieldMap.values());
-            
-            // Combine functions (avoiding duplicates by name)
-            Map<String, LuaFunction> functionMap = new LinkedHashMap<>();
-            for (LuaFunction func : existingClass.functions()) {
-                functionMap.put(func.name(), func);
-            }
-            for (LuaFunction func : newClass.functions()) {
-                functionMap.putIfAbsent(func.name(), func);
+        discovery.walk();
+
+        // Files matched by several entries of a namespace are only parsed into it once
+        Map<String, List<Path>> namespaces = new LinkedHashMap<>();
+        for (Map.Entry<String, List<List<Path>>> entry : namespaceEntries.entrySet()) {
+            Set<Path> paths = new LinkedHashSet<>();
+            for (List<Path> files : entry.getValue()) {
+                for (Path fullPath : files) {
+                    if (Files.isRegularFile(fullPath)) {
+                        paths.add(fullPath);
+                    }
+                }
             }
-            List<LuaFunction> mergedFunctions = new ArrayList<>(functionMap.values());
-            
-            // Use the first non-empty description
-            Optional<String> mergedDescription = existingClass.description().isPresent() 
-                ? existingClass.description() 
-                : newClass.description();
-            
-            // Create merged class
-            LuaClass mergedClass = new MergedClass(
-                existingClass.name(),
-                mergedDescription,
-                mergedFields,
-                mergedFunctions
-            );
-            
-            // Replace the existing class
-            allClasses.set(existingIndex, mergedClass);
-        } else {
-            // No existing class, just add the new one
-            allClasses.add(newClass);
+            namespaces.put(entry.getKey(), new ArrayList<>(paths));
         }
+        return new Sources(namespaces, directories, new LinkedHashSet<>(discovery.roots()));
     }
-    
+
     /**
-     * A simple implementation of LuaClass for merged classes
+     * Parse the given files, on the shared pool or on a pool of {@link #parallelism} threads if
+     * more than one is configured
+     *
+     * @param baseDirectory directory of the configuration, the source locations are relative to it
      */
-    private record MergedClass(
-        String name,
-        Optional<String> description,
-        List<LuaField> fields,
-        List<LuaFunction> functions
-    ) implements LuaClass {
+    Map<Path, LuaDoc> parseFiles(Path baseDirectory, Collection<Path> paths) throws IOException {
+        if ((executor == null && parallelism == 1) || paths.size() < 2) {
+            Map<Path, LuaDoc> parsedFiles = new HashMap<>();
+            for (Path path : paths) {
+                parsedFiles.put(path, parseFile(path, sourceName(baseDirectory, path)));
+            }
+            return parsedFiles;
+        }
+        if (executor != null) {
+            return parseFiles(baseDirectory, paths, executor);
+        }
+        try (ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, paths.size()))) {
+            return parseFiles(baseDirectory, paths, pool);
+        }
     }
-    
+
+    private Map<Path, LuaDoc> parseFiles(Path baseDirectory, Collection<Path> paths, ExecutorService pool) throws IOException {
+        Map<Path, Future<LuaDoc>> futures = new LinkedHashMap<>();
+        for (Path path : paths) {
+            String name = sourceName(baseDirectory, path);
+            futures.put(path, pool.submit(() -> parseFile(path, name)));
+        }
+        Map<Path, LuaDoc> parsedFiles = new HashMap<>();
+        try {
+            for (Map.Entry<Path, Future<LuaDoc>> entry : futures.entrySet()) {
+                parsedFiles.put(entry.getKey(), await(entry.getKey(), entry.getValue()));
+            }
+        } finally {
+            // After a failure the remaining files are not needed, a shared pool would stay busy with them
+            for (Future<LuaDoc> future : futures.values()) {
+                future.cancel(false);
+            }
+        }
+        return parsedFiles;
+    }
+
     /**
-     * Expand glob patterns like "server/**​/*.lua" to actual file paths
+     * Expand paths and glob patterns of project configurations, relative to the given directory,
+     * to the configuration files, in the given order and without duplicates. Paths are kept even
+     * if the file does not exist, so reading it reports the problem.
      */
-    private List<Path> expandGlobPattern(Path basePath, String globPattern) throws IOException {
-        List<Path> matchingFiles = new ArrayList<>();
-        
-        // Create a PathMatcher for the glob pattern
-        String pattern = "glob:" + globPattern;
-        PathMatcher matcher = FileSystems.getDefault().getPathMatcher(pattern);
-        
-        // Determine the starting directory for traversal
-        // Extract the non-glob prefix (e.g., "server" from "server/**​/*.lua")
-        String[] parts = globPattern.split("[*?]", 2);
-        String startDir = parts[0];
-        // Remove trailing slash if present
-        if (startDir.endsWith("/") || startDir.endsWith("\\")) {
-            startDir = startDir.substring(0, startDir.length() - 1);
+    public static List<Path> findConfigs(Path basePath, List<String> entries) {
+        GlobDiscovery discovery = new GlobDiscovery(basePath);
+        Map<String, List<Path>> matches = new LinkedHashMap<>();
+        for (String entry : entries) {
+            matches.put(entry, GlobDiscovery.isGlob(entry) ? discovery.add(entry) : List.of(basePath.resolve(entry)));
         }
-        
-        Path searchRoot = startDir.isEmpty() ? basePath : basePath.resolve(startDir);
-        
-        if (!Files.exists(searchRoot)) {
-            System.err.println("Warning: Directory not found: " + searchRoot);
-            return matchingFiles;
+        discovery.walk();
+
+        Set<Path> configs = new LinkedHashSet<>();
+        for (Map.Entry<String, List<Path>> entry : matches.entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                System.err.println("Warning: No project configuration matches: " + entry.getKey());
+            }
+            for (Path config : entry.getValue()) {
+                configs.add(config.normalize());
+            }
         }
-        
-        // Walk the file tree and find matching files
-        Files.walkFileTree(searchRoot, new SimpleFileVisitor<Path>() {
-            @Override
-            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
-                // Get relative path from basePath
-                Path relativePath = basePath.relativize(file);
-                // Normalize to use forward slashes for matching
-                String relativePathStr = relativePath.toString().replace('\\', '/');
-                
-                // Check if the relative path matches the glob pattern
-                Path relativePathForMatching = Paths.get(relativePathStr);
-                if (matcher.matches(relativePathForMatching)) {
-                    matchingFiles.add(file);
-                } else if (globPattern.contains("**/")) {
-                    // For patterns like "client/**/*.lua", the ** should match zero or more directories
-                    // So we also need to check if it matches with ** removed (zero directories case)
-                    // E.g. "client/**/*.lua" should also match "client/*.lua"
-                    String zeroDepthPattern = globPattern.replace("**/", "");
-                    PathMatcher zeroDepthMatcher = FileSystems.getDefault().getPathMatcher("glob:" + zeroDepthPattern);
-                    if (zeroDepthMatcher.matches(relativePathForMatching)) {
-                        matchingFiles.add(file);
-                    }
-                }
-                return FileVisitResult.CONTINUE;
+        return new ArrayList<>(configs);
+    }
+
+    private static LuaDoc await(Path path, Future<LuaDoc> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while parsing " + path);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
             }
-            
-            @Override
-            public FileVisitResult visitFileFailed(Path file, IOException exc) {
-                System.err.println("Warning: Failed to access: " + file);
-                return FileVisitResult.CONTINUE;
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
             }
-        });
-        
-        return matchingFiles;
+            throw new IOException("Failed to parse " + path, e.getCause());
+        }
+    }
+
+    private LuaDoc parseFile(Path fullPath, String name) throws IOException {
+        RunMetrics.FileTimer timer = metrics.startFile(fullPath);
+        LuaDoc doc = cache != null
+                ? cache.load(fullPath, name, symbols, source -> parseContent(source, timer))
+                : parseContent(LuaSource.read(fullPath).named(name), timer);
+        timer.stop();
+        return doc;
+    }
+
+    private LuaDoc parseContent(LuaSource source, RunMetrics.FileTimer timer) throws IOException {
+        DocParser luaDocParser = new DocParser(source, engine, symbols);
+        LuaDoc doc = luaDocParser.parse();
+        timer.parsed(luaDocParser.linesRead());
+        return doc;
     }
     
     /**
-     * Parse a simple JSON configuration without using a full JSON library
+     * Read a project configuration: a JSON object that maps every namespace to an array of file
+     * paths and glob patterns. Members whose value is not an array are left for other options
+     * and skipped.
+     *
+     * @return the configured entries of every namespace, in configuration order
+     * @throws IOException if the configuration is not valid JSON
      */
-    private Map<String, List<String>> parseJsonConfig(String jsonContent) {
+    public static Map<String, List<String>> readConfig(Reader config) throws IOException {
         Map<String, List<String>> result = new LinkedHashMap<>();
-        
-        // Remove whitespace and newlines for easier parsing
-        String normalized = jsonContent.replaceAll("\\s+", " ").trim();
-        
-        // Find all arrays in the JSON
-        Matcher arrayMatcher = JSON_ARRAY_PATTERN.matcher(normalized);
-        
-        while (arrayMatcher.find()) {
-            String namespaceName = arrayMatcher.group(1);
-            String arrayContent = arrayMatcher.group(2);
-            
+        JsonReader json = new JsonReader(config);
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if (json.peek() != JsonReader.Token.BEGIN_ARRAY) {
+                json.skipValue();
+                continue;
+            }
             List<String> files = new ArrayList<>();
-            Matcher fileMatcher = FILE_PATH_PATTERN.matcher(arrayContent);
-            
-            while (fileMatcher.find()) {
-                String filePath = fileMatcher.group(1);
-                files.add(filePath);
+            json.beginArray();
+            while (json.hasNext()) {
+                if (json.peek() == JsonReader.Token.STRING) {
+                    files.add(json.nextString());
+                } else {
+                    System.err.println("Warning: Ignoring an entry of namespace " + name + " that is not a file path");
+                    json.skipValue();
+                }
             }
-            
-            result.put(namespaceName, files);
+            json.endArray();
+            result.put(name, files);
         }
-        
+        json.endObject();
+        // Fails if anything but whitespace follows the configuration
+        json.peek();
         return result;
     }
 }
@@ -0,0 +1,171 @@
+package org.xgen.lua.doc.generator.read;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.xgen.lua.doc.generator.doc.LuaDoc;
+import org.xgen.lua.doc.generator.doc.LuaNamespace;
+import org.xgen.lua.doc.generator.doc.SymbolIndex;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+
+/**
+ * The parsed files and merged namespaces of a project, kept between updates so an update only
+ * parses the files that changed and only merges the namespaces containing them. Not thread-safe.
+ */
+public class ProjectState {
+
+    /**
+     * Result of an update
+     *
+     * @param symbols          index of the doc, shared by everything that writes or answers it
+     * @param parsedFiles      number of files that were parsed again
+     * @param mergedNamespaces number of namespaces that were merged again
+     */
+    public record Update(@NotNull LuaDoc doc, @NotNull SymbolIndex symbols, int parsedFiles, int mergedNamespaces) { }
+
+    private final ProjectConfig config;
+    private final Path configPath;
+
+    /** Files of every namespace as of the last successful update, {@code null} before the first one */
+    private Map<String, List<Path>> namespacePaths;
+    private Map<String, LuaNamespace> namespaces = Map.of();
+    private final Map<Path, LuaDoc> parsedFiles = new HashMap<>();
+    /** Modification time of every parsed file when it was parsed */
+    private final Map<Path, FileTime> parsedTimes = new HashMap<>();
+    private LuaDoc doc = new LuaDoc(List.of());
+    private SymbolIndex symbols = SymbolIndex.of(doc);
+
+    public ProjectState(ProjectConfig config, Path configPath) {
+        this.config = config;
+        this.configPath = configPath.toAbsolutePath().normalize();
+    }
+
+    /**
+     * The documentation as of the last successful update
+     */
+    public @NotNull LuaDoc doc() {
+        return doc;
+    }
+
+    /**
+     * The index of {@link #doc()}, built once per update
+     */
+    public @NotNull SymbolIndex symbols() {
+        return symbols;
+    }
+
+    public @Nullable LuaNamespace namespace(@NotNull String name) {
+        return namespaces.get(name);
+    }
+
+    /**
+     * Read the configuration again and parse every file that is new or was modified since it
+     * was parsed
+     */
+    public @NotNull Update refresh() throws IOException {
+        ProjectConfig.Sources sources = config.resolveSources(configPath);
+        Set<Path> modified = new HashSet<>();
+        for (Map.Entry<Path, FileTime> entry : parsedTimes.entrySet()) {
+            if (!entry.getValue().equals(modifiedTime(entry.getKey()))) {
+                modified.add(entry.getKey());
+            }
+        }
+        Update update = update(sources, modified);
+        return update != null ? update : new Update(doc, symbols, 0, 0);
+    }
+
+    /**
+     * Parse a single file of the project again
+     *
+     * @throws IllegalArgumentException if the file is not part of the project
+     */
+    public @NotNull Update reparse(@NotNull Path file) throws IOException {
+        Path normalized = file.toAbsolutePath().normalize();
+        if (!parsedFiles.containsKey(normalized)) {
+            throw new IllegalArgumentException("Not a file of the project: " + file);
+        }
+        Update update = update(null, Set.of(normalized));
+        return update != null ? update : new Update(doc, symbols, 0, 0);
+    }
+
+    /**
+     * Parse the changed files and merge the namespaces that contain them. Nothing is changed
+     * if parsing fails.
+     *
+     * @param sources      newly resolved sources of the project, or {@code null} to keep the
+     *                     files of the last update
+     * @param changedFiles normalized absolute paths of files changed since the last update
+     * @return the update, or {@code null} if nothing the documentation depends on changed
+     */
+    @Nullable Update update(@Nullable ProjectConfig.Sources sources, Set<Path> changedFiles) throws IOException {
+        Map<String, List<Path>> paths = namespacePaths;
+        if (sources != null) {
+            paths = new LinkedHashMap<>();
+            for (Map.Entry<String, List<Path>> entry : sources.namespaces().entrySet()) {
+                paths.put(entry.getKey(), entry.getValue().stream().map(path -> path.toAbsolutePath().normalize()).toList());
+            }
+        }
+        if (paths == null) {
+            throw new IllegalStateException("The sources of the project were never resolved");
+        }
+
+        Set<Path> known = new HashSet<>();
+        Set<Path> changed = new LinkedHashSet<>();
+        for (List<Path> files : paths.values()) {
+            for (Path file : files) {
+                if (known.add(file) && (changedFiles.contains(file) || !parsedFiles.containsKey(file))) {
+                    changed.add(file);
+                }
+            }
+        }
+        if (changed.isEmpty() && paths.equals(namespacePaths)) {
+            // Nothing the documentation depends on, e.g. the output file itself or an unrelated file
+            return null;
+        }
+        Map<Path, FileTime> times = new HashMap<>();
+        for (Path file : changed) {
+            times.put(file, modifiedTime(file));
+        }
+        Map<Path, LuaDoc> parsed = config.parseFiles(configPath.getParent(), changed);
+        parsedFiles.keySet().retainAll(known);
+        parsedFiles.putAll(parsed);
+        parsedTimes.keySet().retainAll(known);
+        parsedTimes.putAll(times);
+
+        Map<String, LuaNamespace> merged = new LinkedHashMap<>();
+        int mergeCount = 0;
+        for (Map.Entry<String, List<Path>> entry : paths.entrySet()) {
+            LuaNamespace namespace = namespaces.get(entry.getKey());
+            // Before the first update there are no namespaces, so namespacePaths is only read afterwards
+            if (namespace == null || !entry.getValue().equals(namespacePaths.get(entry.getKey()))
+                    || !Collections.disjoint(entry.getValue(), changed)) {
+                namespace = ProjectConfig.mergeNamespace(entry.getKey(), entry.getValue(), parsedFiles);
+                mergeCount++;
+            }
+            merged.put(entry.getKey(), namespace);
+        }
+
+        namespacePaths = paths;
+        namespaces = merged;
+        doc = new LuaDoc(new ArrayList<>(merged.values()));
+        symbols = SymbolIndex.of(doc);
+        return new Update(doc, symbols, changed.size(), mergeCount);
+    }
+
+    /**
+     * Modification time of a file, taken before it is parsed so a change while parsing is
+     * noticed by the next refresh. Files that are gone get the epoch.
+     */
+    private static FileTime modifiedTime(Path file) throws IOException {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (NoSuchFileException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package org.xgen.lua.doc.generator.read;
+
+import org.jetbrains.annotations.NotNull;
+import org.xgen.lua.doc.generator.doc.LuaDoc;
+import org.xgen.lua.doc.generator.doc.SymbolIndex;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * Keeps the documentation of a project up to date while its files are edited. The directories
+ * of the project are watched for changes; after a burst of changes has settled, only the
+ * changed files are parsed again and only the namespaces containing them are merged again.
+ * A change of the project configuration resolves all files again, but still only parses
+ * files that are new or changed.
+ */
+public class ProjectWatcher implements Closeable {
+
+    /**
+     * Receives the documentation of the project after every update, with its symbols
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void update(@NotNull LuaDoc doc, @NotNull SymbolIndex symbols) throws IOException;
+    }
+
+    private final ProjectConfig config;
+    private final Path configPath;
+    private final Duration debounce;
+    private final Listener listener;
+    private final WatchService watchService;
+    private final Set<Path> watchedDirectories = new HashSet<>();
+    private ProjectState state;
+
+    /** Files changed since the last successful update */
+    private final Set<Path> pendingFiles = new HashSet<>();
+    /** Whether files were added or removed, or the configuration changed, since the last successful update */
+    private boolean pendingResolve = true;
+    /** Whether the listener failed, so it gets the documentation again even if nothing changed */
+    private boolean listenerFailed;
+
+    /**
+     * @param debounce time without further changes to wait for before updating
+     */
+    public ProjectWatcher(ProjectConfig config, Path configPath, Duration debounce, Listener listener) throws IOException {
+        this.config = config;
+        this.configPath = configPath.toAbsolutePath().normalize();
+        this.state = new ProjectState(config, this.configPath);
+        this.debounce = debounce;
+        this.listener = listener;
+        this.watchService = this.configPath.getFileSystem().newWatchService();
+    }
+
+    /**
+     * Generate the documentation once and then again after every change, until the thread is
+     * interrupted. Failed updates are reported and retried with the next change.
+     */
+    public void run() throws IOException, InterruptedException {
+        update();
+        while (true) {
+            collect(watchService.take());
+            // Wait until the changes settle, so a burst of saves causes a single update
+            WatchKey key;
+            while ((key = watchService.poll(debounce.toMillis(), TimeUnit.MILLISECONDS)) != null) {
+                collect(key);
+            }
+            try {
+                update();
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error: Failed to update documentation: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private void collect(WatchKey key) throws IOException {
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                // Events were lost, start over
+                pendingResolve = true;
+                state = new ProjectState(config, configPath);
+                continue;
+            }
+            Path path = directory.resolve((Path) event.context()).normalize();
+            if (path.equals(configPath)) {
+                pendingResolve = true;
+            } else if (event.kind() == ENTRY_MODIFY) {
+                pendingFiles.add(path);
+            } else {
+                // A created or deleted file or directory can change what the globs match
+                pendingResolve = true;
+                pendingFiles.add(path);
+            }
+        }
+        if (!key.reset()) {
+            watchedDirectories.remove(directory);
+            pendingResolve = true;
+        }
+    }
+
+    private void update() throws IOException {
+        ProjectConfig.Sources sources = null;
+        if (pendingResolve) {
+            sources = config.resolveSources(configPath);
+            watch(sources);
+        }
+        ProjectState.Update update = state.update(sources, pendingFiles);
+        pendingFiles.clear();
+        pendingResolve = false;
+        if (update == null && !listenerFailed) {
+            return;
+        }
+
+        listenerFailed = true;
+        listener.update(state.doc(), state.symbols());
+        listenerFailed = false;
+        if (update != null) {
+            System.out.println("Updated documentation: " + update.parsedFiles() + " file(s) parsed, "
+                + update.mergedNamespaces() + " namespace(s) merged");
+        }
+    }
+
+    /**
+     * Watch every directory the project files are looked up in
+     */
+    private void watch(ProjectConfig.Sources sources) throws IOException {
+        Path configDirectory = configPath.getParent();
+        if (configDirectory != null) {
+            register(configDirectory);
+        }
+        for (Path directory : sources.directories()) {
+            if (Files.isDirectory(directory)) {
+                register(directory.toAbsolutePath().normalize());
+            }
+        }
+        for (Path tree : sources.trees()) {
+            Path root = tree.toAbsolutePath().normalize();
+            if (Files.isDirectory(root)) {
+                registerTree(root);
+            } else {
+                // Notice the root when it is created
+                while (root.getParent() != null && !Files.isDirectory(root)) {
+                    root = root.getParent();
+                }
+                register(root);
+            }
+        }
+    }
+
+    private void registerTree(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                register(dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                System.err.println("Warning: Failed to access: " + file);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private void register(Path directory) throws IOException {
+        if (watchedDirectories.add(directory)) {
+            directory.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package org.xgen.lua.doc.generator.serve;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.xgen.lua.doc.generator.doc.*;
+import org.xgen.lua.doc.generator.read.ProjectState;
+import org.xgen.lua.doc.generator.read.ProjectWatcher;
+import org.xgen.lua.doc.generator.write.JsonExport;
+import org.xgen.lua.doc.generator.write.JsonOutput;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the documentation of a project in memory and answers requests for it over HTTP, so
+ * tools that need the documentation often do not pay for a JVM start and a full parse every
+ * time. The server only listens on the loopback interface and serves every request on a
+ * virtual thread.
+ * <p>
+ * Requests, all answered with JSON in the format of {@link JsonExport} unless noted:
+ * <pre>
+ * GET  /namespaces            names of all namespaces, as {"namespaces": [...]}
+ * GET  /namespace?name=&lt;ns&gt;   the doc with only the given namespace
+ * GET  /symbol?name=&lt;name&gt;    the doc with only the classes, functions and fields of that
+ *                             name; "Class.member" or "Class:member" finds members of a class
+ * POST /regenerate            read the configuration again and parse new and modified files
+ * POST /reparse?file=&lt;path&gt;   parse one file of the project again
+ * POST /shutdown              stop the server
+ * </pre>
+ * Parts of the documentation are written with the symbols of the whole documentation, so their
+ * ids, parents and inherited members are the same as in the full output.
+ * <p>
+ * Updates answer with {"parsedFiles": n, "mergedNamespaces": n, "millis": n} and pass the
+ * documentation to the listener, e.g. to write the output file. Only one update runs at a time,
+ * reads are answered from the documentation of the last update meanwhile. POST requests that
+ * carry an {@code Origin} header are refused, so web pages cannot trigger them.
+ */
+public class DocServer implements Closeable {
+
+    /**
+     * The documentation of the last update and its index, replaced together
+     */
+    private record Snapshot(LuaDoc doc, SymbolIndex symbols) { }
+
+    private final ProjectState state;
+    private final ProjectWatcher.Listener listener;
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final JsonExport export = new JsonExport(true);
+    /** Not synchronized, so waiting virtual threads do not pin their carrier */
+    private final ReentrantLock updateLock = new ReentrantLock();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private volatile Snapshot snapshot = new Snapshot(new LuaDoc(List.of()), SymbolIndex.EMPTY);
+    /** Whether the listener failed, so it gets the documentation again even if nothing changed */
+    private boolean listenerFailed;
+
+    /**
+     * @param listener receives the documentation after every update, or {@code null}
+     * @param port     port on the loopback interface, 0 for any free port
+     */
+    public DocServer(ProjectState state, @Nullable ProjectWatcher.Listener listener, int port) throws IOException {
+        this.state = state;
+        this.listener = listener;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+    }
+
+    /**
+     * The port the server listens on
+     */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Generate the documentation and start answering requests
+     */
+    public void start() throws IOException {
+        update(state::refresh);
+        server.start();
+    }
+
+    /**
+     * Wait until a shutdown request was answered
+     */
+    public void awaitShutdown() throws InterruptedException {
+        stopped.await();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    @FunctionalInterface
+    private interface StateUpdate {
+        ProjectState.Update run() throws IOException;
+    }
+
+    private ProjectState.Update update(StateUpdate update) throws IOException {
+        updateLock.lock();
+        try {
+            ProjectState.Update result = update.run();
+            snapshot = new Snapshot(result.doc(), result.symbols());
+            if (listener != null && (result.parsedFiles() > 0 || result.mergedNamespaces() > 0 || listenerFailed)) {
+                listenerFailed = true;
+                listener.update(result.doc(), result.symbols());
+                listenerFailed = false;
+            }
+            return result;
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            boolean post = exchange.getRequestMethod().equals("POST");
+            if (!post && !exchange.getRequestMethod().equals("GET")) {
+                sendText(exchange, 405, "Unsupported method: " + exchange.getRequestMethod());
+                return;
+            }
+            if (post && exchange.getRequestHeaders().containsKey("Origin")) {
+                sendText(exchange, 403, "Requests from web pages are not accepted");
+                return;
+            }
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            try {
+                switch (path) {
+                    case "/namespaces" -> requireMethod(post, false, () -> sendNamespaces(exchange));
+                    case "/namespace" -> requireMethod(post, false, () -> sendNamespace(exchange, require(query, "name")));
+                    case "/symbol" -> requireMethod(post, false, () -> sendSymbol(exchange, require(query, "name")));
+                    case "/regenerate" -> requireMethod(post, true, () -> sendUpdate(exchange, state::refresh));
+                    case "/reparse" -> requireMethod(post, true, () -> {
+                        String file = require(query, "file");
+                        sendUpdate(exchange, () -> state.reparse(Paths.get(file)));
+                    });
+                    case "/shutdown" -> requireMethod(post, true, () -> {
+                        sendText(exchange, 200, "Stopping");
+                        stopped.countDown();
+                    });
+                    default -> sendText(exchange, 404, "Unknown request: " + path);
+                }
+            } catch (IllegalArgumentException e) {
+                sendText(exchange, 400, e.getMessage());
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error: Failed to answer " + path + ": " + e.getMessage());
+                sendText(exchange, 500, String.valueOf(e.getMessage()));
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle() throws IOException;
+    }
+
+    private static void requireMethod(boolean post, boolean expectPost, Handler handler) throws IOException {
+        if (post != expectPost) {
+            throw new IllegalArgumentException("Expected a " + (expectPost ? "POST" : "GET") + " request");
+        }
+        handler.handle();
+    }
+
+    private void sendNamespaces(HttpExchange exchange) throws IOException {
+        StringBuilder json = new StringBuilder("{\"namespaces\": [");
+        List<LuaNamespace> namespaces = snapshot.doc().namespaces();
+        for (int i = 0; i < namespaces.size(); i++) {
+            if (i > 0) json.append(", ");
+            JsonOutput.appendString(json, namespaces.get(i).name());
+        }
+        json.append("]}");
+        sendJson(exchange, json.toString());
+    }
+
+    private void sendNamespace(HttpExchange exchange, String name) throws IOException {
+        Snapshot current = snapshot;
+        for (LuaNamespace namespace : current.doc().namespaces()) {
+            if (namespace.name().equals(name)) {
+                sendDoc(exchange, new LuaDoc(List.of(namespace)), current.symbols());
+                return;
+            }
+        }
+        sendText(exchange, 404, "Unknown namespace: " + name);
+    }
+
+    private void sendSymbol(HttpExchange exchange, String name) throws IOException {
+        Snapshot current = snapshot;
+        LuaDoc matches = lookup(current.doc(), name);
+        if (matches.namespaces().isEmpty()) {
+            sendText(exchange, 404, "Unknown symbol: " + name);
+            return;
+        }
+        sendDoc(exchange, matches, current.symbols());
+    }
+
+    /**
+     * The parts of a doc with the given name, in the structure of the doc. Members of a class
+     * are found by their own name or by "Class.member" or "Class:member", classes then only
+     * have the matching members of their own.
+     */
+    static LuaDoc lookup(LuaDoc doc, String name) {
+        int separator = Math.max(name.lastIndexOf('.'), name.lastIndexOf(':'));
+        String owner = separator > 0 ? name.substring(0, separator) : null;
+        String member = separator > 0 ? name.substring(separator + 1) : name;
+
+        List<LuaNamespace> namespaces = new ArrayList<>();
+        for (LuaNamespace namespace : doc.namespaces()) {
+            List<LuaClass> classes = new ArrayList<>();
+            for (LuaClass clazz : namespace.classes()) {
+                if (owner == null && clazz.name().equals(name)) {
+                    classes.add(clazz);
+                    continue;
+                }
+                if (owner != null && !clazz.name().equals(owner)) {
+                    continue;
+                }
+                List<LuaField> fields = clazz.fields().stream().filter(field -> field.name().equals(member)).toList();
+                List<LuaFunction> functions = clazz.functions().stream().filter(function -> function.name().equals(member)).toList();
+                if (!fields.isEmpty() || !functions.isEmpty()) {
+                    classes.add(new LuaClass.Impl(clazz.name(), clazz.parent(), clazz.description(), fields, functions, clazz.source()));
+                }
+            }
+            List<LuaFunction> functions = owner != null ? List.of()
+                    : namespace.functions().stream().filter(function -> function.name().equals(name)).toList();
+            List<LuaField> fields = owner != null ? List.of()
+                    : namespace.fields().stream().filter(field -> field.name().equals(name)).toList();
+            if (!classes.isEmpty() || !functions.isEmpty() || !fields.isEmpty()) {
+                namespaces.add(new LuaNamespace(namespace.name(), functions, classes, fields));
+            }
+        }
+        return new LuaDoc(namespaces);
+    }
+
+    private void sendUpdate(HttpExchange exchange, StateUpdate stateUpdate) throws IOException {
+        long start = System.nanoTime();
+        ProjectState.Update result = update(stateUpdate);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        sendJson(exchange, "{\"parsedFiles\": " + result.parsedFiles() + ", \"mergedNamespaces\": "
+                + result.mergedNamespaces() + ", \"millis\": " + millis + "}");
+    }
+
+    /**
+     * @param symbols index of the whole documentation the doc is a part of
+     */
+    private void sendDoc(HttpExchange exchange, LuaDoc doc, SymbolIndex symbols) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        // Streamed, so the length is not known up front
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            export.export(doc, symbols, out);
+        }
+    }
+
+    private static void sendJson(HttpExchange exchange, String json) throws IOException {
+        send(exchange, 200, "application/json; charset=utf-8", json);
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String text) throws IOException {
+        send(exchange, status, "text/plain; charset=utf-8", text);
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = (body + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static @NotNull String require(Map<String, String> query, String parameter) {
+        String value = query.get(parameter);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing parameter: " + parameter);
+        }
+        return value;
+    }
+
+    private static Map<String, String> query(@Nullable String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String key = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+}
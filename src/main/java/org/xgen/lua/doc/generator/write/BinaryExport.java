@@ -0,0 +1,247 @@
+package org.xgen.lua.doc.generator.write;
+
+import org.xgen.lua.doc.generator.doc.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Compact binary encoding of a {@link LuaDoc}, read back by
+ * {@link org.xgen.lua.doc.generator.read.BinaryDocReader}. It holds the same content as the
+ * JSON export in a fraction of the size and loads without any text parsing.
+ * <p>
+ * All numbers are unsigned LEB128 varints. Strings are stored once in a string table, most used
+ * first so the common type names get one byte references; a reference is the table index plus
+ * one, or 0 for {@code null}. Flags are a single byte.
+ * <pre>
+ * file      = magic "LDOC", version byte, strings, index, body
+ * strings   = count, (byte length, UTF-8 bytes)*
+ * index     = namespace count, (name, body offset, class count, (name, body offset)*)*
+ * namespace = class count, class*, function count, function*, field count, field*
+ * class     = name, parent, description, source, field count, field*, function count, function*
+ * field     = flags (1 = static), name, type, description, source
+ * function  = name, flags (1 = static), description, source, parameter count, parameter*,
+ *             return count, return*
+ * source    = file, line (file {@code null} and line 0 if not known)
+ * parameter = name, type, flags (1 = optional), description
+ * return    = type, name, description
+ * </pre>
+ * Offsets are relative to the start of the body, so a single namespace or class can be read
+ * without decoding anything before it.
+ */
+public class BinaryExport {
+
+    /** "LDOC" in ASCII */
+    public static final int MAGIC = 0x4C444F43;
+    /** Bump when the layout changes */
+    public static final int FORMAT_VERSION = 3;
+
+    /**
+     * Export a LuaDoc to a binary file
+     */
+    public void export(LuaDoc doc, Path file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            export(doc, out);
+        }
+    }
+
+    /**
+     * Export a LuaDoc to a stream. The stream is flushed but not closed.
+     */
+    public void export(LuaDoc doc, OutputStream out) throws IOException {
+        Map<String, Integer> strings = stringTable(doc);
+
+        // The body goes first so the offsets are known when the index is written
+        Output body = new Output(strings);
+        int[][] classOffsets = new int[doc.namespaces().size()][];
+        int[] namespaceOffsets = new int[doc.namespaces().size()];
+        for (int n = 0; n < doc.namespaces().size(); n++) {
+            LuaNamespace namespace = doc.namespaces().get(n);
+            namespaceOffsets[n] = body.size();
+            classOffsets[n] = new int[namespace.classes().size()];
+            body.writeVarint(namespace.classes().size());
+            for (int c = 0; c < namespace.classes().size(); c++) {
+                classOffsets[n][c] = body.size();
+                writeClass(body, namespace.classes().get(c));
+            }
+            writeFunctions(body, namespace.functions());
+            writeFields(body, namespace.fields());
+        }
+
+        Output header = new Output(strings);
+        header.write(MAGIC >>> 24);
+        header.write(MAGIC >>> 16);
+        header.write(MAGIC >>> 8);
+        header.write(MAGIC);
+        header.write(FORMAT_VERSION);
+        header.writeVarint(strings.size());
+        for (String value : strings.keySet()) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            header.writeVarint(bytes.length);
+            header.write(bytes, 0, bytes.length);
+        }
+        header.writeVarint(doc.namespaces().size());
+        for (int n = 0; n < doc.namespaces().size(); n++) {
+            LuaNamespace namespace = doc.namespaces().get(n);
+            header.writeString(namespace.name());
+            header.writeVarint(namespaceOffsets[n]);
+            header.writeVarint(namespace.classes().size());
+            for (int c = 0; c < namespace.classes().size(); c++) {
+                header.writeString(namespace.classes().get(c).name());
+                header.writeVarint(classOffsets[n][c]);
+            }
+        }
+
+        header.writeTo(out);
+        body.writeTo(out);
+        out.flush();
+    }
+
+    /**
+     * Every string of the doc mapped to its table index, most used first and in order of first
+     * use among equally used strings
+     */
+    private static Map<String, Integer> stringTable(LuaDoc doc) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        StringCounter counter = value -> {
+            if (value != null) {
+                counts.merge(value, 1, Integer::sum);
+            }
+        };
+        for (LuaNamespace namespace : doc.namespaces()) {
+            counter.count(namespace.name());
+            for (LuaClass clazz : namespace.classes()) {
+                counter.count(clazz.name());
+                counter.count(clazz.parent().orElse(null));
+                counter.count(clazz.description().orElse(null));
+                countSource(counter, clazz.source());
+                countFields(counter, clazz.fields());
+                countFunctions(counter, clazz.functions());
+            }
+            countFunctions(counter, namespace.functions());
+            countFields(counter, namespace.fields());
+        }
+
+        List<String> ordered = new ArrayList<>(counts.keySet());
+        // Stable, so ties stay in order of first use
+        ordered.sort(Comparator.comparing(counts::get, Comparator.reverseOrder()));
+        Map<String, Integer> table = new LinkedHashMap<>();
+        for (String value : ordered) {
+            table.put(value, table.size());
+        }
+        return table;
+    }
+
+    @FunctionalInterface
+    private interface StringCounter {
+        void count(String value);
+    }
+
+    private static void countFields(StringCounter counter, List<LuaField> fields) {
+        for (LuaField field : fields) {
+            counter.count(field.name());
+            counter.count(field.type());
+            counter.count(field.description().orElse(null));
+            countSource(counter, field.source());
+        }
+    }
+
+    private static void countFunctions(StringCounter counter, List<LuaFunction> functions) {
+        for (LuaFunction function : functions) {
+            counter.count(function.name());
+            counter.count(function.description().orElse(null));
+            countSource(counter, function.source());
+            for (LuaParameter param : function.parameters()) {
+                counter.count(param.name());
+                counter.count(param.type());
+                counter.count(param.description().orElse(null));
+            }
+            for (LuaReturnValue returnValue : function.returns()) {
+                counter.count(returnValue.type());
+                counter.count(returnValue.name());
+                counter.count(returnValue.description().orElse(null));
+            }
+        }
+    }
+
+    private static void countSource(StringCounter counter, Optional<SourceLocation> source) {
+        counter.count(source.map(SourceLocation::file).orElse(null));
+    }
+
+    private static void writeClass(Output out, LuaClass clazz) {
+        out.writeString(clazz.name());
+        out.writeString(clazz.parent().orElse(null));
+        out.writeString(clazz.description().orElse(null));
+        out.writeSource(clazz.source());
+        writeFields(out, clazz.fields());
+        writeFunctions(out, clazz.functions());
+    }
+
+    private static void writeFields(Output out, List<LuaField> fields) {
+        out.writeVarint(fields.size());
+        for (LuaField field : fields) {
+            out.write(field.isStatic() ? 1 : 0);
+            out.writeString(field.name());
+            out.writeString(field.type());
+            out.writeString(field.description().orElse(null));
+            out.writeSource(field.source());
+        }
+    }
+
+    private static void writeFunctions(Output out, List<LuaFunction> functions) {
+        out.writeVarint(functions.size());
+        for (LuaFunction function : functions) {
+            out.writeString(function.name());
+            out.write(function.isStatic() ? 1 : 0);
+            out.writeString(function.description().orElse(null));
+            out.writeSource(function.source());
+            out.writeVarint(function.parameters().size());
+            for (LuaParameter param : function.parameters()) {
+                out.writeString(param.name());
+                out.writeString(param.type());
+                out.write(param.optional() ? 1 : 0);
+                out.writeString(param.description().orElse(null));
+            }
+            out.writeVarint(function.returns().size());
+            for (LuaReturnValue returnValue : function.returns()) {
+                out.writeString(returnValue.type());
+                out.writeString(returnValue.name());
+                out.writeString(returnValue.description().orElse(null));
+            }
+        }
+    }
+
+    /**
+     * Growing byte buffer with varint and string reference encoding
+     */
+    private static final class Output extends ByteArrayOutputStream {
+        private final Map<String, Integer> strings;
+
+        private Output(Map<String, Integer> strings) {
+            super(8192);
+            this.strings = strings;
+        }
+
+        private void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        private void writeString(String value) {
+            writeVarint(value == null ? 0 : strings.get(value) + 1);
+        }
+
+        private void writeSource(Optional<SourceLocation> source) {
+            writeString(source.map(SourceLocation::file).orElse(null));
+            writeVarint(source.map(SourceLocation::line).orElse(0));
+        }
+    }
+}
@@ -0,0 +1,774 @@
+package org.xgen.lua.doc.generator.write;
+
+import org.xgen.lua.doc.generator.doc.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Renders a doc as a static site that needs no client side processing: an index page, one page
+ * per namespace with its global functions and fields, and one page per class. Pages use the
+ * layout and CSS classes of the viewer and link to the viewer's stylesheet at the root of the
+ * site.
+ * <p>
+ * Layout of the output directory:
+ * <pre>
+ * index.html                      list of the namespaces
+ * docs.css                        stylesheet of the viewer
+ * &lt;namespace&gt;/index.html          classes, global functions and fields of a namespace
+ * &lt;namespace&gt;/&lt;class&gt;.html        a class
+ * </pre>
+ * The digest of every page is kept in the output directory. A page is only written if its
+ * content differs from the last export, pages of removed classes and namespaces are deleted.
+ */
+public class HtmlSiteExport {
+
+    public static final String STYLESHEET = "docs.css";
+
+    /** Digests of the pages of the last export, one "digest path" line per page */
+    private static final String STATE_FILE = ".luadoc-site";
+    private static final String INDEX_PAGE = "index.html";
+    private static final String ICON_SCRIPT = "https://unpkg.com/lucide@latest";
+    /** Classes listed in the sidebar around the current one, larger namespaces link to their page instead */
+    private static final int SIDEBAR_CLASS_LIMIT = 50;
+
+    private static final Map<String, String> TYPE_COLORS = Map.of(
+            "string", "var(--type-string)",
+            "number", "var(--type-number)",
+            "boolean", "var(--type-boolean)",
+            "bool", "var(--type-boolean)",
+            "table", "var(--type-table)",
+            "function", "var(--type-function)",
+            "userdata", "var(--type-userdata)",
+            "nil", "var(--type-nil)",
+            "any", "var(--type-any)",
+            "void", "var(--type-nil)");
+    private static final Set<String> LABEL_CLASSES = Set.of(
+            "class", "function", "field", "globals", "server", "client", "shared", "namespace");
+
+    /**
+     * Number of pages of an export, and how many of them were written or deleted
+     */
+    public record Result(int pages, int written, int removed) { }
+
+    /**
+     * Pages of a namespace and its classes, relative to the site root
+     */
+    private record NamespacePages(LuaNamespace namespace, String directory, List<String> classPages) {
+        String indexPage() {
+            return directory + "/" + INDEX_PAGE;
+        }
+    }
+
+    private record Page(String path, String html) { }
+
+    @FunctionalInterface
+    private interface PageRenderer {
+        Page render();
+    }
+
+    private final int parallelism;
+
+    public HtmlSiteExport() {
+        this(1);
+    }
+
+    /**
+     * @param parallelism number of pages rendered at the same time, 1 renders on the calling thread
+     */
+    public HtmlSiteExport(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1, got " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Export a LuaDoc as a site into the given directory, creating it if needed
+     */
+    public Result export(LuaDoc doc, Path directory) throws IOException {
+        return export(doc, SymbolIndex.of(doc), directory);
+    }
+
+    /**
+     * Export a LuaDoc as a site into the given directory, with the symbols of an index that was
+     * built for it before
+     */
+    public Result export(LuaDoc doc, SymbolIndex symbols, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        String title = siteTitle(directory);
+
+        // Paths of all pages first, the pages link to each other
+        List<NamespacePages> namespaces = new ArrayList<>();
+        Map<Integer, String> classPages = new HashMap<>();
+        Set<String> namespaceFiles = new HashSet<>();
+        for (LuaNamespace namespace : doc.namespaces()) {
+            String namespaceDirectory = ShardedExport.fileName(namespace.name(), namespaceFiles);
+            Set<String> classFiles = new HashSet<>(Set.of("index"));
+            List<String> pages = new ArrayList<>();
+            for (LuaClass clazz : namespace.classes()) {
+                String page = namespaceDirectory + "/" + ShardedExport.fileName(clazz.name(), classFiles) + ".html";
+                pages.add(page);
+                symbols.resolveClass(namespace.name(), clazz.name()).ifPresent(symbol -> classPages.putIfAbsent(symbol.id(), page));
+            }
+            namespaces.add(new NamespacePages(namespace, namespaceDirectory, pages));
+            Files.createDirectories(directory.resolve(namespaceDirectory));
+        }
+
+        List<PageRenderer> renderers = new ArrayList<>();
+        renderers.add(() -> new Page(INDEX_PAGE, new PageWriter(title, INDEX_PAGE, namespaces, symbols, classPages).index()));
+        for (NamespacePages pages : namespaces) {
+            renderers.add(() -> new Page(pages.indexPage(),
+                    new PageWriter(title, pages.indexPage(), namespaces, symbols, classPages).namespace(pages)));
+            for (int c = 0; c < pages.classPages().size(); c++) {
+                int classIndex = c;
+                String path = pages.classPages().get(c);
+                renderers.add(() -> new Page(path, new PageWriter(title, path, namespaces, symbols, classPages).classPage(pages, classIndex)));
+            }
+        }
+
+        Map<String, String> previous = readState(directory);
+        Map<String, String> digests = Collections.synchronizedMap(new TreeMap<>());
+        int written = 0;
+        for (boolean pageWritten : renderAll(renderers, page -> writePage(directory, page, previous, digests))) {
+            if (pageWritten) written++;
+        }
+
+        int removed = 0;
+        for (String path : previous.keySet()) {
+            if (!digests.containsKey(path) && Files.deleteIfExists(directory.resolve(path))) {
+                removed++;
+            }
+        }
+        copyStylesheet(directory);
+        writeState(directory, digests);
+        return new Result(digests.size(), written, removed);
+    }
+
+    @FunctionalInterface
+    private interface PageSink {
+        boolean accept(Page page) throws IOException;
+    }
+
+    /**
+     * Render and store all pages, on a pool of {@link #parallelism} threads if more than one is configured
+     */
+    private List<Boolean> renderAll(List<PageRenderer> renderers, PageSink sink) throws IOException {
+        List<Boolean> results = new ArrayList<>(renderers.size());
+        if (parallelism == 1 || renderers.size() < 2) {
+            for (PageRenderer renderer : renderers) {
+                results.add(sink.accept(renderer.render()));
+            }
+            return results;
+        }
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, renderers.size()))) {
+            List<Future<Boolean>> futures = new ArrayList<>(renderers.size());
+            for (PageRenderer renderer : renderers) {
+                futures.add(executor.submit(() -> sink.accept(renderer.render())));
+            }
+            for (Future<Boolean> future : futures) {
+                results.add(await(future));
+            }
+        }
+        return results;
+    }
+
+    private static boolean await(Future<Boolean> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while rendering the site");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("Failed to render the site", e.getCause());
+        }
+    }
+
+    /**
+     * Write a page unless the last export wrote the same content and the file is still there
+     *
+     * @return whether the page was written
+     */
+    private static boolean writePage(Path directory, Page page, Map<String, String> previous,
+                                     Map<String, String> digests) throws IOException {
+        byte[] content = page.html().getBytes(StandardCharsets.UTF_8);
+        String digest = digest(content);
+        digests.put(page.path(), digest);
+        Path file = directory.resolve(page.path());
+        if (digest.equals(previous.get(page.path())) && Files.exists(file)) {
+            return false;
+        }
+        Files.write(file, content);
+        return true;
+    }
+
+    private static String digest(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<String, String> readState(Path directory) throws IOException {
+        Map<String, String> state = new HashMap<>();
+        Path file = directory.resolve(STATE_FILE);
+        if (!Files.exists(file)) {
+            return state;
+        }
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            int separator = line.indexOf(' ');
+            if (separator > 0) {
+                state.put(line.substring(separator + 1), line.substring(0, separator));
+            }
+        }
+        return state;
+    }
+
+    private static void writeState(Path directory, Map<String, String> digests) throws IOException {
+        StringBuilder state = new StringBuilder();
+        for (Map.Entry<String, String> entry : digests.entrySet()) {
+            state.append(entry.getValue()).append(' ').append(entry.getKey()).append('\n');
+        }
+        Files.writeString(directory.resolve(STATE_FILE), state, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Copy the viewer's stylesheet, which the build bundles next to this class, if it changed
+     */
+    private static void copyStylesheet(Path directory) throws IOException {
+        Path target = directory.resolve(STYLESHEET);
+        try (InputStream in = HtmlSiteExport.class.getResourceAsStream(STYLESHEET)) {
+            if (in == null) {
+                if (!Files.exists(target)) {
+                    System.err.println("Warning: " + STYLESHEET + " is not bundled, copy view/" + STYLESHEET + " to " + directory);
+                }
+                return;
+            }
+            byte[] stylesheet = in.readAllBytes();
+            if (!Files.exists(target) || !Arrays.equals(Files.readAllBytes(target), stylesheet)) {
+                Files.write(target, stylesheet);
+            }
+        }
+    }
+
+    /**
+     * Title from the name of the output directory, like the viewer's title from the file name
+     */
+    private static String siteTitle(Path directory) {
+        Path fileName = directory.toAbsolutePath().normalize().getFileName();
+        String name = fileName == null ? "" : fileName.toString().replaceAll("[_-]", " ");
+        StringBuilder title = new StringBuilder();
+        for (String word : name.split(" ")) {
+            if (!title.isEmpty()) title.append(' ');
+            if (!word.isEmpty()) {
+                title.append(Character.toUpperCase(word.charAt(0))).append(word.substring(1).toLowerCase(Locale.ROOT));
+            }
+        }
+        return title.toString();
+    }
+
+    /**
+     * Renders a single page. Links are relative, so the site works from any location.
+     */
+    private static final class PageWriter {
+        private final StringBuilder html = new StringBuilder(16384);
+        private final String title;
+        private final String path;
+        private final String root;
+        private final List<NamespacePages> namespaces;
+        private final SymbolIndex symbols;
+        /** Page of every class, by symbol id */
+        private final Map<Integer, String> classPages;
+        private final Set<String> anchors = new HashSet<>();
+        /** Namespace whose types are rendered, type names are resolved from it */
+        private String namespace = "";
+
+        private PageWriter(String title, String path, List<NamespacePages> namespaces, SymbolIndex symbols,
+                           Map<Integer, String> classPages) {
+            this.title = title;
+            this.path = path;
+            this.root = path.contains("/") ? "../" : "";
+            this.namespaces = namespaces;
+            this.symbols = symbols;
+            this.classPages = classPages;
+        }
+
+        private String index() {
+            List<Anchor> onThisPage = new ArrayList<>();
+            begin("Documentation", null, -1);
+            docHeader("Documentation", "index", null);
+            description("Namespaces of this documentation.");
+            html.append("<div class=\"subsection\"><h2 class=\"subsection-title\">Namespaces</h2><ul class=\"item-list\">\n");
+            for (NamespacePages pages : namespaces) {
+                LuaNamespace namespace = pages.namespace();
+                html.append("<li class=\"item\"><div class=\"item-header\"><i data-lucide=\"folder\"></i>");
+                link("item-name", pages.indexPage(), namespace.name());
+                html.append("</div><div class=\"item-description\">");
+                text(namespace.classes().size() + " classes, " + namespace.functions().size()
+                        + " global functions, " + namespace.fields().size() + " fields");
+                html.append("</div></li>\n");
+            }
+            html.append("</ul></div>\n");
+            return end(onThisPage);
+        }
+
+        private String namespace(NamespacePages pages) {
+            LuaNamespace namespace = pages.namespace();
+            this.namespace = namespace.name();
+            List<Anchor> onThisPage = new ArrayList<>();
+            begin(namespace.name(), pages, -1);
+            docHeader(namespace.name(), "namespace", null);
+            description("Classes, global functions and fields of the " + namespace.name() + " namespace.");
+
+            if (!namespace.classes().isEmpty()) {
+                html.append("<div class=\"subsection\"><h2 class=\"subsection-title\">Classes</h2><ul class=\"item-list\">\n");
+                for (int c = 0; c < namespace.classes().size(); c++) {
+                    LuaClass clazz = namespace.classes().get(c);
+                    html.append("<li class=\"item\"><div class=\"item-header\"><i data-lucide=\"package\"></i>");
+                    link("item-name", pages.classPages().get(c), clazz.name());
+                    html.append("</div>");
+                    clazz.description().ifPresent(this::itemDescription);
+                    html.append("</li>\n");
+                }
+                html.append("</ul></div>\n");
+            }
+            functions("Static Functions", namespace.functions().stream().filter(LuaFunction::isStatic).toList(), onThisPage);
+            functions("Instance Functions", namespace.functions().stream().filter(f -> !f.isStatic()).toList(), onThisPage);
+            fields("Fields", namespace.fields(), onThisPage);
+            return end(onThisPage);
+        }
+
+        private String classPage(NamespacePages pages, int classIndex) {
+            LuaClass clazz = pages.namespace().classes().get(classIndex);
+            this.namespace = pages.namespace().name();
+            List<Anchor> onThisPage = new ArrayList<>();
+            begin(clazz.name(), pages, classIndex);
+            docHeader(clazz.name(), "class", pages.namespace().name());
+            Optional<SymbolIndex.Symbol> symbol = symbols.lookup(namespace + "/" + clazz.name());
+            symbol.ifPresent(this::ancestors);
+            clazz.source().ifPresent(source -> description("Defined in " + source));
+            clazz.description().ifPresent(this::description);
+            fields("Fields", clazz.fields(), onThisPage);
+            functions("Static Methods", clazz.functions().stream().filter(LuaFunction::isStatic).toList(), onThisPage);
+            functions("Instance Methods", clazz.functions().stream().filter(f -> !f.isStatic()).toList(), onThisPage);
+            if (symbol.isPresent()) {
+                ClassHierarchy.Members members = symbols.hierarchy().members(symbol.get());
+                inherited("Inherited Fields", "box", members.inheritedFields(), onThisPage);
+                inherited("Inherited Methods", "zap", members.inheritedFunctions(), onThisPage);
+            }
+            return end(onThisPage);
+        }
+
+        /**
+         * The chain of parents of a class, nearest first
+         */
+        private void ancestors(SymbolIndex.Symbol clazz) {
+            List<SymbolIndex.Symbol> ancestors = symbols.hierarchy().ancestors(clazz);
+            if (ancestors.isEmpty()) {
+                return;
+            }
+            html.append("<div class=\"description\">Extends ");
+            for (int i = 0; i < ancestors.size(); i++) {
+                if (i > 0) html.append(" &rarr; ");
+                classLink(ancestors.get(i), null);
+            }
+            html.append("</div>\n");
+        }
+
+        /**
+         * Members a class inherits, each linked to its declaration
+         */
+        private void inherited(String title, String icon, List<SymbolIndex.Symbol> members, List<Anchor> onThisPage) {
+            if (members.isEmpty()) {
+                return;
+            }
+            subsectionStart(title);
+            for (SymbolIndex.Symbol member : members) {
+                String id = anchor("inherited-", member.name());
+                onThisPage.add(new Anchor(title, icon, member.name(), id));
+                html.append("<li class=\"item\" id=\"").append(id).append("\"><div class=\"item-header\"><i data-lucide=\"")
+                        .append(icon).append("\"></i><span class=\"item-name\">");
+                text(member.name());
+                html.append("</span><span class=\"item-type\">from ");
+                Optional<SymbolIndex.Symbol> owner = symbols.lookup(member.namespace() + "/" + member.owner());
+                if (owner.isPresent()) {
+                    classLink(owner.get(), (member.kind() == SymbolIndex.Kind.FIELD ? "field-" : "function-")
+                            + member.name().replaceAll("[^A-Za-z0-9_-]", "_"));
+                } else {
+                    text(member.owner());
+                }
+                html.append("</span></div></li>\n");
+            }
+            html.append("</ul></div>\n");
+        }
+
+        /**
+         * Link to the page of a class, or its name if it has no page
+         *
+         * @param anchor id of an item on the page, or {@code null}
+         */
+        private void classLink(SymbolIndex.Symbol clazz, String anchor) {
+            String page = classPages.get(clazz.id());
+            if (page == null) {
+                text(clazz.name());
+                return;
+            }
+            link("clickable-type", anchor != null ? page + "#" + anchor : page, clazz.name());
+        }
+
+        /**
+         * Entry of the page navigation
+         */
+        private record Anchor(String section, String icon, String name, String id) { }
+
+        /**
+         * @param currentClass index of the class of the page in the current namespace, -1 if it is no class page
+         */
+        private void begin(String pageTitle, NamespacePages current, int currentClass) {
+            html.append("<!DOCTYPE html>\n<html lang=\"en\">\n<head>\n");
+            html.append("    <meta charset=\"UTF-8\">\n");
+            html.append("    <meta name=\"viewport\" content=\"width=device-width, initial-scale=1.0\">\n");
+            html.append("    <title>");
+            text(pageTitle);
+            html.append(" - Lua Documentation</title>\n");
+            html.append("    <link rel=\"stylesheet\" href=\"").append(root).append(STYLESHEET).append("\">\n");
+            html.append("    <script src=\"").append(ICON_SCRIPT).append("\"></script>\n");
+            html.append("</head>\n<body>\n<div class=\"container\">\n<header><div class=\"header-left\"><h1>");
+            link(null, INDEX_PAGE, "Lua Documentation");
+            html.append("</h1><div class=\"doc-title-name\">");
+            text(title);
+            html.append("</div></div></header>\n");
+            html.append("<div class=\"content\">\n<aside class=\"sidebar\"><nav id=\"navigation\">\n");
+            navigation(current, currentClass);
+            html.append("</nav></aside>\n");
+            html.append("<main class=\"main-content\"><div id=\"docContent\"><div class=\"doc-section\">\n");
+        }
+
+        private String end(List<Anchor> onThisPage) {
+            html.append("</div></div></main>\n");
+            html.append("<aside class=\"sidebar-right pinned\" id=\"sidebarRight\"><div class=\"sidebar-right-header\"><h3>On This Page</h3></div>");
+            html.append("<nav id=\"pageNavigation\" class=\"page-navigation\">\n");
+            String section = null;
+            for (Anchor anchor : onThisPage) {
+                if (!anchor.section().equals(section)) {
+                    if (section != null) html.append("</ul></div>\n");
+                    section = anchor.section();
+                    html.append("<div class=\"page-nav-section\"><div class=\"page-nav-title\"><i data-lucide=\"")
+                            .append(anchor.icon()).append("\"></i>");
+                    text(section);
+                    html.append("</div><ul class=\"page-nav-list\">\n");
+                }
+                html.append("<li><a class=\"page-nav-item\" href=\"#").append(anchor.id()).append("\">");
+                text(anchor.name());
+                html.append("</a></li>\n");
+            }
+            if (section != null) html.append("</ul></div>\n");
+            html.append("</nav></aside>\n</div>\n</div>\n");
+            html.append("<script>if (window.lucide) lucide.createIcons();</script>\n</body>\n</html>\n");
+            return html.toString();
+        }
+
+        /**
+         * All namespaces, with the classes and globals of the current one
+         */
+        private void navigation(NamespacePages current, int currentClass) {
+            for (NamespacePages pages : namespaces) {
+                html.append("<div class=\"nav-section\"><h3>");
+                link(null, pages.indexPage(), pages.namespace().name());
+                html.append("</h3>");
+                if (pages == current) {
+                    navigationClasses(pages, currentClass);
+                    LuaNamespace namespace = pages.namespace();
+                    if (!namespace.functions().isEmpty() || !namespace.fields().isEmpty()) {
+                        html.append("<h4 class=\"nav-subtitle\"><i data-lucide=\"globe\"></i>Globals</h4><ul class=\"nav-list\">");
+                        navigationItem("function", currentClass < 0, "globe", pages.indexPage(), "Globals and Fields");
+                        html.append("</ul>");
+                    }
+                }
+                html.append("</div>\n");
+            }
+        }
+
+        private void navigationClasses(NamespacePages pages, int currentClass) {
+            List<LuaClass> classes = pages.namespace().classes();
+            if (classes.isEmpty()) {
+                return;
+            }
+            int start = Math.max(0, Math.min(currentClass - SIDEBAR_CLASS_LIMIT / 2, classes.size() - SIDEBAR_CLASS_LIMIT));
+            int end = Math.min(classes.size(), start + SIDEBAR_CLASS_LIMIT);
+
+            html.append("<h4 class=\"nav-subtitle\"><i data-lucide=\"package\"></i>Classes</h4><ul class=\"nav-list\">");
+            for (int c = start; c < end; c++) {
+                LuaClass clazz = classes.get(c);
+                navigationItem("class", c == currentClass, "package", pages.classPages().get(c), clazz.name());
+            }
+            if (end - start < classes.size()) {
+                navigationItem("class", false, "list", pages.indexPage(), "All " + classes.size() + " classes");
+            }
+            html.append("</ul>");
+        }
+
+        private void navigationItem(String type, boolean active, String icon, String target, String name) {
+            html.append("<li><a class=\"nav-item nav-item-").append(type).append(active ? " active" : "")
+                    .append("\" href=\"").append(relative(target)).append("\"><i data-lucide=\"").append(icon).append("\"></i><span>");
+            text(name);
+            html.append("</span></a></li>");
+        }
+
+        private void docHeader(String name, String type, String namespaceName) {
+            html.append("<div class=\"doc-header\"><h1 class=\"doc-title\">");
+            text(name);
+            html.append("</h1><span class=\"doc-type ").append(labelClass(type)).append("\">");
+            text(type);
+            html.append("</span>");
+            if (namespaceName != null) {
+                html.append("<span class=\"doc-type ").append(labelClass(namespaceName)).append("\" style=\"margin-left: 0.5rem;\">");
+                text(namespaceName);
+                html.append("</span>");
+            }
+            html.append("</div>\n");
+        }
+
+        private void description(String description) {
+            html.append("<div class=\"description\">");
+            text(description);
+            html.append("</div>\n");
+        }
+
+        private void itemDescription(String description) {
+            html.append("<div class=\"item-description\">");
+            text(description);
+            html.append("</div>");
+        }
+
+        private void fields(String title, List<LuaField> fields, List<Anchor> onThisPage) {
+            if (fields.isEmpty()) {
+                return;
+            }
+            subsectionStart(title);
+            for (LuaField field : fields) {
+                String id = anchor("field-", field.name());
+                onThisPage.add(new Anchor(title, "box", field.name(), id));
+                html.append("<li class=\"item\" id=\"").append(id).append("\"><div class=\"item-header\"><i data-lucide=\"box\"></i><span class=\"item-name\">");
+                text(field.name());
+                html.append("</span>");
+                staticBadge(field.isStatic());
+                html.append("</div><div class=\"field-signature\"><div class=\"field-signature-content\"><span class=\"field-name\">");
+                text(field.name());
+                html.append("</span><span class=\"punctuation\">: </span>");
+                coloredType(field.type());
+                html.append("</div></div>");
+                field.description().ifPresent(this::itemDescription);
+                html.append("</li>\n");
+            }
+            html.append("</ul></div>\n");
+        }
+
+        private void functions(String title, List<LuaFunction> functions, List<Anchor> onThisPage) {
+            if (functions.isEmpty()) {
+                return;
+            }
+            subsectionStart(title);
+            for (LuaFunction function : functions) {
+                String id = anchor("function-", function.name());
+                onThisPage.add(new Anchor(title, "zap", function.name(), id));
+                html.append("<li class=\"item\" id=\"").append(id).append("\">");
+                function(function);
+                html.append("</li>\n");
+            }
+            html.append("</ul></div>\n");
+        }
+
+        private void function(LuaFunction function) {
+            html.append("<div class=\"item-header\"><i data-lucide=\"zap\"></i><span class=\"item-name\">");
+            text(function.name());
+            html.append("</span>");
+            staticBadge(function.isStatic());
+            html.append("</div>");
+
+            html.append("<div class=\"function-signature\"><div class=\"function-signature-content\">");
+            html.append("<span class=\"keyword\">function</span> <span class=\"function-name\">");
+            text(function.name());
+            html.append("</span><span class=\"punctuation\">(</span>");
+            for (int p = 0; p < function.parameters().size(); p++) {
+                LuaParameter param = function.parameters().get(p);
+                if (p > 0) html.append("<span class=\"punctuation\">, </span>");
+                html.append("<span class=\"param-name\">");
+                text(param.name());
+                html.append("</span><span class=\"punctuation\">: </span>");
+                coloredType(param.type() + (param.optional() ? "?" : ""));
+            }
+            html.append("<span class=\"punctuation\">)</span><span class=\"punctuation\">: </span><span class=\"return-type\">");
+            text(function.returns().isEmpty() ? "void"
+                    : String.join(", ", function.returns().stream().map(LuaReturnValue::type).toList()));
+            html.append("</span></div></div>");
+            function.description().ifPresent(this::itemDescription);
+
+            if (!function.parameters().isEmpty()) {
+                html.append("<div class=\"item-section\"><div class=\"item-section-title\"><i data-lucide=\"arrow-right\"></i>Parameters</div><ul class=\"param-list\">");
+                for (LuaParameter param : function.parameters()) {
+                    html.append("<li class=\"param-item\"><div class=\"param-header\"><span class=\"item-name\" style=\"font-size: 0.9rem;\">");
+                    text(param.name());
+                    html.append("</span>");
+                    typeElement(param.type() + (param.optional() ? "?" : ""));
+                    if (param.optional()) {
+                        html.append("<span class=\"item-badge optional\">optional</span>");
+                    }
+                    html.append("</div>");
+                    param.description().ifPresent(this::itemDescription);
+                    html.append("</li>");
+                }
+                html.append("</ul></div>");
+            }
+
+            if (!function.returns().isEmpty()) {
+                html.append("<div class=\"item-section\"><div class=\"item-section-title\"><i data-lucide=\"corner-down-left\"></i>Returns</div><ul class=\"return-list\">");
+                for (LuaReturnValue returnValue : function.returns()) {
+                    html.append("<li class=\"return-item\"><div class=\"return-header\">");
+                    typeElement(returnValue.type());
+                    html.append("</div>");
+                    returnValue.description().ifPresent(this::itemDescription);
+                    html.append("</li>");
+                }
+                html.append("</ul></div>");
+            }
+        }
+
+        private void subsectionStart(String title) {
+            html.append("<div class=\"subsection\"><h2 class=\"subsection-title\">");
+            text(title);
+            html.append("</h2><ul class=\"item-list\">\n");
+        }
+
+        private void staticBadge(boolean isStatic) {
+            if (isStatic) {
+                html.append("<span class=\"item-badge static\">static</span>");
+            }
+        }
+
+        private void coloredType(String type) {
+            html.append("<span style=\"color: ").append(typeColor(type)).append("\">");
+            text(type);
+            html.append("</span>");
+        }
+
+        /**
+         * A type with every part that names a class linked to its page, like the viewer's clickable types
+         */
+        private void typeElement(String type) {
+            List<SymbolIndex.TypeRef> refs = symbols.resolve(namespace, type);
+            html.append("<span class=\"item-type\">");
+            int offset = 0;
+            for (String token : type.split("(?=[|&<>,])|(?<=[|&<>,])")) {
+                int start = offset;
+                offset += token.length();
+                String part = token.trim();
+                if (part.isEmpty()) {
+                    continue;
+                }
+                if (part.equals("|") || part.equals("&")) {
+                    html.append("<span class=\"type-separator\"> ").append(part).append(" </span>");
+                } else if (part.equals("<") || part.equals(">") || part.equals(",")) {
+                    html.append("<span class=\"type-separator\">");
+                    text(part);
+                    html.append("</span>");
+                } else {
+                    String className = part.endsWith("?") ? part.substring(0, part.length() - 1) : part;
+                    String page = null;
+                    for (SymbolIndex.TypeRef ref : refs) {
+                        if (ref.start() >= start && ref.end() <= offset) {
+                            page = classPages.get(ref.symbol());
+                            className = symbols.symbol(ref.symbol()).name();
+                            break;
+                        }
+                    }
+                    if (page != null) {
+                        html.append("<a class=\"type-token clickable-type\" href=\"").append(relative(page))
+                                .append("\" style=\"cursor: pointer; text-decoration: underline dotted; color: var(--accent);\" title=\"Click to view ");
+                        text(className);
+                        html.append("\">");
+                        text(part);
+                        html.append("</a>");
+                    } else {
+                        html.append("<span class=\"type-token\" style=\"color: ").append(typeColor(className)).append(";\">");
+                        text(part);
+                        html.append("</span>");
+                    }
+                }
+            }
+            html.append("</span>");
+        }
+
+        private void link(String cssClass, String target, String text) {
+            html.append("<a");
+            if (cssClass != null) html.append(" class=\"").append(cssClass).append("\"");
+            html.append(" href=\"").append(relative(target)).append("\">");
+            text(text);
+            html.append("</a>");
+        }
+
+        private String relative(String target) {
+            return root + target;
+        }
+
+        /**
+         * Unique id of an item on this page
+         */
+        private String anchor(String prefix, String name) {
+            String base = prefix + name.replaceAll("[^A-Za-z0-9_-]", "_");
+            String id = base;
+            for (int suffix = 2; !anchors.add(id); suffix++) {
+                id = base + "-" + suffix;
+            }
+            return id;
+        }
+
+        /**
+         * Append text, escaped for element content and attribute values
+         */
+        private void text(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '&' -> html.append("&amp;");
+                    case '<' -> html.append("&lt;");
+                    case '>' -> html.append("&gt;");
+                    case '"' -> html.append("&quot;");
+                    case '\'' -> html.append("&#39;");
+                    default -> html.append(c);
+                }
+            }
+        }
+
+        private static String typeColor(String type) {
+            String name = type.toLowerCase(Locale.ROOT);
+            if (name.endsWith("?")) name = name.substring(0, name.length() - 1);
+            return TYPE_COLORS.getOrDefault(name, "var(--type-userdata)");
+        }
+
+        private static String labelClass(String type) {
+            String name = type.toLowerCase(Locale.ROOT);
+            return LABEL_CLASSES.contains(name) ? "type-" + name : "type-namespace";
+        }
+    }
+}
@@ -2,10 +2,23 @@ package org.xgen.lua.doc.generator.write;
 
 import org.xgen.lua.doc.generator.doc.*;
 
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
 public class JsonExport {
+
+    /** Size of the character buffer between the exporter and the target writer */
+    static final int BUFFER_SIZE = 8192;
+    /** Deepest nesting level used by the export, deeper levels are still supported but not cached */
+    private static final int CACHED_INDENT_LEVELS = 16;
     
     private final boolean prettyPrint;
     private final String indent;
+    private final String[] indents = new String[CACHED_INDENT_LEVELS];
     
     public JsonExport() {
         this(true);
@@ -14,13 +27,72 @@ public class JsonExport {
     public JsonExport(boolean prettyPrint) {
         this.prettyPrint = prettyPrint;
         this.indent = prettyPrint ? "  " : "";
+        for (int level = 0; level < CACHED_INDENT_LEVELS; level++) {
+            indents[level] = indent.repeat(level);
+        }
     }
     
     /**
      * Export a LuaDoc to JSON format
      */
     public String export(LuaDoc doc) {
-        StringBuilder json = new StringBuilder();
+        StringWriter writer = new StringWriter();
+        try {
+            export(doc, writer);
+        } catch (IOException e) {
+            // StringWriter does not throw
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Export a LuaDoc as UTF-8 encoded JSON to a stream. The stream is flushed but not closed.
+     */
+    public void export(LuaDoc doc, OutputStream out) throws IOException {
+        export(doc, SymbolIndex.of(doc), out);
+    }
+
+    /**
+     * Export a LuaDoc as UTF-8 encoded JSON to a stream, see {@link #export(LuaDoc, SymbolIndex, Writer)}
+     */
+    public void export(LuaDoc doc, SymbolIndex symbols, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        export(doc, symbols, writer);
+        writer.flush();
+    }
+
+    /**
+     * Export a LuaDoc as UTF-8 encoded JSON to a channel. The channel is not closed.
+     */
+    public void export(LuaDoc doc, WritableByteChannel channel) throws IOException {
+        Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8);
+        export(doc, writer);
+        writer.flush();
+    }
+
+    /**
+     * Export a LuaDoc as JSON to a writer. The document is written through a fixed size
+     * buffer while it is generated, it is never held in memory as a whole. The writer is
+     * flushed but not closed.
+     * <p>
+     * The {@link SymbolIndex symbols} of the doc follow the namespaces, as
+     * {@code [kind, namespace, class, name, file, line]} by id, with {@code null} file and line
+     * if the source of the declaration is not known. Fields, parameters and return values whose
+     * type names classes list them in {@code typeRefs} as {@code [start, end, id]}.
+     */
+    public void export(LuaDoc doc, Writer writer) throws IOException {
+        export(doc, SymbolIndex.of(doc), writer);
+    }
+
+    /**
+     * Export a LuaDoc as JSON to a writer, with the symbols of an index that was built for it
+     * before, so all outputs of a doc share one index. The index may also be the one of a larger
+     * doc the given one is a part of: ids, parents and inherited members are then resolved in the
+     * larger doc, and its whole symbol table is written.
+     */
+    public void export(LuaDoc doc, SymbolIndex symbols, Writer writer) throws IOException {
+        JsonOutput json = new JsonOutput(writer, BUFFER_SIZE);
         json.append("{");
         if (prettyPrint) json.append("\n");
         
@@ -35,18 +107,84 @@ public class JsonExport {
                 if (prettyPrint) json.append("\n");
             }
             firstNamespace = false;
-            appendNamespace(json, namespace, 2);
+            appendNamespace(json, namespace, 2, symbols);
         }
         
         if (prettyPrint) json.append("\n").append(indent(1));
-        json.append("]");
+        json.append("],");
+        if (prettyPrint) json.append("\n");
+        appendSymbols(json, symbols, 1);
         if (prettyPrint) json.append("\n");
         json.append("}");
-        
-        return json.toString();
+        json.flush();
     }
     
-    private void appendNamespace(StringBuilder json, LuaNamespace namespace, int level) {
+    /**
+     * The symbols of a doc as {@code "symbols": [[kind, namespace, class, name, file, line], ...]}, one per line
+     */
+    void appendSymbols(JsonOutput json, SymbolIndex symbols, int level) throws IOException {
+        appendKey(json, "symbols", level);
+        json.append("[");
+        if (prettyPrint) json.append("\n");
+        boolean first = true;
+        for (SymbolIndex.Symbol symbol : symbols.symbols()) {
+            if (!first) {
+                json.append(",");
+                if (prettyPrint) json.append("\n");
+            }
+            first = false;
+            json.append(indent(level + 1)).append("[").appendString(symbol.kind().label());
+            json.append(prettyPrint ? ", " : ",").appendString(symbol.namespace());
+            json.append(prettyPrint ? ", " : ",").appendString(symbol.owner());
+            json.append(prettyPrint ? ", " : ",").appendString(symbol.name());
+            Optional<SourceLocation> source = symbols.source(symbol.id());
+            json.append(prettyPrint ? ", " : ",").appendString(source.map(SourceLocation::file).orElse(null));
+            json.append(prettyPrint ? ", " : ",").append(source.map(location -> String.valueOf(location.line())).orElse("null"));
+            json.append("]");
+        }
+        if (prettyPrint) json.append("\n").append(indent(level));
+        json.append("]");
+    }
+
+    /**
+     * {@code "typeRefs": [[start, end, id], ...],} for a type that names classes, nothing otherwise
+     */
+    private void appendTypeRefs(JsonOutput json, SymbolIndex symbols, String namespace, String type, int level) throws IOException {
+        List<SymbolIndex.TypeRef> refs = symbols.resolve(namespace, type);
+        if (refs.isEmpty()) {
+            return;
+        }
+        appendKey(json, "typeRefs", level);
+        json.append("[");
+        for (int i = 0; i < refs.size(); i++) {
+            SymbolIndex.TypeRef ref = refs.get(i);
+            if (i > 0) json.append(prettyPrint ? ", " : ",");
+            json.append("[").append(String.valueOf(ref.start()));
+            json.append(prettyPrint ? ", " : ",").append(String.valueOf(ref.end()));
+            json.append(prettyPrint ? ", " : ",").append(String.valueOf(ref.symbol())).append("]");
+        }
+        json.append("],");
+        if (prettyPrint) json.append("\n");
+    }
+    
+    /**
+     * {@code "key": [id, ...],} for a non-empty list of symbols, nothing otherwise
+     */
+    private void appendIds(JsonOutput json, String key, List<SymbolIndex.Symbol> ids, int level) throws IOException {
+        if (ids.isEmpty()) {
+            return;
+        }
+        appendKey(json, key, level);
+        json.append("[");
+        for (int i = 0; i < ids.size(); i++) {
+            if (i > 0) json.append(prettyPrint ? ", " : ",");
+            json.append(String.valueOf(ids.get(i).id()));
+        }
+        json.append("],");
+        if (prettyPrint) json.append("\n");
+    }
+    
+    void appendNamespace(JsonOutput json, LuaNamespace namespace, int level, SymbolIndex symbols) throws IOException {
         json.append(indent(level)).append("{");
         if (prettyPrint) json.append("\n");
         
@@ -66,7 +204,7 @@ public class JsonExport {
                 if (prettyPrint) json.append("\n");
             }
             firstClass = false;
-            appendClass(json, clazz, level + 2);
+            appendClass(json, clazz, level + 2, namespace.name(), symbols);
         }
         
         if (prettyPrint) json.append("\n").append(indent(level + 1));
@@ -86,7 +224,7 @@ public class JsonExport {
                 if (prettyPrint) json.append("\n");
             }
             firstFunc = false;
-            appendFunction(json, function, level + 2);
+            appendFunction(json, function, level + 2, namespace.name(), symbols);
         }
         
         if (prettyPrint) json.append("\n").append(indent(level + 1));
@@ -106,7 +244,7 @@ public class JsonExport {
                 if (prettyPrint) json.append("\n");
             }
             firstField = false;
-            appendField(json, field, level + 2);
+            appendField(json, field, level + 2, namespace.name(), symbols);
         }
         
         if (prettyPrint) json.append("\n").append(indent(level + 1));
@@ -116,22 +254,37 @@ public class JsonExport {
         json.append(indent(level)).append("}");
     }
     
-    private void appendClass(StringBuilder json, LuaClass clazz, int level) {
+    void appendClass(JsonOutput json, LuaClass clazz, int level, String namespace, SymbolIndex symbols) throws IOException {
         json.append(indent(level)).append("{");
         if (prettyPrint) json.append("\n");
         
         appendKeyValue(json, "name", clazz.name(), level + 1);
         json.append(",");
         if (prettyPrint) json.append("\n");
+
+        if (clazz.parent().isPresent()) {
+            appendKeyValue(json, "parent", clazz.parent().get(), level + 1);
+            json.append(",");
+            if (prettyPrint) json.append("\n");
+        }
         
         appendKey(json, "description", level + 1);
         if (clazz.description().isPresent()) {
-            json.append(escapeJson(clazz.description().get()));
+            json.appendString(clazz.description().get());
         } else {
             json.append("null");
         }
         json.append(",");
         if (prettyPrint) json.append("\n");
+
+        Optional<SymbolIndex.Symbol> symbol = symbols.lookup(namespace + "/" + clazz.name());
+        if (symbol.isPresent()) {
+            ClassHierarchy hierarchy = symbols.hierarchy();
+            ClassHierarchy.Members members = hierarchy.members(symbol.get());
+            appendIds(json, "ancestors", hierarchy.ancestors(symbol.get()), level + 1);
+            appendIds(json, "inheritedFields", members.inheritedFields(), level + 1);
+            appendIds(json, "inheritedFunctions", members.inheritedFunctions(), level + 1);
+        }
         
         // Fields
         appendKey(json, "fields", level + 1);
@@ -145,7 +298,7 @@ public class JsonExport {
                 if (prettyPrint) json.append("\n");
             }
             firstField = false;
-            appendField(json, field, level + 2);
+            appendField(json, field, level + 2, namespace, symbols);
         }
         
         if (prettyPrint) json.append("\n").append(indent(level + 1));
@@ -165,7 +318,7 @@ public class JsonExport {
                 if (prettyPrint) json.append("\n");
             }
             firstFunc = false;
-            appendFunction(json, function, level + 2);
+            appendFunction(json, function, level + 2, namespace, symbols);
         }
         
         if (prettyPrint) json.append("\n").append(indent(level + 1));
@@ -175,7 +328,7 @@ public class JsonExport {
         json.append(indent(level)).append("}");
     }
     
-    private void appendField(StringBuilder json, LuaField field, int level) {
+    private void appendField(JsonOutput json, LuaField field, int level, String namespace, SymbolIndex symbols) throws IOException {
         json.append(indent(level)).append("{");
         if (prettyPrint) json.append("\n");
         
@@ -186,6 +339,7 @@ public class JsonExport {
         appendKeyValue(json, "type", field.type(), level + 1);
         json.append(",");
         if (prettyPrint) json.append("\n");
+        appendTypeRefs(json, symbols, namespace, field.type(), level + 1);
         
         appendKey(json, "isStatic", level + 1);
         json.append(field.isStatic());
@@ -194,7 +348,7 @@ public class JsonExport {
         
         appendKey(json, "description", level + 1);
         if (field.description().isPresent()) {
-            json.append(escapeJson(field.description().get()));
+            json.appendString(field.description().get());
         } else {
             json.append("null");
         }
@@ -203,7 +357,7 @@ public class JsonExport {
         json.append(indent(level)).append("}");
     }
     
-    private void appendFunction(StringBuilder json, LuaFunction function, int level) {
+    void appendFunction(JsonOutput json, LuaFunction function, int level, String namespace, SymbolIndex symbols) throws IOException {
         json.append(indent(level)).append("{");
         if (prettyPrint) json.append("\n");
         
@@ -218,7 +372,7 @@ public class JsonExport {
         
         appendKey(json, "description", level + 1);
         if (function.description().isPresent()) {
-            json.append(escapeJson(function.description().get()));
+            json.appendString(function.description().get());
         } else {
             json.append("null");
         }
@@ -237,7 +391,7 @@ public class JsonExport {
                 if (prettyPrint) json.append("\n");
             }
             firstParam = false;
-            appendParameter(json, param, level + 2);
+            appendParameter(json, param, level + 2, namespace, symbols);
         }
         
         if (prettyPrint) json.append("\n").append(indent(level + 1));
@@ -257,7 +411,7 @@ public class JsonExport {
                 if (prettyPrint) json.append("\n");
             }
             firstReturn = false;
-            appendReturnValue(json, returnValue, level + 2);
+            appendReturnValue(json, returnValue, level + 2, namespace, symbols);
         }
         
         if (prettyPrint) json.append("\n").append(indent(level + 1));
@@ -267,7 +421,7 @@ public class JsonExport {
         json.append(indent(level)).append("}");
     }
     
-    private void appendParameter(StringBuilder json, LuaParameter param, int level) {
+    private void appendParameter(JsonOutput json, LuaParameter param, int level, String namespace, SymbolIndex symbols) throws IOException {
         json.append(indent(level)).append("{");
         if (prettyPrint) json.append("\n");
         
@@ -278,6 +432,7 @@ public class JsonExport {
         appendKeyValue(json, "type", param.type(), level + 1);
         json.append(",");
         if (prettyPrint) json.append("\n");
+        appendTypeRefs(json, symbols, namespace, param.type(), level + 1);
         
         appendKey(json, "optional", level + 1);
         json.append(param.optional());
@@ -286,7 +441,7 @@ public class JsonExport {
         
         appendKey(json, "description", level + 1);
         if (param.description().isPresent()) {
-            json.append(escapeJson(param.description().get()));
+            json.appendString(param.description().get());
         } else {
             json.append("null");
         }
@@ -295,13 +450,14 @@ public class JsonExport {
         json.append(indent(level)).append("}");
     }
     
-    private void appendReturnValue(StringBuilder json, LuaReturnValue returnValue, int level) {
+    private void appendReturnValue(JsonOutput json, LuaReturnValue returnValue, int level, String namespace, SymbolIndex symbols) throws IOException {
         json.append(indent(level)).append("{");
         if (prettyPrint) json.append("\n");
         
         appendKeyValue(json, "type", returnValue.type(), level + 1);
         json.append(",");
         if (prettyPrint) json.append("\n");
+        appendTypeRefs(json, symbols, namespace, returnValue.type(), level + 1);
         
         appendKeyValue(json, "name", returnValue.name(), level + 1);
         json.append(",");
@@ -309,7 +465,7 @@ public class JsonExport {
         
         appendKey(json, "description", level + 1);
         if (returnValue.description().isPresent()) {
-            json.append(escapeJson(returnValue.description().get()));
+            json.appendString(returnValue.description().get());
         } else {
             json.append("null");
         }
@@ -318,46 +474,18 @@ public class JsonExport {
         json.append(indent(level)).append("}");
     }
     
-    private void appendKey(StringBuilder json, String key, int level) {
+    void appendKey(JsonOutput json, String key, int level) throws IOException {
         json.append(indent(level)).append("\"").append(key).append("\":");
         if (prettyPrint) json.append(" ");
     }
     
-    private void appendKeyValue(StringBuilder json, String key, String value, int level) {
+    void appendKeyValue(JsonOutput json, String key, String value, int level) throws IOException {
         appendKey(json, key, level);
-        json.append(escapeJson(value));
+        json.appendString(value);
     }
     
-    private String indent(int level) {
+    String indent(int level) {
         if (!prettyPrint) return "";
-        return indent.repeat(level);
-    }
-    
-    private String escapeJson(String value) {
-        if (value == null) {
-            return "null";
-        }
-        
-        StringBuilder escaped = new StringBuilder("\"");
-        for (char c : value.toCharArray()) {
-            switch (c) {
-                case '"' -> escaped.append("\\\"");
-                case '\\' -> escaped.append("\\\\");
-                case '\b' -> escaped.append("\\b");
-                case '\f' -> escaped.append("\\f");
-                case '\n' -> escaped.append("\\n");
-                case '\r' -> escaped.append("\\r");
-                case '\t' -> escaped.append("\\t");
-                default -> {
-                    if (c < 0x20 || c == 0x7F) {
-                        escaped.append(String.format("\\u%04x", (int) c));
-                    } else {
-                        escaped.append(c);
-                    }
-                }
-            }
-        }
-        escaped.append("\"");
-        return escaped.toString();
+        return level < CACHED_INDENT_LEVELS ? indents[level] : indent.repeat(level);
     }
 }
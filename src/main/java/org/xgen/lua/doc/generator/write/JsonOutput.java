@@ -0,0 +1,136 @@
+package org.xgen.lua.doc.generator.write;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Fixed size character buffer in front of a {@link Writer}. Unlike a {@link java.io.BufferedWriter}
+ * it is not synchronized and offers the chaining {@code append} style of a {@link StringBuilder}.
+ * <p>
+ * The JSON string escaping is also available for small documents built in a {@link StringBuilder},
+ * see {@link #appendString(StringBuilder, String)}.
+ */
+public final class JsonOutput {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer writer;
+    private final char[] buffer;
+    private int position;
+
+    JsonOutput(Writer writer, int bufferSize) {
+        this.writer = writer;
+        this.buffer = new char[bufferSize];
+    }
+
+    JsonOutput append(String value) throws IOException {
+        appendRange(value, 0, value.length());
+        return this;
+    }
+
+    /**
+     * Append a value as a quoted and escaped JSON string, or {@code null} if the value is null.
+     * Runs of characters that need no escaping are copied into the buffer in bulk.
+     */
+    JsonOutput appendString(String value) throws IOException {
+        if (value == null) {
+            return append("null");
+        }
+        append('"');
+        int length = value.length();
+        int runStart = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (!needsEscape(c)) {
+                continue;
+            }
+            appendRange(value, runStart, i);
+            append(escape(c));
+            runStart = i + 1;
+        }
+        appendRange(value, runStart, length);
+        return append('"');
+    }
+
+    /**
+     * Append a value as a quoted and escaped JSON string to a builder, or {@code null} if the
+     * value is null. Escapes the same characters as {@link #appendString(String)}.
+     */
+    public static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        int length = value.length();
+        int runStart = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (!needsEscape(c)) {
+                continue;
+            }
+            json.append(value, runStart, i).append(escape(c));
+            runStart = i + 1;
+        }
+        json.append(value, runStart, length).append('"');
+    }
+
+    JsonOutput append(char value) throws IOException {
+        if (position == buffer.length) {
+            flushBuffer();
+        }
+        buffer[position++] = value;
+        return this;
+    }
+
+    JsonOutput append(boolean value) throws IOException {
+        return append(value ? "true" : "false");
+    }
+
+    /**
+     * Write out the buffer and flush the underlying writer
+     */
+    void flush() throws IOException {
+        flushBuffer();
+        writer.flush();
+    }
+
+    private void appendRange(String value, int start, int end) throws IOException {
+        while (start < end) {
+            if (position == buffer.length) {
+                flushBuffer();
+            }
+            int count = Math.min(end - start, buffer.length - position);
+            value.getChars(start, start + count, buffer, position);
+            position += count;
+            start += count;
+        }
+    }
+
+    private static boolean needsEscape(char c) {
+        return c < 0x20 || c == '"' || c == '\\' || c == 0x7F;
+    }
+
+    /**
+     * The escape sequence of a character for which {@link #needsEscape(char)} holds
+     */
+    private static String escape(char c) {
+        return switch (c) {
+            case '"' -> "\\\"";
+            case '\\' -> "\\\\";
+            case '\b' -> "\\b";
+            case '\f' -> "\\f";
+            case '\n' -> "\\n";
+            case '\r' -> "\\r";
+            case '\t' -> "\\t";
+            // Remaining control characters and DEL, all below 0x80
+            default -> new String(new char[] {'\\', 'u', '0', '0', HEX[(c >> 4) & 0xF], HEX[c & 0xF]});
+        };
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            writer.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
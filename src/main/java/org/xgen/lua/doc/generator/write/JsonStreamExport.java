@@ -0,0 +1,189 @@
+package org.xgen.lua.doc.generator.write;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.xgen.lua.doc.generator.doc.LuaClass;
+import org.xgen.lua.doc.generator.doc.LuaField;
+import org.xgen.lua.doc.generator.doc.LuaFunction;
+import org.xgen.lua.doc.generator.doc.SourceLocation;
+import org.xgen.lua.doc.generator.doc.SymbolIndex;
+import org.xgen.lua.doc.generator.process.DocSink;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Writes the JSON export of a single source file while it is parsed, in the format of
+ * {@link JsonExport}, with everything in the "global" namespace. Pass it to
+ * {@link org.xgen.lua.doc.generator.process.DocParser#parse(DocSink)} and call {@link #finish()}
+ * once the parser is done.
+ * <p>
+ * Declarations of the same class that follow each other are merged and the class is written
+ * once the next class starts, so only one class is held in memory. A class whose declarations
+ * are spread over the file is written as several entries of the same name, which readers merge
+ * by name. Global functions come after the classes in the format, they are written to a
+ * temporary file until the classes are done. Types are not resolved, the classes of the file
+ * are not known until its end, so the export has no symbols and no typeRefs.
+ */
+public class JsonStreamExport implements DocSink, Closeable {
+
+    private static final int CLASS_LEVEL = 4;
+    private static final int FUNCTION_LEVEL = 4;
+
+    private final JsonExport format;
+    private final boolean prettyPrint;
+    private final Writer writer;
+    private final JsonOutput json;
+    private LuaClass.Builder openClass;
+    private boolean firstClass = true;
+
+    private Path functionsFile;
+    private Writer functionsWriter;
+    private JsonOutput functions;
+    private boolean finished;
+
+    /**
+     * Start the document. The writer is flushed but not closed.
+     */
+    public JsonStreamExport(Writer writer, boolean prettyPrint) throws IOException {
+        this.format = new JsonExport(prettyPrint);
+        this.prettyPrint = prettyPrint;
+        this.writer = writer;
+        this.json = new JsonOutput(writer, JsonExport.BUFFER_SIZE);
+
+        json.append("{");
+        if (prettyPrint) json.append("\n");
+        format.appendKey(json, "namespaces", 1);
+        json.append("[");
+        if (prettyPrint) json.append("\n");
+        json.append(format.indent(2)).append("{");
+        if (prettyPrint) json.append("\n");
+        format.appendKeyValue(json, "name", "global", 3);
+        json.append(",");
+        if (prettyPrint) json.append("\n");
+        format.appendKey(json, "classes", 3);
+        json.append("[");
+        if (prettyPrint) json.append("\n");
+    }
+
+    @Override
+    public void classDeclared(@NotNull String name, @Nullable String parent, @Nullable String description, @NotNull List<LuaField> fields,
+                              @Nullable SourceLocation source) throws IOException {
+        LuaClass.Builder classBuilder = classBuilder(name);
+        if (classBuilder.getParent() == null) {
+            classBuilder.parent(parent);
+        }
+        if (classBuilder.getSource() == null) {
+            classBuilder.source(source);
+        }
+        classBuilder.description(description);
+        for (LuaField field : fields) {
+            classBuilder.addField(field);
+        }
+    }
+
+    @Override
+    public void field(@NotNull String className, @NotNull LuaField field) throws IOException {
+        classBuilder(className).addField(field);
+    }
+
+    @Override
+    public void function(@Nullable String className, @NotNull LuaFunction function) throws IOException {
+        if (className != null) {
+            classBuilder(className).addFunction(function);
+            return;
+        }
+        if (functions == null) {
+            functionsFile = Files.createTempFile("luadoc-functions", ".json");
+            functionsWriter = Files.newBufferedWriter(functionsFile, StandardCharsets.UTF_8);
+            functions = new JsonOutput(functionsWriter, JsonExport.BUFFER_SIZE);
+        } else {
+            functions.append(",");
+            if (prettyPrint) functions.append("\n");
+        }
+        format.appendFunction(functions, function, FUNCTION_LEVEL, "global", SymbolIndex.EMPTY);
+    }
+
+    private LuaClass.Builder classBuilder(String name) throws IOException {
+        if (openClass == null || !openClass.getName().equals(name)) {
+            writeOpenClass();
+            openClass = new LuaClass.Builder().name(name);
+        }
+        return openClass;
+    }
+
+    private void writeOpenClass() throws IOException {
+        if (openClass == null) {
+            return;
+        }
+        if (!firstClass) {
+            json.append(",");
+            if (prettyPrint) json.append("\n");
+        }
+        firstClass = false;
+        format.appendClass(json, openClass.build(), CLASS_LEVEL, "global", SymbolIndex.EMPTY);
+        openClass = null;
+    }
+
+    /**
+     * Write the rest of the document and flush the writer
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            throw new IllegalStateException("Export already finished");
+        }
+        finished = true;
+        writeOpenClass();
+
+        if (prettyPrint) json.append("\n").append(format.indent(3));
+        json.append("]");
+        json.append(",");
+        if (prettyPrint) json.append("\n");
+
+        format.appendKey(json, "functions", 3);
+        json.append("[");
+        if (prettyPrint) json.append("\n");
+        if (functions != null) {
+            functions.flush();
+            functionsWriter.close();
+            json.flush();
+            try (Reader reader = Files.newBufferedReader(functionsFile, StandardCharsets.UTF_8)) {
+                reader.transferTo(writer);
+            }
+        }
+        if (prettyPrint) json.append("\n").append(format.indent(3));
+        json.append("]");
+        json.append(",");
+        if (prettyPrint) json.append("\n");
+
+        // Namespace fields are never declared by a single file
+        format.appendKey(json, "fields", 3);
+        json.append("[");
+        if (prettyPrint) json.append("\n");
+        if (prettyPrint) json.append("\n").append(format.indent(3));
+        json.append("]");
+        if (prettyPrint) json.append("\n");
+        json.append(format.indent(2)).append("}");
+
+        if (prettyPrint) json.append("\n").append(format.indent(1));
+        json.append("]");
+        if (prettyPrint) json.append("\n");
+        json.append("}");
+        json.flush();
+    }
+
+    /**
+     * Delete the temporary file of the global functions. The writer is not closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (functionsFile != null) {
+            functionsWriter.close();
+            Files.deleteIfExists(functionsFile);
+            functionsFile = null;
+        }
+    }
+}
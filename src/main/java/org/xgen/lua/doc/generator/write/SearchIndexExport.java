@@ -0,0 +1,184 @@
+package org.xgen.lua.doc.generator.write;
+
+import org.xgen.lua.doc.generator.doc.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Writes the search index the viewer queries instead of scanning the whole doc on every
+ * keystroke. It lists every class, function and field of the doc, class members included, as
+ * {@code [name, kind, namespace, class]} sorted by lowercased name, so name prefixes are found
+ * by binary search. Two inverted indexes map to positions in that list:
+ * <ul>
+ *     <li>{@code trigrams}: every three character substring of the lowercased names, for
+ *     substring search</li>
+ *     <li>{@code words}: the words of the descriptions, lowercased and sorted, for prefix
+ *     search in descriptions</li>
+ * </ul>
+ * Positions in both indexes are in ascending order. The index is written without whitespace.
+ */
+public class SearchIndexExport {
+
+    /** Value of the "format" key of the index */
+    public static final String FORMAT = "luadoc-search";
+    /** Bump when the layout of the index changes */
+    public static final int FORMAT_VERSION = 1;
+    /** Name of the index in a sharded output directory */
+    public static final String SHARDED_INDEX_FILE = "search.json";
+
+    private static final int GRAM_LENGTH = 3;
+    private static final int MIN_WORD_LENGTH = 2;
+
+    private record Symbol(String name, String key, String kind, String namespace, String owner, String description) { }
+
+    private static final Comparator<Symbol> ORDER = Comparator.comparing(Symbol::key)
+            .thenComparing(Symbol::namespace)
+            .thenComparing(Symbol::owner, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Symbol::kind);
+
+    /**
+     * Path of the index that belongs to a JSON export: {@code docs.json} gets {@code docs.search.json}
+     */
+    public static Path indexPath(Path jsonOutput) {
+        String fileName = jsonOutput.getFileName().toString();
+        String baseName = fileName.toLowerCase(Locale.ROOT).endsWith(".json")
+                ? fileName.substring(0, fileName.length() - ".json".length())
+                : fileName;
+        return jsonOutput.resolveSibling(baseName + ".search.json");
+    }
+
+    /**
+     * Export the search index of a LuaDoc as UTF-8 encoded JSON to a stream. The stream is
+     * flushed but not closed.
+     */
+    public void export(LuaDoc doc, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        export(doc, writer);
+        writer.flush();
+    }
+
+    /**
+     * Export the search index of a LuaDoc to a writer. The writer is flushed but not closed.
+     */
+    public void export(LuaDoc doc, Writer writer) throws IOException {
+        List<Symbol> symbols = collectSymbols(doc);
+        symbols.sort(ORDER);
+
+        Map<String, List<Integer>> trigrams = new TreeMap<>();
+        Map<String, List<Integer>> words = new TreeMap<>();
+        for (int id = 0; id < symbols.size(); id++) {
+            Symbol symbol = symbols.get(id);
+            for (String gram : grams(symbol.key())) {
+                trigrams.computeIfAbsent(gram, key -> new ArrayList<>()).add(id);
+            }
+            for (String word : words(symbol.description())) {
+                words.computeIfAbsent(word, key -> new ArrayList<>()).add(id);
+            }
+        }
+
+        JsonOutput json = new JsonOutput(writer, JsonExport.BUFFER_SIZE);
+        json.append("{\"format\":").appendString(FORMAT);
+        json.append(",\"version\":").append(String.valueOf(FORMAT_VERSION));
+
+        json.append(",\"symbols\":[");
+        for (int id = 0; id < symbols.size(); id++) {
+            Symbol symbol = symbols.get(id);
+            if (id > 0) json.append(',');
+            json.append('[').appendString(symbol.name());
+            json.append(',').appendString(symbol.kind());
+            json.append(',').appendString(symbol.namespace());
+            json.append(',').appendString(symbol.owner());
+            json.append(']');
+        }
+
+        json.append("],\"trigrams\":{");
+        boolean first = true;
+        for (Map.Entry<String, List<Integer>> entry : trigrams.entrySet()) {
+            if (!first) json.append(',');
+            first = false;
+            json.appendString(entry.getKey()).append(':');
+            appendIds(json, entry.getValue());
+        }
+
+        json.append("},\"words\":[");
+        first = true;
+        for (Map.Entry<String, List<Integer>> entry : words.entrySet()) {
+            if (!first) json.append(',');
+            first = false;
+            json.append('[').appendString(entry.getKey()).append(',');
+            appendIds(json, entry.getValue());
+            json.append(']');
+        }
+        json.append("]}");
+        json.flush();
+    }
+
+    private static List<Symbol> collectSymbols(LuaDoc doc) {
+        List<Symbol> symbols = new ArrayList<>();
+        for (LuaNamespace namespace : doc.namespaces()) {
+            String ns = namespace.name();
+            for (LuaClass clazz : namespace.classes()) {
+                symbols.add(symbol(clazz.name(), "class", ns, null, clazz.description()));
+                for (LuaField field : clazz.fields()) {
+                    symbols.add(symbol(field.name(), "field", ns, clazz.name(), field.description()));
+                }
+                for (LuaFunction function : clazz.functions()) {
+                    symbols.add(symbol(function.name(), "function", ns, clazz.name(), function.description()));
+                }
+            }
+            for (LuaFunction function : namespace.functions()) {
+                symbols.add(symbol(function.name(), "function", ns, null, function.description()));
+            }
+            for (LuaField field : namespace.fields()) {
+                symbols.add(symbol(field.name(), "field", ns, null, field.description()));
+            }
+        }
+        return symbols;
+    }
+
+    private static Symbol symbol(String name, String kind, String namespace, String owner, Optional<String> description) {
+        return new Symbol(name, name.toLowerCase(Locale.ROOT), kind, namespace, owner, description.orElse(null));
+    }
+
+    /**
+     * Distinct substrings of the gram length, a key shorter than that has none
+     */
+    private static Set<String> grams(String key) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= key.length(); i++) {
+            grams.add(key.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    /**
+     * Distinct lowercased words of a description, split at everything but letters, digits and underscores
+     */
+    private static Set<String> words(String description) {
+        Set<String> words = new LinkedHashSet<>();
+        if (description == null) {
+            return words;
+        }
+        for (String word : description.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}_]+")) {
+            if (word.length() >= MIN_WORD_LENGTH) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static void appendIds(JsonOutput json, List<Integer> ids) throws IOException {
+        json.append('[');
+        for (int i = 0; i < ids.size(); i++) {
+            if (i > 0) json.append(',');
+            json.append(String.valueOf(ids.get(i)));
+        }
+        json.append(']');
+    }
+}
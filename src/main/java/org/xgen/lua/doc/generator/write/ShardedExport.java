@@ -0,0 +1,290 @@
+package org.xgen.lua.doc.generator.write;
+
+import org.xgen.lua.doc.generator.doc.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Writes a doc as a small manifest and one JSON shard per namespace, so the viewer only loads
+ * the namespace that is opened instead of the whole doc. Namespaces with more members than the
+ * split threshold get one shard per class instead, next to a shard with their global functions
+ * and fields.
+ * <p>
+ * Layout of the output directory:
+ * <pre>
+ * manifest.json                       names of all namespaces, classes, functions and fields,
+ *                                     and the symbols the typeRefs of the shards refer to
+ * search.json                         the {@link SearchIndexExport search index} of the doc
+ * shards/&lt;namespace&gt;.json             a namespace, in the format of {@link JsonExport}
+ * shards/&lt;namespace&gt;/&lt;class&gt;.json     a class of a namespace that was split
+ * </pre>
+ * The manifest lists the shard of every namespace and class, relative to the manifest. A new
+ * export is written to a temporary directory next to the shards and swapped in when complete,
+ * and the manifest is moved in place last, so a viewer reading the old manifest meanwhile
+ * still finds its shards.
+ */
+public class ShardedExport {
+
+    public static final String MANIFEST_FILE = "manifest.json";
+    /** Value of the "format" key of the manifest */
+    public static final String FORMAT = "luadoc-shards";
+    /** Bump when the manifest or shard layout changes */
+    public static final int FORMAT_VERSION = 1;
+    /** Number of fields and functions above which a namespace is split into class shards */
+    public static final int DEFAULT_SPLIT_THRESHOLD = 5000;
+
+    private static final String SHARD_DIRECTORY = "shards";
+
+    private final JsonExport format;
+    private final boolean prettyPrint;
+    private final int splitThreshold;
+
+    public ShardedExport() {
+        this(true, DEFAULT_SPLIT_THRESHOLD);
+    }
+
+    /**
+     * @param splitThreshold number of fields and functions above which a namespace is split
+     *                       into one shard per class
+     */
+    public ShardedExport(boolean prettyPrint, int splitThreshold) {
+        this.format = new JsonExport(prettyPrint);
+        this.prettyPrint = prettyPrint;
+        this.splitThreshold = splitThreshold;
+    }
+
+    /**
+     * Export a LuaDoc into the given directory, creating it if needed
+     */
+    public void export(LuaDoc doc, Path directory) throws IOException {
+        export(doc, SymbolIndex.of(doc), directory);
+    }
+
+    /**
+     * Export a LuaDoc into the given directory, with the symbols of an index that was built for
+     * it before
+     */
+    public void export(LuaDoc doc, SymbolIndex symbols, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path staging = Files.createTempDirectory(directory, ".export-");
+        try {
+            export(doc, symbols, directory, staging);
+        } finally {
+            deleteRecursively(staging);
+        }
+    }
+
+    private void export(LuaDoc doc, SymbolIndex symbols, Path directory, Path staging) throws IOException {
+        Path shardDirectory = Files.createDirectory(staging.resolve(SHARD_DIRECTORY));
+        Set<String> namespaceFiles = new HashSet<>();
+        List<String> namespaceShards = new ArrayList<>();
+        List<List<String>> classShards = new ArrayList<>();
+        for (LuaNamespace namespace : doc.namespaces()) {
+            String namespaceFile = fileName(namespace.name(), namespaceFiles);
+            String namespaceShard = SHARD_DIRECTORY + "/" + namespaceFile + ".json";
+            List<String> shards = new ArrayList<>();
+
+            if (memberCount(namespace) > splitThreshold) {
+                Path classDirectory = shardDirectory.resolve(namespaceFile);
+                Files.createDirectories(classDirectory);
+                Set<String> classFiles = new HashSet<>();
+                for (LuaClass clazz : namespace.classes()) {
+                    String classFile = fileName(clazz.name(), classFiles) + ".json";
+                    writeShard(classDirectory.resolve(classFile), json -> format.appendClass(json, clazz, 0, namespace.name(), symbols));
+                    shards.add(SHARD_DIRECTORY + "/" + namespaceFile + "/" + classFile);
+                }
+                LuaNamespace globals = new LuaNamespace(namespace.name(), namespace.functions(), List.of(), namespace.fields());
+                writeShard(shardDirectory.resolve(namespaceFile + ".json"), json -> format.appendNamespace(json, globals, 0, symbols));
+            } else {
+                for (int i = 0; i < namespace.classes().size(); i++) {
+                    shards.add(namespaceShard);
+                }
+                writeShard(shardDirectory.resolve(namespaceFile + ".json"), json -> format.appendNamespace(json, namespace, 0, symbols));
+            }
+            namespaceShards.add(namespaceShard);
+            classShards.add(shards);
+        }
+
+        Path searchIndex = staging.resolve(SearchIndexExport.SHARDED_INDEX_FILE);
+        try (Writer writer = Files.newBufferedWriter(searchIndex, StandardCharsets.UTF_8)) {
+            new SearchIndexExport().export(doc, writer);
+        }
+        Path manifest = staging.resolve(MANIFEST_FILE);
+        writeShard(manifest, json -> appendManifest(json, doc, symbols, namespaceShards, classShards));
+
+        // Only the moment between these two renames has no shards directory, not the whole export
+        Path previous = Files.createTempDirectory(directory, ".previous-");
+        try {
+            Path shards = directory.resolve(SHARD_DIRECTORY);
+            Path previousShards = previous.resolve(SHARD_DIRECTORY);
+            if (Files.exists(shards)) {
+                move(shards, previousShards);
+            }
+            try {
+                move(shardDirectory, shards);
+            } catch (IOException e) {
+                if (Files.exists(previousShards)) {
+                    move(previousShards, shards);
+                }
+                throw e;
+            }
+            move(searchIndex, directory.resolve(SearchIndexExport.SHARDED_INDEX_FILE));
+            move(manifest, directory.resolve(MANIFEST_FILE));
+        } finally {
+            deleteRecursively(previous);
+        }
+    }
+
+    private void appendManifest(JsonOutput json, LuaDoc doc, SymbolIndex symbols, List<String> namespaceShards,
+                                List<List<String>> classShards) throws IOException {
+        json.append("{");
+        newLine(json);
+        format.appendKeyValue(json, "format", FORMAT, 1);
+        json.append(",");
+        newLine(json);
+        format.appendKey(json, "version", 1);
+        json.append(String.valueOf(FORMAT_VERSION)).append(",");
+        newLine(json);
+        format.appendKey(json, "namespaces", 1);
+        json.append("[");
+        newLine(json);
+
+        for (int n = 0; n < doc.namespaces().size(); n++) {
+            LuaNamespace namespace = doc.namespaces().get(n);
+            if (n > 0) {
+                json.append(",");
+                newLine(json);
+            }
+            json.append(format.indent(2)).append("{");
+            newLine(json);
+            format.appendKeyValue(json, "name", namespace.name(), 3);
+            json.append(",");
+            newLine(json);
+            format.appendKeyValue(json, "shard", namespaceShards.get(n), 3);
+            json.append(",");
+            newLine(json);
+
+            format.appendKey(json, "classes", 3);
+            json.append("[");
+            newLine(json);
+            for (int c = 0; c < namespace.classes().size(); c++) {
+                if (c > 0) {
+                    json.append(",");
+                    newLine(json);
+                }
+                json.append(format.indent(4)).append("{");
+                format.appendKeyValue(json, "name", namespace.classes().get(c).name(), 0);
+                json.append(prettyPrint ? ", " : ",");
+                format.appendKeyValue(json, "shard", classShards.get(n).get(c), 0);
+                json.append("}");
+            }
+            newLine(json);
+            json.append(format.indent(3)).append("],");
+            newLine(json);
+
+            appendNames(json, "functions", namespace.functions().stream().map(LuaFunction::name).toList());
+            json.append(",");
+            newLine(json);
+            appendNames(json, "fields", namespace.fields().stream().map(LuaField::name).toList());
+            newLine(json);
+            json.append(format.indent(2)).append("}");
+        }
+
+        newLine(json);
+        json.append(format.indent(1)).append("],");
+        newLine(json);
+        format.appendSymbols(json, symbols, 1);
+        newLine(json);
+        json.append("}");
+    }
+
+    /**
+     * Members listed by name only, as objects so the viewer can handle them like full members
+     */
+    private void appendNames(JsonOutput json, String key, List<String> names) throws IOException {
+        format.appendKey(json, key, 3);
+        json.append("[");
+        newLine(json);
+        for (int i = 0; i < names.size(); i++) {
+            if (i > 0) {
+                json.append(",");
+                newLine(json);
+            }
+            json.append(format.indent(4)).append("{");
+            format.appendKeyValue(json, "name", names.get(i), 0);
+            json.append("}");
+        }
+        newLine(json);
+        json.append(format.indent(3)).append("]");
+    }
+
+    private void newLine(JsonOutput json) throws IOException {
+        if (prettyPrint) json.append("\n");
+    }
+
+    @FunctionalInterface
+    private interface ShardContent {
+        void append(JsonOutput json) throws IOException;
+    }
+
+    private static void writeShard(Path file, ShardContent content) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            JsonOutput json = new JsonOutput(writer, JsonExport.BUFFER_SIZE);
+            content.append(json);
+            json.flush();
+        }
+    }
+
+    private static int memberCount(LuaNamespace namespace) {
+        int count = namespace.functions().size() + namespace.fields().size();
+        for (LuaClass clazz : namespace.classes()) {
+            count += clazz.fields().size() + clazz.functions().size();
+        }
+        return count;
+    }
+
+    /**
+     * File name for a namespace or class that is safe on every file system and unique among
+     * the given names, also on case-insensitive file systems
+     */
+    static String fileName(String name, Set<String> used) {
+        String base = name.replaceAll("[^A-Za-z0-9._-]", "_");
+        if (base.isEmpty() || base.startsWith(".")) {
+            base = "_" + base;
+        }
+        String fileName = base;
+        for (int suffix = 2; !used.add(fileName.toLowerCase(Locale.ROOT)); suffix++) {
+            fileName = base + "-" + suffix;
+        }
+        return fileName;
+    }
+
+    private static void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        List<Path> paths;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            paths = walk.sorted(Comparator.reverseOrder()).toList();
+        }
+        for (Path path : paths) {
+            Files.delete(path);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.xgen.lua.doc.generator.doc;
+
+import org.junit.jupiter.api.Test;
+import org.xgen.lua.doc.generator.doc.SymbolIndex.Symbol;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClassHierarchyTest {
+
+    @Test
+    void flattensMembersNearestAncestorFirst() {
+        SymbolIndex symbols = SymbolIndex.of(doc(namespace("shared",
+            luaClass("Base", null, List.of("id", "name"), List.of("update", "draw")),
+            luaClass("Entity", "Base", List.of("position"), List.of("update")),
+            luaClass("Player", "Entity", List.of("name", "health"), List.of("respawn")))));
+        ClassHierarchy hierarchy = symbols.hierarchy();
+
+        ClassHierarchy.Members player = hierarchy.members(symbol(symbols, "shared/Player"));
+        assertEquals(List.of("name", "health", "position", "id"), names(player.fields()));
+        assertEquals(List.of("respawn", "update", "draw"), names(player.functions()));
+        assertEquals(2, player.ownFields());
+        assertEquals(1, player.ownFunctions());
+        assertEquals(List.of("position", "id"), names(player.inheritedFields()));
+        assertEquals(List.of("update", "draw"), names(player.inheritedFunctions()));
+        // Overridden members point at the nearest declaration
+        assertEquals("Entity", player.functions().get(1).owner());
+
+        ClassHierarchy.Members base = hierarchy.members(symbol(symbols, "shared/Base"));
+        assertEquals(List.of("id", "name"), names(base.fields()));
+        assertTrue(base.inheritedFields().isEmpty());
+        assertSame(base, hierarchy.members(symbol(symbols, "shared/Base")));
+    }
+
+    @Test
+    void listsAncestorsNearestFirst() {
+        SymbolIndex symbols = SymbolIndex.of(doc(namespace("shared",
+            luaClass("Player", "Entity", List.of(), List.of()),
+            luaClass("Entity", "Base", List.of(), List.of()),
+            luaClass("Base", "table", List.of(), List.of()))));
+        ClassHierarchy hierarchy = symbols.hierarchy();
+        Symbol player = symbol(symbols, "shared/Player");
+        assertEquals(List.of("Entity", "Base"), names(hierarchy.ancestors(player)));
+        assertEquals(Optional.of(symbol(symbols, "shared/Entity")), hierarchy.parent(player));
+        // Parents that are not a class of the doc end the chain
+        assertEquals(Optional.empty(), hierarchy.parent(symbol(symbols, "shared/Base")));
+        assertTrue(hierarchy.cycles().isEmpty());
+    }
+
+    @Test
+    void breaksCycles() {
+        SymbolIndex symbols = SymbolIndex.of(doc(namespace("shared",
+            luaClass("A", "B", List.of("a"), List.of()),
+            luaClass("B", "C", List.of("b"), List.of()),
+            luaClass("C", "A", List.of("c"), List.of()),
+            luaClass("D", "B", List.of("d"), List.of()))));
+        ClassHierarchy hierarchy = symbols.hierarchy();
+
+        assertEquals(1, hierarchy.cycles().size());
+        assertEquals(List.of("A", "B", "C"), names(hierarchy.cycles().getFirst()));
+        // The parent of the last class of the cycle is ignored, every chain ends
+        assertEquals(List.of("B", "C"), names(hierarchy.ancestors(symbol(symbols, "shared/A"))));
+        assertEquals(List.of(), names(hierarchy.ancestors(symbol(symbols, "shared/C"))));
+        assertEquals(List.of("B", "C"), names(hierarchy.ancestors(symbol(symbols, "shared/D"))));
+        assertEquals(List.of("a", "b", "c"), names(hierarchy.members(symbol(symbols, "shared/A")).fields()));
+        assertEquals(List.of("d", "b", "c"), names(hierarchy.members(symbol(symbols, "shared/D")).fields()));
+    }
+
+    @Test
+    void breaksSelfParent() {
+        SymbolIndex symbols = SymbolIndex.of(doc(namespace("shared", luaClass("Node", "Node", List.of("next"), List.of()))));
+        ClassHierarchy hierarchy = symbols.hierarchy();
+        Symbol node = symbol(symbols, "shared/Node");
+        assertEquals(List.of(List.of(node)), hierarchy.cycles());
+        assertEquals(List.of(), hierarchy.ancestors(node));
+        assertEquals(List.of("next"), names(hierarchy.members(node).fields()));
+    }
+
+    @Test
+    void resolvesParentsLikeTypeNames() {
+        SymbolIndex symbols = SymbolIndex.of(doc(
+            namespace("shared",
+                luaClass("Entity", null, List.of("shared"), List.of()),
+                luaClass("List", null, List.of("items"), List.of())),
+            namespace("client",
+                luaClass("Entity", null, List.of("client"), List.of()),
+                luaClass("Player", "Entity", List.of(), List.of()),
+                luaClass("Names", "List<string>", List.of(), List.of())),
+            namespace("server",
+                luaClass("Player", "Entity", List.of(), List.of()))));
+        ClassHierarchy hierarchy = symbols.hierarchy();
+        // The namespace of the class first, then all namespaces in order
+        assertEquals(Optional.of(symbol(symbols, "client/Entity")), hierarchy.parent(symbol(symbols, "client/Player")));
+        assertEquals(Optional.of(symbol(symbols, "shared/Entity")), hierarchy.parent(symbol(symbols, "server/Player")));
+        // Type arguments are not part of the parent
+        assertEquals(Optional.of(symbol(symbols, "shared/List")), hierarchy.parent(symbol(symbols, "client/Names")));
+        assertEquals(List.of("items"), names(hierarchy.members(symbol(symbols, "client/Names")).fields()));
+    }
+
+    @Test
+    void rejectsMembersOfOtherSymbols() {
+        SymbolIndex symbols = SymbolIndex.of(doc(namespace("shared", luaClass("Entity", null, List.of("id"), List.of()))));
+        Symbol field = symbol(symbols, "shared/Entity.id");
+        assertThrows(IllegalArgumentException.class, () -> symbols.hierarchy().members(field));
+    }
+
+    private static Symbol symbol(SymbolIndex symbols, String qualifiedName) {
+        return symbols.lookup(qualifiedName).orElseThrow();
+    }
+
+    private static List<String> names(List<Symbol> symbols) {
+        return symbols.stream().map(Symbol::name).toList();
+    }
+
+    private static LuaDoc doc(LuaNamespace... namespaces) {
+        return new LuaDoc(Arrays.asList(namespaces));
+    }
+
+    private static LuaNamespace namespace(String name, LuaClass... classes) {
+        return new LuaNamespace(name, List.of(), Arrays.asList(classes), List.of());
+    }
+
+    private static LuaClass luaClass(String name, String parent, List<String> fields, List<String> functions) {
+        return new LuaClass.Impl(name, Optional.ofNullable(parent), Optional.empty(),
+            fields.stream().<LuaField>map(field -> new LuaField.Impl(false, field, "any", Optional.empty(), Optional.empty())).toList(),
+            functions.stream().<LuaFunction>map(function -> new LuaFunction.Impl(function, false, Optional.empty(), List.of(), List.of(), Optional.empty())).toList(),
+            Optional.empty());
+    }
+}
@@ -0,0 +1,140 @@
+package org.xgen.lua.doc.generator.process;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockTrackerTest {
+
+    /**
+     * Scans lines and records where each tracked function closes
+     */
+    private static final class Recorder {
+        private final BlockTracker tracker = new BlockTracker();
+        private final List<String> closed = new ArrayList<>();
+        private int line;
+
+        /** Scan a line whose first {@code function} keyword is tracked under the given name */
+        Recorder function(String name, String code) {
+            tracker.expectFunction(hasReturn -> closed.add(name + (hasReturn ? " returns" : "") + " at " + line));
+            return scan(code);
+        }
+
+        Recorder scan(String... code) {
+            for (String text : code) {
+                line++;
+                tracker.scan(text);
+            }
+            return this;
+        }
+    }
+
+    @Test
+    void closesAtMatchingEndAfterNestedBlocks() {
+        Recorder recorder = new Recorder()
+            .function("f", "function M.f(items)")
+            .scan("  for i, item in ipairs(items) do",
+                  "    if item then",
+                  "      while true do break end",
+                  "    elseif other then",
+                  "    end",
+                  "  end",
+                  "  return #items",
+                  "end",
+                  "print('after')");
+        assertEquals(List.of("f returns at 9"), recorder.closed);
+    }
+
+    @Test
+    void ignoresReturnsWithoutValue() {
+        Recorder recorder = new Recorder()
+            .function("bare", "function a()").scan("  return", "end")
+            .function("semicolon", "function b()").scan("  return;", "end")
+            .function("comment", "function c()").scan("  return -- nothing", "end")
+            .function("sameLine", "function d() if x then return end end")
+            .function("beforeElse", "function e()").scan("  if x then return else y() end", "end");
+        assertEquals(List.of("bare at 3", "semicolon at 6", "comment at 9", "sameLine at 10", "beforeElse at 13"), recorder.closed);
+    }
+
+    @Test
+    void countsOnlyReturnsAtTheFunctionsOwnLevel() {
+        Recorder recorder = new Recorder()
+            .function("outer", "function outer()")
+            .scan("  local cb = function() return 1 end",
+                  "  table.sort(t, function(a, b)",
+                  "    return a < b",
+                  "  end)",
+                  "end")
+            .function("inner", "function withLocal()")
+            .scan("  local function helper() return 2 end",
+                  "  if x then",
+                  "    return helper()",
+                  "  end",
+                  "end");
+        assertEquals(List.of("outer at 6", "inner returns at 12"), recorder.closed);
+    }
+
+    @Test
+    void closesRepeatAtUntil() {
+        Recorder recorder = new Recorder()
+            .function("loop", "function loop()")
+            .scan("  repeat",
+                  "    n = n - 1",
+                  "  until n == 0",
+                  "  return n",
+                  "end");
+        assertEquals(List.of("loop returns at 6"), recorder.closed);
+    }
+
+    @Test
+    void ignoresKeywordsInStringsAndComments() {
+        Recorder recorder = new Recorder()
+            .function("f", "function f()")
+            .scan("  local a = \"end\" .. 'function' .. \"say \\\"end\\\"\" -- end",
+                  "  local b = [[ end",
+                  "    function ]] .. [==[ ]] end ]==]",
+                  "  --[[ end",
+                  "     end ]] local c = 1",
+                  "  --[=[ ]] end ]=] return c",
+                  "end");
+        assertEquals(List.of("f returns at 8"), recorder.closed);
+    }
+
+    @Test
+    void ignoresKeywordsInsideNames() {
+        Recorder recorder = new Recorder()
+            .function("f", "function f()")
+            .scan("  local endpoint, send, do_it = x.end_, functions, repeated",
+                  "  returned = 1",
+                  "end");
+        assertEquals(List.of("f at 4"), recorder.closed);
+    }
+
+    @Test
+    void closesOneLineFunction() {
+        Recorder recorder = new Recorder()
+            .function("f", "function f() return 1 end")
+            .function("g", "local g = function() end");
+        assertEquals(List.of("f returns at 1", "g at 2"), recorder.closed);
+    }
+
+    @Test
+    void closesExpectedFunctionMissingFromLine() {
+        Recorder recorder = new Recorder().function("f", "f = other");
+        assertEquals(List.of("f at 1"), recorder.closed);
+    }
+
+    @Test
+    void finishClosesUnterminatedFunctions() {
+        Recorder recorder = new Recorder()
+            .function("outer", "function outer()")
+            .scan("  return 1")
+            .function("inner", "  function inner()");
+        assertTrue(recorder.closed.isEmpty());
+        recorder.tracker.finish();
+        assertEquals(List.of("inner at 3", "outer returns at 3"), recorder.closed);
+    }
+}
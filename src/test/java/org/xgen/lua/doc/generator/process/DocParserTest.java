@@ -0,0 +1,77 @@
+package org.xgen.lua.doc.generator.process;
+
+import org.junit.jupiter.api.Test;
+import org.xgen.lua.doc.generator.doc.*;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DocParserTest {
+
+    @Test
+    void readsParentOfEveryClassAnnotationForm() throws Exception {
+        for (ParserEngine engine : ParserEngine.values()) {
+            for (String annotation : List.of("---@class Dog : Animal A dog", "---@class Dog: Animal A dog", "---@class Dog:Animal A dog")) {
+                LuaClass dog = parse(annotation + "\nDog = {}\n", engine).namespaces().getFirst().classes().getFirst();
+                assertEquals("Dog", dog.name(), engine + " " + annotation);
+                assertEquals(Optional.of("Animal"), dog.parent(), engine + " " + annotation);
+                assertEquals(Optional.of("A dog"), dog.description(), engine + " " + annotation);
+            }
+        }
+    }
+
+    @Test
+    void readsClassWithoutParent() throws Exception {
+        for (ParserEngine engine : ParserEngine.values()) {
+            LuaClass dog = parse("---@class Dog A dog\nDog = {}\n", engine).namespaces().getFirst().classes().getFirst();
+            assertEquals("Dog", dog.name(), engine.name());
+            assertEquals(Optional.empty(), dog.parent(), engine.name());
+            assertEquals(Optional.of("A dog"), dog.description(), engine.name());
+        }
+    }
+
+    @Test
+    void endsEnumNameAtColon() throws Exception {
+        for (ParserEngine engine : ParserEngine.values()) {
+            LuaClass color = parse("---@enum Color: integer\nColor = {\n    RED = 1,\n}\n", engine)
+                .namespaces().getFirst().classes().getFirst();
+            assertEquals("Color", color.name(), engine.name());
+            assertEquals(List.of("RED"), color.fields().stream().map(LuaField::name).toList(), engine.name());
+        }
+    }
+
+    @Test
+    void resolvesInheritanceOfParsedClasses() throws Exception {
+        String source = """
+            ---@class Animal
+            ---@field name string
+            Animal = {}
+
+            ---@class Dog: Animal
+            ---@field owner Person
+            Dog = {}
+
+            ---@class Person
+            Person = {}
+
+            function Animal:speak()
+            end
+            """;
+        for (ParserEngine engine : ParserEngine.values()) {
+            SymbolIndex symbols = SymbolIndex.of(parse(source, engine));
+            SymbolIndex.Symbol dog = symbols.lookup("global/Dog").orElseThrow();
+            ClassHierarchy hierarchy = symbols.hierarchy();
+            assertEquals(List.of("Animal"), hierarchy.ancestors(dog).stream().map(SymbolIndex.Symbol::name).toList(), engine.name());
+            ClassHierarchy.Members members = hierarchy.members(dog);
+            assertEquals(List.of("owner", "name"), members.fields().stream().map(SymbolIndex.Symbol::name).toList(), engine.name());
+            assertEquals(List.of("speak"), members.functions().stream().map(SymbolIndex.Symbol::name).toList(), engine.name());
+            assertEquals(1, symbols.resolve("global", "Dog|nil").size(), engine.name());
+        }
+    }
+
+    private static LuaDoc parse(String source, ParserEngine engine) throws Exception {
+        return new DocParser(source, engine).parse();
+    }
+}
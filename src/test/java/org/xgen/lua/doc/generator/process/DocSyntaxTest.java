@@ -0,0 +1,102 @@
+package org.xgen.lua.doc.generator.process;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Differential test of the lexer engine against the regex engine it replaced as the default.
+ * Lines are generated from fragments of doc comments and code, so tags, names, types and
+ * separators meet in many combinations.
+ */
+class DocSyntaxTest {
+
+    private static final List<String> FRAGMENTS = List.of(
+        "---", "--", "-", "---@class", "---@enum", "---@field", "---@type", "---@param", "---@return",
+        "---@meta", "---@non-static", "---@none-static", "---@see", "---@generic", "@class",
+        " ", " ", " ", "  ", "\t",
+        "Dog", "Animal", "name", "name?", "_id2", "A.b", "A.b.c", "A:b", "self",
+        ":", " : ", ".", ",", "(", ")", "()", "{", "}", "=", "==", "|", "?", "<", ">", "[]",
+        "public", "private", "string", "number|nil", "table<string, Dog>", "fun(a: string): nil", "fun()",
+        "fun(x: number, y)", "string[]", "integer",
+        "local", "local ", "function", "function ", "return", "end", "x, y", "1", "'s'", "\"t\"",
+        "desc", "Some text.", "µ");
+
+    private static final int LINES = 200_000;
+
+    @Test
+    void enginesAgreeOnLinesWithAtMostOneTag() {
+        DocSyntax lexer = ParserEngine.LEXER.syntax();
+        DocSyntax regex = ParserEngine.REGEX.syntax();
+        Random random = new Random(20260417);
+        int compared = 0;
+        while (compared < LINES) {
+            String line = generate(random);
+            if (line.indexOf("---@") != line.lastIndexOf("---@")) {
+                // Lines with several tags are classified differently, see DocSyntax
+                continue;
+            }
+            compared++;
+            assertAgree(line, lexer, regex, DocSyntax::isLocal, "isLocal");
+            assertAgree(line, lexer, regex, DocSyntax::assignmentTarget, "assignmentTarget");
+            assertAgree(line, lexer, regex, DocSyntax::isDocComment, "isDocComment");
+            assertAgree(line, lexer, regex, DocSyntax::isMeta, "isMeta");
+            assertAgree(line, lexer, regex, DocSyntax::enumValueName, "enumValueName");
+            assertAgree(line, lexer, regex, DocSyntax::function, "function");
+            assertAgree(line, lexer, regex, DocSyntax::annotation, "annotation");
+        }
+    }
+
+    @Test
+    void enginesAgreeOnTypicalAnnotations() {
+        List<String> lines = List.of(
+            "---@class Dog : Animal A dog",
+            "---@class Dog: Animal",
+            "---@class Dog:Animal",
+            "---@enum Color",
+            "---@field private name string The name",
+            "---@field public count? number? Optional",
+            "---@field callback fun(a: string, b: number): nil Called later",
+            "---@field map table<string, Dog>|nil",
+            "---@type number|string The value",
+            "---@param player Player The player",
+            "---@param cb fun(x: number): boolean",
+            "---@return boolean success Whether it worked",
+            "---@return string|nil",
+            "---@non-static",
+            "---@see Other",
+            "--- Plain description",
+            "function Dog:bark(volume, times)",
+            "function Dog.new()",
+            "local function helper(x)",
+            "Dog.sound = 'woof'",
+            "    RED = 1,");
+        for (String line : lines) {
+            assertEquals(ParserEngine.REGEX.syntax().annotation(line), ParserEngine.LEXER.syntax().annotation(line), line);
+            assertEquals(ParserEngine.REGEX.syntax().function(line), ParserEngine.LEXER.syntax().function(line), line);
+            assertEquals(ParserEngine.REGEX.syntax().assignmentTarget(line), ParserEngine.LEXER.syntax().assignmentTarget(line), line);
+        }
+    }
+
+    private static String generate(Random random) {
+        StringBuilder line = new StringBuilder();
+        int fragments = 1 + random.nextInt(8);
+        for (int i = 0; i < fragments; i++) {
+            line.append(FRAGMENTS.get(random.nextInt(FRAGMENTS.size())));
+        }
+        return line.toString();
+    }
+
+    private static void assertAgree(String line, DocSyntax lexer, DocSyntax regex, BiFunction<DocSyntax, String, Object> recognizer, String name) {
+        Object expected = recognizer.apply(regex, line);
+        Object actual = recognizer.apply(lexer, line);
+        if (!Objects.equals(expected, actual)) {
+            fail(name + " of \"" + line + "\": regex " + expected + ", lexer " + actual);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.xgen.lua.doc.generator.process;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LuaSourceTest {
+
+    /** Decoding is expected to take milliseconds, a hang fails the test instead of the build */
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsSmallFile() throws Exception {
+        String text = "---@class Vector\n-- Länge in µm\nlocal Vector = {}\n";
+        Path file = write("small.lua", text.getBytes(StandardCharsets.UTF_8));
+        assertEquals(text, LuaSource.read(file).toString());
+    }
+
+    @Test
+    void readsMappedFileWithSequencesAcrossChunks() throws Exception {
+        // Three byte characters never line up with the chunks the mapped bytes are copied in
+        String text = "-- €\n".repeat(40_000);
+        Path file = write("large.lua", text.getBytes(StandardCharsets.UTF_8));
+        LuaSource source = LuaSource.read(file);
+        assertEquals(text.length(), source.length());
+        assertEquals(text, source.toString());
+    }
+
+    @Test
+    void rejectsSmallFileEndingMidSequence() throws Exception {
+        Path file = write("cut.lua", truncated("-- Grüße €", 1));
+        assertTimeoutPreemptively(TIMEOUT, () ->
+            assertThrows(MalformedInputException.class, () -> LuaSource.read(file)));
+    }
+
+    @Test
+    void rejectsMappedFileEndingMidSequence() throws Exception {
+        Path file = write("cut.lua", truncated("-- €\n".repeat(40_000), 2));
+        assertTimeoutPreemptively(TIMEOUT, () ->
+            assertThrows(MalformedInputException.class, () -> LuaSource.read(file)));
+    }
+
+    @Test
+    void rejectsWrappedBytesEndingMidSequence() {
+        // What ParseCache hands over after hashing the bytes of a file
+        ByteBuffer bytes = ByteBuffer.wrap(truncated("local s = '€'", 3));
+        assertTimeoutPreemptively(TIMEOUT, () ->
+            assertThrows(MalformedInputException.class, () -> LuaSource.decode(bytes, StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void rejectsDirectBytesEndingMidSequence() {
+        byte[] encoded = truncated("local s = 'ü'", 2);
+        ByteBuffer bytes = ByteBuffer.allocateDirect(encoded.length).put(encoded).flip();
+        assertTimeoutPreemptively(TIMEOUT, () ->
+            assertThrows(MalformedInputException.class, () -> LuaSource.decode(bytes, StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void rejectsMalformedBytes() {
+        ByteBuffer bytes = ByteBuffer.wrap(new byte[]{'-', '-', ' ', (byte) 0xFF, '\n'});
+        assertThrows(MalformedInputException.class, () -> LuaSource.decode(bytes, StandardCharsets.UTF_8));
+    }
+
+    private Path write(String name, byte[] content) throws Exception {
+        return Files.write(directory.resolve(name), content);
+    }
+
+    /**
+     * The UTF-8 bytes of a text that ends with a multibyte character, without the last bytes
+     */
+    private static byte[] truncated(String text, int removed) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        return Arrays.copyOf(bytes, bytes.length - removed);
+    }
+}
@@ -0,0 +1,115 @@
+package org.xgen.lua.doc.generator.read;
+
+import org.junit.jupiter.api.Test;
+import org.xgen.lua.doc.generator.doc.*;
+import org.xgen.lua.doc.generator.write.BinaryExport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryDocReaderTest {
+
+    @Test
+    void roundTripsWholeDoc() throws Exception {
+        LuaDoc doc = sampleDoc();
+        assertEquals(doc, BinaryDocReader.of(export(doc)).read());
+    }
+
+    @Test
+    void roundTripsLargeStringTable() throws Exception {
+        // More than 127 strings, so references and counts take more than one byte
+        List<LuaField> fields = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            fields.add(new LuaField.Impl(i % 2 == 0, "field" + i, "Type" + i, Optional.of("Field number " + i),
+                Optional.of(new SourceLocation("big.lua", 1000 + i))));
+        }
+        LuaDoc doc = new LuaDoc(List.of(new LuaNamespace("big", List.of(), List.of(), fields)));
+        assertEquals(doc, BinaryDocReader.of(export(doc)).read());
+    }
+
+    @Test
+    void readsSingleNamespaceAndClass() throws Exception {
+        LuaDoc doc = sampleDoc();
+        BinaryDocReader reader = BinaryDocReader.of(export(doc));
+        assertEquals(List.of("shared", "client"), reader.namespaceNames());
+        assertEquals(doc.namespaces().get(1), reader.readNamespace("client"));
+        assertEquals(doc.namespaces().get(0).classes().get(1), reader.readClass("shared", "Player"));
+        // Reading out of order does not depend on what was read before
+        assertEquals(doc.namespaces().get(0).classes().get(0), reader.readClass("shared", "Entity"));
+        assertNull(reader.readNamespace("server"));
+        assertNull(reader.readClass("client", "Player"));
+        assertNull(reader.readClass("server", "Entity"));
+    }
+
+    @Test
+    void firstClassOfNameWins() throws Exception {
+        LuaClass first = luaClass("Entity", null, "first", null);
+        LuaClass second = luaClass("Entity", null, "second", null);
+        LuaDoc doc = new LuaDoc(List.of(new LuaNamespace("shared", List.of(), List.of(first, second), List.of())));
+        BinaryDocReader reader = BinaryDocReader.of(export(doc));
+        assertEquals(first, reader.readClass("shared", "Entity"));
+        assertEquals(doc, reader.read());
+    }
+
+    @Test
+    void rejectsOtherData() {
+        IOException e = assertThrows(IOException.class, () -> BinaryDocReader.of("{\"namespaces\": []}".getBytes()));
+        assertEquals("Not a binary doc", e.getMessage());
+    }
+
+    @Test
+    void rejectsOtherVersion() throws Exception {
+        byte[] data = export(sampleDoc());
+        data[4] = (byte) (BinaryExport.FORMAT_VERSION + 1);
+        IOException e = assertThrows(IOException.class, () -> BinaryDocReader.of(data));
+        assertEquals("Unsupported binary doc version: " + (BinaryExport.FORMAT_VERSION + 1), e.getMessage());
+    }
+
+    @Test
+    void rejectsTruncatedData() throws Exception {
+        byte[] data = export(sampleDoc());
+        // Cuts in the header fail on open, cuts in the body when the namespace is read
+        for (int length = 0; length < data.length; length++) {
+            byte[] cut = Arrays.copyOf(data, length);
+            IOException e = assertThrows(IOException.class, () -> BinaryDocReader.of(cut).read(), "length " + length);
+            assertTrue(e.getMessage().equals("Damaged binary doc") || e.getMessage().equals("Not a binary doc"),
+                e.getMessage());
+        }
+    }
+
+    private static byte[] export(LuaDoc doc) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new BinaryExport().export(doc, out);
+        return out.toByteArray();
+    }
+
+    private static LuaDoc sampleDoc() {
+        LuaFunction update = new LuaFunction.Impl("update", false, Optional.of("Called every tick"),
+            List.of(new LuaParameter.Impl("delta", "number", false, Optional.of("Seconds since the last tick")),
+                new LuaParameter.Impl("force", "boolean", true, Optional.empty())),
+            List.of(new LuaReturnValue.Impl("boolean", "changed", Optional.empty())),
+            Optional.of(new SourceLocation("shared/entity.lua", 12)));
+        LuaClass entity = new LuaClass.Impl("Entity", Optional.empty(), Optional.of("Anything in the world"),
+            List.of(new LuaField.Impl(false, "id", "integer", Optional.empty(), Optional.of(new SourceLocation("shared/entity.lua", 2)))),
+            List.of(update), Optional.of(new SourceLocation("shared/entity.lua", 1)));
+        LuaClass player = luaClass("Player", "Entity", "Größe in µm, \"quoted\"\nsecond line", "shared/player.lua");
+        LuaFunction connect = new LuaFunction.Impl("connect", true, Optional.empty(), List.of(), List.of(), Optional.empty());
+        LuaField version = new LuaField.Impl(true, "VERSION", "string", Optional.empty(), Optional.empty());
+        return new LuaDoc(List.of(
+            new LuaNamespace("shared", List.of(), List.of(entity, player), List.of()),
+            new LuaNamespace("client", List.of(connect), List.of(), List.of(version))));
+    }
+
+    private static LuaClass luaClass(String name, String parent, String description, String file) {
+        Optional<SourceLocation> source = Optional.ofNullable(file).map(f -> new SourceLocation(f, 3));
+        return new LuaClass.Impl(name, Optional.ofNullable(parent), Optional.ofNullable(description),
+            List.of(new LuaField.Impl(false, "health", "number|nil", Optional.of("Current health"), source)),
+            List.of(), source);
+    }
+}
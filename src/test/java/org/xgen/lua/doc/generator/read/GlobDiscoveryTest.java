@@ -0,0 +1,118 @@
+package org.xgen.lua.doc.generator.read;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GlobDiscoveryTest {
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void createTree() throws Exception {
+        for (String file : List.of("main.lua", "readme.md", "client/b.lua", "client/a.lua", "client/ui/menu.lua",
+                                   "client/ui/hud.txt", "server/main.lua", "server/db/store.lua", "shared/util.lua")) {
+            Path path = directory.resolve(file);
+            Files.createDirectories(path.getParent());
+            Files.writeString(path, "");
+        }
+    }
+
+    @Test
+    void recognizesGlobs() {
+        assertTrue(GlobDiscovery.isGlob("client/*.lua"));
+        assertTrue(GlobDiscovery.isGlob("client/?.lua"));
+        assertFalse(GlobDiscovery.isGlob("client/main.lua"));
+    }
+
+    @Test
+    void matchesDoubleStarAtZeroDepth() {
+        GlobDiscovery discovery = new GlobDiscovery(directory);
+        List<Path> all = discovery.add("**/*.lua");
+        List<Path> client = discovery.add("client/**/*.lua");
+        discovery.walk();
+        assertEquals(paths("client/a.lua", "client/b.lua", "client/ui/menu.lua", "main.lua",
+                           "server/db/store.lua", "server/main.lua", "shared/util.lua"), all);
+        assertEquals(paths("client/a.lua", "client/b.lua", "client/ui/menu.lua"), client);
+    }
+
+    @Test
+    void addsFileMatchingSeveralPatternsToEach() {
+        GlobDiscovery discovery = new GlobDiscovery(directory);
+        List<Path> lua = discovery.add("client/*.lua");
+        List<Path> a = discovery.add("client/a.*");
+        List<Path> any = discovery.add("client/?.lua");
+        discovery.walk();
+        assertEquals(paths("client/a.lua", "client/b.lua"), lua);
+        assertEquals(paths("client/a.lua"), a);
+        assertEquals(paths("client/a.lua", "client/b.lua"), any);
+    }
+
+    @Test
+    void walksOverlappingRootsOnce() {
+        GlobDiscovery discovery = new GlobDiscovery(directory);
+        List<Path> nested = discovery.add("server/db/*.lua");
+        List<Path> server = discovery.add("server/**/*.lua");
+        List<Path> again = discovery.add("server/**/*.lua");
+        List<Path> braces = discovery.add("{client,server}/*.lua");
+        discovery.walk();
+        assertEquals(List.of(directory.resolve("server/db"), directory.resolve("server"), directory.resolve("server"), directory),
+                     discovery.roots());
+        assertEquals(paths("server/db/store.lua"), nested);
+        assertEquals(paths("server/db/store.lua", "server/main.lua"), server);
+        assertEquals(server, again);
+        assertEquals(paths("client/a.lua", "client/b.lua", "server/main.lua"), braces);
+    }
+
+    @Test
+    void returnsMatchesInNameOrder() {
+        GlobDiscovery discovery = new GlobDiscovery(directory);
+        List<Path> client = discovery.add("client/**/*");
+        discovery.walk();
+        assertEquals(paths("client/a.lua", "client/b.lua", "client/ui/hud.txt", "client/ui/menu.lua"), client);
+    }
+
+    @Test
+    void skipsMissingRoots() {
+        GlobDiscovery discovery = new GlobDiscovery(directory);
+        List<Path> missing = discovery.add("missing/*.lua");
+        List<Path> shared = discovery.add("shared/*.lua");
+        discovery.walk();
+        assertEquals(List.of(), missing);
+        assertEquals(paths("shared/util.lua"), shared);
+    }
+
+    @Test
+    void prunesDirectoriesNoPatternCanMatch() {
+        GlobDiscovery.Glob client = new GlobDiscovery.Glob(directory, "client/*.lua");
+        assertTrue(client.mayContain(new String[] {"client"}));
+        assertFalse(client.mayContain(new String[] {"server"}));
+        assertFalse(client.mayContain(new String[] {"client", "ui"}));
+
+        GlobDiscovery.Glob deep = new GlobDiscovery.Glob(directory, "client/**/menu/*.lua");
+        assertTrue(deep.mayContain(new String[] {"client"}));
+        assertTrue(deep.mayContain(new String[] {"client", "ui", "menu"}));
+        assertTrue(deep.mayContain(new String[] {"client", "ui", "other"}));
+        assertFalse(deep.mayContain(new String[] {"server", "menu"}));
+
+        GlobDiscovery.Glob wildcard = new GlobDiscovery.Glob(directory, "*/ui/*.lua");
+        assertTrue(wildcard.mayContain(new String[] {"server"}));
+        assertTrue(wildcard.mayContain(new String[] {"client", "ui"}));
+        assertFalse(wildcard.mayContain(new String[] {"client", "db"}));
+
+        // Braces may hide slashes, so they are never pruned
+        GlobDiscovery.Glob braces = new GlobDiscovery.Glob(directory, "{client,server/db}/*.lua");
+        assertTrue(braces.mayContain(new String[] {"shared", "deep"}));
+    }
+
+    private List<Path> paths(String... files) {
+        return List.of(files).stream().map(directory::resolve).toList();
+    }
+}
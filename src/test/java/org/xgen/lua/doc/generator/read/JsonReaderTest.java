@@ -0,0 +1,178 @@
+package org.xgen.lua.doc.generator.read;
+
+import org.junit.jupiter.api.Test;
+import org.xgen.lua.doc.generator.read.JsonReader.Token;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonReaderTest {
+
+    @Test
+    void readsAllTokens() throws Exception {
+        JsonReader json = new JsonReader(new StringReader(
+            "{\"name\": \"doc\", \"count\": -12.5e3, \"flags\": [true, false, null], \"nested\": {}}"));
+        json.beginObject();
+        assertEquals("name", json.nextName());
+        assertEquals("doc", json.nextString());
+        assertEquals("count", json.nextName());
+        assertEquals("-12.5e3", json.nextNumber());
+        assertEquals("flags", json.nextName());
+        json.beginArray();
+        assertTrue(json.nextBoolean());
+        assertFalse(json.nextBoolean());
+        assertEquals(Token.NULL, json.peek());
+        json.nextNull();
+        assertFalse(json.hasNext());
+        json.endArray();
+        assertEquals("nested", json.nextName());
+        json.beginObject();
+        assertFalse(json.hasNext());
+        json.endObject();
+        json.endObject();
+        assertEquals(Token.END, json.peek());
+    }
+
+    @Test
+    void resolvesEscapes() throws Exception {
+        JsonReader json = new JsonReader(new StringReader("\"a\\\"b\\\\c\\/d\\b\\f\\n\\r\\t\\u00e9\\uD83D\\uDE00\""));
+        assertEquals("a\"b\\c/d\b\f\n\r\té\uD83D\uDE00", json.nextString());
+    }
+
+    @Test
+    void readsValuesAcrossBufferBoundaries() throws Exception {
+        // Longer than the buffer, with escapes and numbers cut at every position
+        String value = "é\\n".repeat(5000);
+        String document = "[\"" + value + "\", 123456789, true]";
+        for (Reader input : List.of(new StringReader(document), new OneCharReader(document))) {
+            JsonReader json = new JsonReader(input);
+            json.beginArray();
+            assertEquals("é\n".repeat(5000), json.nextString());
+            assertEquals("123456789", json.nextNumber());
+            assertTrue(json.nextBoolean());
+            json.endArray();
+            assertEquals(Token.END, json.peek());
+        }
+    }
+
+    @Test
+    void skipsNestedValues() throws Exception {
+        JsonReader json = new JsonReader(new StringReader(
+            "{\"skipped\": {\"a\": [1, [2, {\"b\": null}], \"]\"], \"c\": {}}, \"kept\": \"value\", \"last\": 3}"));
+        json.beginObject();
+        assertEquals("skipped", json.nextName());
+        json.skipValue();
+        assertEquals("kept", json.nextName());
+        assertEquals("value", json.nextString());
+        assertEquals("last", json.nextName());
+        json.skipValue();
+        json.endObject();
+        assertEquals(Token.END, json.peek());
+    }
+
+    @Test
+    void reportsLineAndColumn() {
+        IOException e = assertThrows(IOException.class, () -> readAll("{\n  \"a\" 1}"));
+        assertEquals("Malformed JSON at line 2, column 7: Expected ':'", e.getMessage());
+    }
+
+    @Test
+    void rejectsMalformedDocuments() {
+        List<String> documents = List.of(
+            "",
+            "{",
+            "[1 2]",
+            "[1,]",
+            "{\"a\": 1,}",
+            "{\"a\": 1 \"b\": 2}",
+            "{a: 1}",
+            "[\"unterminated",
+            "[\"tab\tinside\"]",
+            "[\"\\x\"]",
+            "[\"\\u12g4\"]",
+            "[01]",
+            "[1.]",
+            "[-]",
+            "[nul]",
+            "[truex]",
+            "[undefined]",
+            "{} {}",
+            "[] x");
+        for (String document : documents) {
+            IOException e = assertThrows(IOException.class, () -> readAll(document), document);
+            assertTrue(e.getMessage().startsWith("Malformed JSON at line 1, column "), e.getMessage());
+        }
+    }
+
+    @Test
+    void rejectsUnexpectedToken() {
+        IOException e = assertThrows(IOException.class, () -> new JsonReader(new StringReader("[1]")).beginObject());
+        assertTrue(e.getMessage().endsWith("Expected '{' but found '['"), e.getMessage());
+    }
+
+    /**
+     * Read a whole document, returning its tokens
+     */
+    private static List<Token> readAll(String document) throws IOException {
+        JsonReader json = new JsonReader(new StringReader(document));
+        List<Token> tokens = new ArrayList<>();
+        int depth = 0;
+        do {
+            Token token = json.peek();
+            tokens.add(token);
+            switch (token) {
+                case BEGIN_OBJECT -> {
+                    json.beginObject();
+                    depth++;
+                }
+                case BEGIN_ARRAY -> {
+                    json.beginArray();
+                    depth++;
+                }
+                case END_OBJECT -> {
+                    json.endObject();
+                    depth--;
+                }
+                case END_ARRAY -> {
+                    json.endArray();
+                    depth--;
+                }
+                case NAME -> json.nextName();
+                case END -> throw new IllegalStateException("End inside a value");
+                default -> json.skipValue();
+            }
+        } while (depth > 0);
+        tokens.add(json.peek());
+        return tokens;
+    }
+
+    /**
+     * Input that hands out a single character per read
+     */
+    private static final class OneCharReader extends Reader {
+        private final String text;
+        private int position;
+
+        private OneCharReader(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position == text.length()) {
+                return -1;
+            }
+            buffer[offset] = text.charAt(position++);
+            return 1;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package org.xgen.lua.doc.generator.read;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xgen.lua.doc.generator.doc.LuaClass;
+import org.xgen.lua.doc.generator.doc.LuaDoc;
+import org.xgen.lua.doc.generator.doc.SourceLocation;
+import org.xgen.lua.doc.generator.process.DocParser;
+import org.xgen.lua.doc.generator.process.ParserEngine;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParseCacheTest {
+
+    private static final String SOURCE = """
+        ---@class Entity : table An entity
+        ---@field id integer The id
+        Entity = {}
+
+        ---Moves the entity
+        ---@param x number
+        ---@return boolean moved
+        function Entity:move(x)
+        end
+        """;
+
+    @TempDir
+    Path directory;
+
+    private final AtomicInteger parses = new AtomicInteger();
+
+    @Test
+    void returnsCachedDocOfUnchangedFile() throws Exception {
+        Path file = write("entity.lua", SOURCE);
+        ParseCache cache = ParseCache.open(directory.resolve("cache"), ParserEngine.LEXER.name());
+        LuaDoc parsed = load(cache, file);
+        LuaDoc cached = load(cache, file);
+        assertEquals(1, parses.get());
+        assertEquals(parsed, cached);
+
+        LuaClass entity = cached.namespaces().getFirst().classes().getFirst();
+        String name = file.normalize().toString();
+        assertEquals(Optional.of(new SourceLocation(name, 1)), entity.source());
+        assertEquals(Optional.of(new SourceLocation(name, 2)), entity.fields().getFirst().source());
+        assertEquals(Optional.of(new SourceLocation(name, 8)), entity.functions().getFirst().source());
+    }
+
+    @Test
+    void keepsEntryOfTouchedFile() throws Exception {
+        Path file = write("entity.lua", SOURCE);
+        ParseCache cache = ParseCache.open(directory.resolve("cache"), ParserEngine.LEXER.name());
+        LuaDoc parsed = load(cache, file);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 10_000));
+        assertEquals(parsed, load(cache, file));
+        assertEquals(parsed, load(cache, file));
+        assertEquals(1, parses.get());
+    }
+
+    @Test
+    void reparsesChangedFile() throws Exception {
+        Path file = write("entity.lua", SOURCE);
+        ParseCache cache = ParseCache.open(directory.resolve("cache"), ParserEngine.LEXER.name());
+        load(cache, file);
+        write("entity.lua", SOURCE.replace("Entity", "Actor"));
+        LuaDoc changed = load(cache, file);
+        assertEquals(2, parses.get());
+        assertEquals("Actor", changed.namespaces().getFirst().classes().getFirst().name());
+    }
+
+    @Test
+    void separatesEngines() throws Exception {
+        Path file = write("entity.lua", SOURCE);
+        Path cacheDirectory = directory.resolve("cache");
+        load(ParseCache.open(cacheDirectory, ParserEngine.LEXER.name()), file);
+        load(ParseCache.open(cacheDirectory, ParserEngine.REGEX.name()), file);
+        assertEquals(2, parses.get());
+    }
+
+    @Test
+    void reparsesDamagedEntry() throws Exception {
+        Path file = write("entity.lua", SOURCE);
+        Path cacheDirectory = directory.resolve("cache");
+        ParseCache cache = ParseCache.open(cacheDirectory, ParserEngine.LEXER.name());
+        LuaDoc parsed = load(cache, file);
+        try (Stream<Path> entries = Files.list(cacheDirectory)) {
+            for (Path entry : entries.filter(path -> path.toString().endsWith(".entry")).toList()) {
+                byte[] data = Files.readAllBytes(entry);
+                Files.write(entry, Arrays.copyOf(data, data.length - 5));
+            }
+        }
+        assertEquals(parsed, load(cache, file));
+        assertEquals(2, parses.get());
+        assertEquals(parsed, load(cache, file));
+        assertEquals(2, parses.get());
+    }
+
+    @Test
+    void parsesWhenEntriesCannotBeWritten() throws Exception {
+        Path file = write("entity.lua", SOURCE);
+        Path cacheDirectory = directory.resolve("cache");
+        ParseCache cache = ParseCache.open(cacheDirectory, ParserEngine.LEXER.name());
+        // A file where the cache directory was, so no entry can be created
+        Files.delete(cacheDirectory.resolve("version"));
+        Files.delete(cacheDirectory);
+        Files.writeString(cacheDirectory, "not a directory");
+        LuaDoc parsed = load(cache, file);
+        assertEquals("Entity", parsed.namespaces().getFirst().classes().getFirst().name());
+        assertEquals(parsed, load(cache, file));
+        assertEquals(2, parses.get());
+    }
+
+    private LuaDoc load(ParseCache cache, Path file) throws Exception {
+        return cache.load(file, source -> {
+            parses.incrementAndGet();
+            return new DocParser(source, ParserEngine.LEXER).parse();
+        });
+    }
+
+    private Path write(String name, String content) throws Exception {
+        return Files.writeString(directory.resolve(name), content);
+    }
+}
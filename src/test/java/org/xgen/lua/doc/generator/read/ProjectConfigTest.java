@@ -0,0 +1,80 @@
+package org.xgen.lua.doc.generator.read;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xgen.lua.doc.generator.doc.LuaDoc;
+import org.xgen.lua.doc.generator.doc.SourceLocation;
+import org.xgen.lua.doc.generator.process.ParserEngine;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectConfigTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsNamespacesInOrder() throws Exception {
+        Map<String, List<String>> config = ProjectConfig.readConfig(new StringReader("""
+            {
+                "shared": ["shared/*.lua", "util.lua"],
+                "client": [ ],
+                "server": ["server\\\\main.lua"]
+            }
+            """));
+        assertIterableEquals(List.of("shared", "client", "server"), config.keySet());
+        assertEquals(List.of("shared/*.lua", "util.lua"), config.get("shared"));
+        assertEquals(List.of(), config.get("client"));
+        assertEquals(List.of("server\\main.lua"), config.get("server"));
+    }
+
+    @Test
+    void skipsOtherOptionsAndEntries() throws Exception {
+        Map<String, List<String>> config = ProjectConfig.readConfig(new StringReader("""
+            {"title": "Docs", "options": {"pretty": true, "exclude": ["a"]}, "shared": [1, "a.lua", {"b": []}, null]}
+            """));
+        assertEquals(Map.of("shared", List.of("a.lua")), config);
+    }
+
+    @Test
+    void rejectsInvalidConfigs() {
+        for (String config : List.of("", "[\"a.lua\"]", "{\"shared\": [\"a.lua\"]", "{\"shared\": [\"a.lua\"]} {}")) {
+            assertThrows(IOException.class, () -> ProjectConfig.readConfig(new StringReader(config)), config);
+        }
+    }
+
+    @Test
+    void rejectsInvalidOptions() {
+        assertThrows(IllegalArgumentException.class, () -> new ProjectConfig.Builder().parallelism(0));
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            ProjectConfig.Builder shared = new ProjectConfig.Builder().executor(executor).parallelism(4);
+            assertThrows(IllegalStateException.class, shared::build);
+        }
+    }
+
+    @Test
+    void namesSourcesRelativeToConfigInEveryMode() throws Exception {
+        Files.createDirectories(directory.resolve("src"));
+        Files.writeString(directory.resolve("src/entity.lua"), "---@class Entity\nEntity = {}\n");
+        Path config = Files.writeString(directory.resolve("project.json"), "{\"shared\": [\"src/*.lua\"]}");
+
+        LuaDoc project = new ProjectConfig.Builder().engine(ParserEngine.LEXER).build().parseProject(config.toString());
+        assertEquals(Optional.of(new SourceLocation("src/entity.lua", 1)),
+            project.namespaces().getFirst().classes().getFirst().source());
+
+        // Watch and serve mode parse absolute paths, the doc must be the same
+        ProjectState state = new ProjectState(new ProjectConfig.Builder().engine(ParserEngine.LEXER).build(), config);
+        assertEquals(project, state.refresh().doc());
+        assertEquals(project, state.reparse(directory.resolve("src/entity.lua")).doc());
+    }
+}
@@ -1,16 +1,46 @@
 let currentDoc = null;
 let currentFilter = '';
 let classRegistry = new Map(); // Map of className -> {class, namespace}
+let symbolClasses = []; // Registry entry of every class symbol by id, for the typeRefs of the doc
+let docSymbols = []; // [kind, namespace, class, name, file, line] of every symbol by id
+let symbolOwners = []; // Registry entry of the class of every member symbol by id, for inherited members
+let shardBaseUrl = null; // URL of the manifest when a sharded doc is loaded
+const shardCache = new Map(); // Map of shard path -> Promise of its JSON
+let renderToken = 0; // Increased on every navigation so late shards do not overwrite newer pages
+let searchIndex = null; // Search index written by the generator next to the doc, null until loaded
+let searchMatches = null; // Map of namespace -> {class, function, field} name sets of the current search
+let lastSearch = null; // {query, terms, ids} of the previous search, refined while the query is extended
+let searchTimer = null;
+const SEARCH_DEBOUNCE_MS = 150;
+const SEARCH_GRAM_LENGTH = 3; // Shorter terms match name prefixes instead of substrings
+let activeNavItem = null; // Item of the selected navigation row, rows are recreated while scrolling
+let activePageNavItem = null;
+let navListeners = null; // AbortController of the listeners of the virtual navigation lists
+let pageNavListeners = null;
+let lazyItemObserver = null; // Renders the items of long member lists when they come into view
+const lazyItemRenderers = new WeakMap(); // Map of item element -> function rendering its content
+const iconTemplates = new Map(); // Map of icon name -> rendered icon, copied for every use
+const VIRTUAL_OVERSCAN_ROWS = 10; // Rows kept above and below the visible ones
+const LAZY_ITEM_THRESHOLD = 50; // Member lists up to this length are rendered completely
+const LAZY_ITEM_HEIGHT = 160; // Estimated height of an item that was never rendered
+const LAZY_ITEM_MARGIN = '800px 0px';
 
 if (WEB_URL != "") {
     document.querySelector('.file-selector').style.display = 'none';
     (async () => {
         const json = await fetch(WEB_URL);
         currentDoc = await json.json();
+        if (isShardManifest(currentDoc)) {
+            shardBaseUrl = new URL(WEB_URL, document.baseURI);
+        } else {
+            mergeClassFragments(currentDoc);
+        }
         buildClassRegistry(currentDoc);
         renderNavigation(currentDoc);
         updateDocTitle(WEB_URL.split('/').pop());
         showWelcomeMessage();
+        loadSearchIndex(shardBaseUrl ? new URL('search.json', shardBaseUrl)
+            : new URL(WEB_URL.replace(/\.json$/i, '') + '.search.json', document.baseURI));
     })();
 } else {
     // File input handler
@@ -20,7 +50,16 @@ if (WEB_URL != "") {
             const reader = new FileReader();
             reader.onload = function(event) {
                 try {
-                    currentDoc = JSON.parse(event.target.result);
+                    const doc = JSON.parse(event.target.result);
+                    if (isShardManifest(doc)) {
+                        alert('Sharded documentation can only be opened from a web server, its shards are loaded by URL');
+                        return;
+                    }
+                    currentDoc = doc;
+                    // The index is not next to a picked file, search scans the doc instead
+                    searchIndex = null;
+                    lastSearch = null;
+                    mergeClassFragments(currentDoc);
                     buildClassRegistry(currentDoc);
                     renderNavigation(currentDoc);
                     updateDocTitle(file.name);
@@ -53,35 +92,304 @@ function updateDocTitle(filename) {
     docTitleEl.textContent = name;
 }
 
-// Search functionality
+// Search functionality, applied once typing pauses
 document.getElementById('searchInput').addEventListener('input', function(e) {
-    currentFilter = e.target.value.toLowerCase();
+    const query = e.target.value.toLowerCase().trim();
+    clearTimeout(searchTimer);
+    searchTimer = setTimeout(() => applySearch(query), SEARCH_DEBOUNCE_MS);
+});
+
+function applySearch(query) {
+    currentFilter = query;
+    searchMatches = searchIndex && query ? findSearchMatches(query) : null;
     if (currentDoc) {
         renderNavigation(currentDoc);
     }
-});
+}
+
+// Load the search index, search falls back to scanning the doc if there is none
+async function loadSearchIndex(url) {
+    try {
+        const response = await fetch(url);
+        if (!response.ok) return;
+        const raw = await response.json();
+        if (raw.format !== 'luadoc-search') return;
+
+        const symbols = raw.symbols.map(([name, kind, namespace, owner]) =>
+            ({ name, kind, namespace, owner, key: name.toLowerCase() }));
+        const symbolWords = symbols.map(() => []);
+        raw.words.forEach(([word, ids]) => ids.forEach(id => symbolWords[id].push(word)));
+        searchIndex = {
+            symbols,
+            trigrams: raw.trigrams,
+            words: raw.words.map(entry => entry[0]),
+            wordIds: raw.words.map(entry => entry[1]),
+            symbolWords
+        };
+        lastSearch = null;
+        if (currentFilter) {
+            applySearch(currentFilter);
+        }
+    } catch (error) {
+        console.warn('Search index not available: ' + error.message);
+    }
+}
+
+// Classes, functions and fields to show for a query, by namespace. Members make their class match.
+function findSearchMatches(query) {
+    const terms = query.split(/\s+/).filter(Boolean);
+    let ids;
+    if (canRefineSearch(query, terms)) {
+        ids = lastSearch.ids.filter(id => terms.every(term => symbolMatches(id, term)));
+    } else {
+        terms.forEach(term => {
+            const found = findTerm(term);
+            ids = ids ? ids.filter(id => found.has(id)) : Array.from(found);
+        });
+    }
+    lastSearch = { query, terms, ids };
+
+    const matches = new Map();
+    ids.forEach(id => {
+        const symbol = searchIndex.symbols[id];
+        if (!matches.has(symbol.namespace)) {
+            matches.set(symbol.namespace, { class: new Set(), function: new Set(), field: new Set() });
+        }
+        const namespaceMatches = matches.get(symbol.namespace);
+        if (symbol.owner !== null) {
+            namespaceMatches.class.add(symbol.owner);
+        } else {
+            namespaceMatches[symbol.kind].add(symbol.name);
+        }
+    });
+    return matches;
+}
+
+// An extended query matches a subset of the previous one, as long as the last term keeps its kind of match
+function canRefineSearch(query, terms) {
+    if (!lastSearch || !query.startsWith(lastSearch.query)) return false;
+    const last = lastSearch.terms.length - 1;
+    return last >= 0 && isPrefixTerm(lastSearch.terms[last]) === isPrefixTerm(terms[last]);
+}
+
+function isPrefixTerm(term) {
+    return term.length < SEARCH_GRAM_LENGTH;
+}
+
+function symbolMatches(id, term) {
+    const key = searchIndex.symbols[id].key;
+    const nameMatches = isPrefixTerm(term) ? key.startsWith(term) : key.includes(term);
+    return nameMatches || searchIndex.symbolWords[id].some(word => word.startsWith(term));
+}
+
+// Ids of the symbols whose name matches a term or whose description has a word starting with it
+function findTerm(term) {
+    const { symbols, words, wordIds } = searchIndex;
+    const found = new Set();
+
+    if (isPrefixTerm(term)) {
+        for (let i = lowerBound(symbols.length, i => symbols[i].key, term);
+             i < symbols.length && symbols[i].key.startsWith(term); i++) {
+            found.add(i);
+        }
+    } else {
+        trigramCandidates(term)
+            .filter(id => symbols[id].key.includes(term))
+            .forEach(id => found.add(id));
+    }
+
+    for (let w = lowerBound(words.length, w => words[w], term); w < words.length && words[w].startsWith(term); w++) {
+        wordIds[w].forEach(id => found.add(id));
+    }
+    return found;
+}
+
+// Ids of the names that contain every trigram of the term, shortest posting list first
+function trigramCandidates(term) {
+    const postings = [];
+    for (let i = 0; i + SEARCH_GRAM_LENGTH <= term.length; i++) {
+        const ids = searchIndex.trigrams[term.substring(i, i + SEARCH_GRAM_LENGTH)];
+        if (!ids) return [];
+        postings.push(ids);
+    }
+    postings.sort((a, b) => a.length - b.length);
+    return postings.reduce(intersectSorted);
+}
+
+function intersectSorted(a, b) {
+    const result = [];
+    let i = 0;
+    let j = 0;
+    while (i < a.length && j < b.length) {
+        if (a[i] < b[j]) {
+            i++;
+        } else if (a[i] > b[j]) {
+            j++;
+        } else {
+            result.push(a[i]);
+            i++;
+            j++;
+        }
+    }
+    return result;
+}
+
+// First index whose key is not less than the value, keys are in ascending order
+function lowerBound(length, keyAt, value) {
+    let low = 0;
+    let high = length;
+    while (low < high) {
+        const mid = (low + high) >>> 1;
+        if (keyAt(mid) < value) {
+            low = mid + 1;
+        } else {
+            high = mid;
+        }
+    }
+    return low;
+}
+
+// Streamed docs list a class once per group of its declarations, merge them by name
+function mergeClassFragments(doc) {
+    if (!doc.namespaces) return;
+
+    doc.namespaces.forEach(namespace => {
+        if (!namespace.classes) return;
+        const merged = new Map();
+        namespace.classes.forEach(clazz => {
+            const existing = merged.get(clazz.name);
+            if (!existing) {
+                merged.set(clazz.name, clazz);
+                return;
+            }
+            if (clazz.description !== null) {
+                existing.description = clazz.description;
+            }
+            existing.fields = (existing.fields || []).concat(clazz.fields || []);
+            existing.functions = (existing.functions || []).concat(clazz.functions || []);
+        });
+        namespace.classes = Array.from(merged.values());
+    });
+}
+
+// Sharded docs start with a manifest that only names the members of each namespace
+function isShardManifest(doc) {
+    return doc.format === 'luadoc-shards';
+}
+
+// Load a shard once, relative to the manifest
+function fetchShard(path) {
+    if (!shardCache.has(path)) {
+        const promise = fetch(new URL(path, shardBaseUrl)).then(response => {
+            if (!response.ok) {
+                throw new Error(`Failed to load ${path}: ${response.status}`);
+            }
+            return response.json();
+        });
+        // Allow a retry after a failed request
+        promise.catch(() => shardCache.delete(path));
+        shardCache.set(path, promise);
+    }
+    return shardCache.get(path);
+}
+
+// Full documentation of a navigation item, loading its shard first for sharded docs.
+// Manifest entries are in the same order as the members of their shard.
+async function resolveItem(item, type, namespaceName) {
+    if (!shardBaseUrl) return item;
+
+    const namespace = currentDoc.namespaces.find(ns => ns.name === namespaceName);
+    if (type === 'class') {
+        const shard = await fetchShard(item.shard);
+        return shard.classes ? shard.classes[namespace.classes.indexOf(item)] : shard;
+    }
+    const shard = await fetchShard(namespace.shard);
+    if (type === 'function') {
+        return shard.functions[namespace.functions.indexOf(item)];
+    }
+    return shard.fields[namespace.fields.indexOf(item)];
+}
+
+async function resolveGlobals(functions, namespaceName) {
+    if (!shardBaseUrl) return functions;
+
+    const namespace = currentDoc.namespaces.find(ns => ns.name === namespaceName);
+    const shard = await fetchShard(namespace.shard);
+    return functions.map(func => shard.functions[namespace.functions.indexOf(func)]);
+}
+
+function showLoadError(error) {
+    const content = document.getElementById('docContent');
+    content.innerHTML = '';
+    const message = document.createElement('p');
+    message.className = 'placeholder';
+    message.textContent = 'Error loading documentation: ' + error.message;
+    content.appendChild(message);
+}
+
+// Render an item once it is loaded, unless another item was selected in the meantime
+async function showItem(item, type, namespaceName) {
+    const token = ++renderToken;
+    try {
+        const resolved = await resolveItem(item, type, namespaceName);
+        if (token === renderToken) {
+            renderItem(resolved, type, namespaceName);
+        }
+    } catch (error) {
+        if (token === renderToken) {
+            showLoadError(error);
+        }
+    }
+}
+
+async function showGlobals(functions, namespaceName) {
+    const token = ++renderToken;
+    try {
+        const resolved = await resolveGlobals(functions, namespaceName);
+        if (token === renderToken) {
+            renderGlobals(resolved, namespaceName);
+        }
+    } catch (error) {
+        if (token === renderToken) {
+            showLoadError(error);
+        }
+    }
+}
 
 // Build a registry of all classes for type linking
 function buildClassRegistry(doc) {
     classRegistry.clear();
     if (!doc.namespaces) return;
 
+    const namespaceClasses = new Map(); // Map of namespace -> Map of className -> registry entry
     doc.namespaces.forEach(namespace => {
+        const classes = new Map();
+        namespaceClasses.set(namespace.name, classes);
         if (namespace.classes) {
             namespace.classes.forEach(clazz => {
-                classRegistry.set(clazz.name, {
+                const entry = {
                     class: clazz,
                     namespace: namespace.name
-                });
+                };
+                classRegistry.set(clazz.name, entry);
+                if (!classes.has(clazz.name)) classes.set(clazz.name, entry);
             });
         }
     });
 
+    // Symbols are [kind, namespace, class, name, file, line], typeRefs and inherited members point at them by id
+    docSymbols = doc.symbols || [];
+    symbolClasses = docSymbols.map(([kind, namespace, , name]) =>
+        kind === 'class' ? namespaceClasses.get(namespace)?.get(name) : undefined);
+    symbolOwners = docSymbols.map(([, namespace, owner]) =>
+        owner !== null ? namespaceClasses.get(namespace)?.get(owner) : undefined);
 }
 
 // Render navigation sidebar
 function renderNavigation(doc) {
     const nav = document.getElementById('navigation');
+    if (navListeners) navListeners.abort();
+    navListeners = new AbortController();
     nav.innerHTML = '';
 
     if (!doc.namespaces || doc.namespaces.length === 0) {
@@ -92,6 +400,8 @@ function renderNavigation(doc) {
     doc.namespaces.forEach(namespace => {
         const section = document.createElement('div');
         section.className = 'nav-section';
+        // Attached first, virtual lists measure their rows
+        nav.appendChild(section);
 
         const title = document.createElement('h3');
         title.textContent = namespace.name;
@@ -99,7 +409,7 @@ function renderNavigation(doc) {
 
         // Classes
         if (namespace.classes && namespace.classes.length > 0) {
-            const filteredClasses = filterItems(namespace.classes, 'name');
+            const filteredClasses = filterItems(namespace.classes, 'class', namespace.name);
             if (filteredClasses.length > 0) {
                 appendNavItems(section, 'Classes', filteredClasses, 'class', namespace.name);
             }
@@ -107,7 +417,7 @@ function renderNavigation(doc) {
 
         // Global Functions - grouped together
         if (namespace.functions && namespace.functions.length > 0) {
-            const filteredFunctions = filterItems(namespace.functions, 'name');
+            const filteredFunctions = filterItems(namespace.functions, 'function', namespace.name);
             if (filteredFunctions.length > 0) {
                 appendGlobalsNavItem(section, 'Globals', filteredFunctions, namespace);
             }
@@ -115,22 +425,24 @@ function renderNavigation(doc) {
 
         // Fields
         if (namespace.fields && namespace.fields.length > 0) {
-            const filteredFields = filterItems(namespace.fields, 'name');
+            const filteredFields = filterItems(namespace.fields, 'field', namespace.name);
             if (filteredFields.length > 0) {
                 appendNavItems(section, 'Fields', filteredFields, 'field', namespace.name);
             }
         }
-
-        nav.appendChild(section);
     });
 
-    initLucideIcons();
+    renderIcons(nav);
 }
 
-function filterItems(items, nameProperty) {
+function filterItems(items, type, namespaceName) {
     if (!currentFilter) return items;
+    if (searchMatches) {
+        const matches = searchMatches.get(namespaceName);
+        return matches ? items.filter(item => matches[type].has(item.name)) : [];
+    }
     return items.filter(item =>
-        item[nameProperty].toLowerCase().includes(currentFilter)
+        item.name.toLowerCase().includes(currentFilter)
     );
 }
 
@@ -151,10 +463,14 @@ function appendNavItems(section, title, items, type, namespaceName) {
 
     const list = document.createElement('ul');
     list.className = 'nav-list';
+    section.appendChild(list);
 
-    items.forEach(item => {
+    renderVirtualList(list, items, document.querySelector('.sidebar'), navListeners.signal, item => {
         const li = document.createElement('li');
         li.className = `nav-item nav-item-${type}`;
+        if (item === activeNavItem) {
+            li.classList.add('active');
+        }
 
         // Add icon
         const itemIcon = document.createElement('i');
@@ -166,14 +482,75 @@ function appendNavItems(section, title, items, type, namespaceName) {
         li.appendChild(itemText);
 
         li.addEventListener('click', () => {
-            document.querySelectorAll('.nav-item').forEach(el => el.classList.remove('active'));
-            li.classList.add('active');
-            renderItem(item, type, namespaceName);
+            selectNavItem(li, item);
+            showItem(item, type, namespaceName);
         });
-        list.appendChild(li);
+        renderIcons(li);
+        return li;
     });
+}
 
-    section.appendChild(list);
+function selectNavItem(li, item) {
+    document.querySelectorAll('.nav-item').forEach(el => el.classList.remove('active'));
+    activeNavItem = item;
+    if (li) {
+        li.classList.add('active');
+    }
+}
+
+// Keep only the rows of a list that are in or near the visible part of its scroll container in
+// the DOM. All rows have the height of the first one.
+function renderVirtualList(list, items, scroller, signal, renderRow) {
+    if (items.length === 0) return;
+
+    const rows = new Map(); // Map of item index -> row element
+    let stride = 0;
+    let style = null;
+    list.style.position = 'relative';
+
+    const update = () => {
+        if (stride === 0) {
+            const probe = renderRow(items[0]);
+            list.appendChild(probe);
+            const height = probe.getBoundingClientRect().height;
+            probe.remove();
+            // Not displayed, measured once the container is shown
+            if (height === 0) return;
+            style = getComputedStyle(list);
+            const gap = parseFloat(style.rowGap) || 0;
+            stride = height + gap;
+            // Lists are border-box sized, the height includes the padding
+            const padding = parseFloat(style.paddingTop) + parseFloat(style.paddingBottom);
+            list.style.height = `${items.length * stride - gap + padding}px`;
+        }
+
+        const offset = list.getBoundingClientRect().top - scroller.getBoundingClientRect().top;
+        const first = Math.max(0, Math.floor(-offset / stride) - VIRTUAL_OVERSCAN_ROWS);
+        const last = Math.min(items.length, Math.ceil((scroller.clientHeight - offset) / stride) + VIRTUAL_OVERSCAN_ROWS);
+        rows.forEach((row, index) => {
+            if (index < first || index >= last) {
+                row.remove();
+                rows.delete(index);
+            }
+        });
+        for (let index = first; index < last; index++) {
+            if (rows.has(index)) continue;
+            const row = renderRow(items[index]);
+            row.style.position = 'absolute';
+            row.style.top = `calc(${style.paddingTop} + ${index * stride}px)`;
+            row.style.left = style.paddingLeft;
+            row.style.right = style.paddingRight;
+            list.appendChild(row);
+            rows.set(index, row);
+        }
+    };
+
+    scroller.addEventListener('scroll', update, { passive: true, signal });
+    // Also covers the container being shown or resized
+    const resizeObserver = new ResizeObserver(update);
+    resizeObserver.observe(scroller);
+    signal.addEventListener('abort', () => resizeObserver.disconnect());
+    update();
 }
 
 function appendGlobalsNavItem(section, title, functions, namespace) {
@@ -192,6 +569,9 @@ function appendGlobalsNavItem(section, title, functions, namespace) {
 
     const li = document.createElement('li');
     li.className = 'nav-item nav-item-function';
+    if (namespace === activeNavItem) {
+        li.classList.add('active');
+    }
 
     // Add icon
     const itemIcon = document.createElement('i');
@@ -203,9 +583,8 @@ function appendGlobalsNavItem(section, title, functions, namespace) {
     li.appendChild(itemText);
 
     li.addEventListener('click', () => {
-        document.querySelectorAll('.nav-item').forEach(el => el.classList.remove('active'));
-        li.classList.add('active');
-        renderGlobals(functions, namespace.name);
+        selectNavItem(li, namespace);
+        showGlobals(functions, namespace.name);
     });
     list.appendChild(li);
 
@@ -224,6 +603,7 @@ function showWelcomeMessage() {
 
 function renderItem(item, type, namespaceName) {
     const content = document.getElementById('docContent');
+    resetLazyItems();
     content.innerHTML = '';
 
     const section = document.createElement('div');
@@ -251,6 +631,30 @@ function renderItem(item, type, namespaceName) {
 
     section.appendChild(header);
 
+    // Parent classes, resolved by the generator
+    if (type === 'class' && item.ancestors) {
+        const extendsLine = document.createElement('div');
+        extendsLine.className = 'description';
+        extendsLine.appendChild(document.createTextNode('Extends '));
+        item.ancestors.forEach((id, index) => {
+            if (index > 0) extendsLine.appendChild(document.createTextNode(' \u2192 '));
+            extendsLine.appendChild(createClassLink(symbolClasses[id], docSymbols[id][3]));
+        });
+        section.appendChild(extendsLine);
+    }
+
+    // Source of the class, written by generators that know it
+    if (type === 'class') {
+        const symbol = docSymbols.find(([kind, namespace, , name]) =>
+            kind === 'class' && namespace === namespaceName && name === item.name);
+        if (symbol && symbol[4]) {
+            const sourceLine = document.createElement('div');
+            sourceLine.className = 'description';
+            sourceLine.textContent = `Defined in ${symbol[4]}:${symbol[5]}`;
+            section.appendChild(sourceLine);
+        }
+    }
+
     // Description
     if (item.description) {
         const desc = document.createElement('div');
@@ -270,11 +674,12 @@ function renderItem(item, type, namespaceName) {
 
     content.appendChild(section);
     buildPageNavigation(item, type);
-    initLucideIcons();
+    renderIcons(section);
 }
 
 function renderGlobals(functions, namespaceName) {
     const content = document.getElementById('docContent');
+    resetLazyItems();
     content.innerHTML = '';
 
     const section = document.createElement('div');
@@ -322,17 +727,7 @@ function renderGlobals(functions, namespaceName) {
         subsectionTitle.textContent = 'Static Functions';
         subsection.appendChild(subsectionTitle);
 
-        const list = document.createElement('ul');
-        list.className = 'item-list';
-
-        staticFunctions.forEach(func => {
-            const li = document.createElement('li');
-            li.className = 'item';
-            renderFunctionContent(li, func);
-            list.appendChild(li);
-        });
-
-        subsection.appendChild(list);
+        appendItemList(subsection, staticFunctions, renderFunctionContent);
         section.appendChild(subsection);
     }
 
@@ -346,23 +741,13 @@ function renderGlobals(functions, namespaceName) {
         subsectionTitle.textContent = 'Instance Functions';
         subsection.appendChild(subsectionTitle);
 
-        const list = document.createElement('ul');
-        list.className = 'item-list';
-
-        instanceFunctions.forEach(func => {
-            const li = document.createElement('li');
-            li.className = 'item';
-            renderFunctionContent(li, func);
-            list.appendChild(li);
-        });
-
-        subsection.appendChild(list);
+        appendItemList(subsection, instanceFunctions, renderFunctionContent);
         section.appendChild(subsection);
     }
 
     content.appendChild(section);
     buildPageNavigation(functions, 'globals');
-    initLucideIcons();
+    renderIcons(section);
 }
 
 function renderClass(section, classItem) {
@@ -376,104 +761,7 @@ function renderClass(section, classItem) {
         title.textContent = 'Fields';
         subsection.appendChild(title);
 
-        const list = document.createElement('ul');
-        list.className = 'item-list';
-
-        classItem.fields.forEach(field => {
-            const li = document.createElement('li');
-            li.className = 'item';
-
-            const itemHeader = document.createElement('div');
-            itemHeader.className = 'item-header';
-
-            // Add icon
-            const icon = document.createElement('i');
-            icon.setAttribute('data-lucide', 'box');
-            itemHeader.appendChild(icon);
-
-            const name = document.createElement('span');
-            name.className = 'item-name';
-            name.textContent = field.name;
-            itemHeader.appendChild(name);
-
-            if (field.isStatic) {
-                const badge = document.createElement('span');
-                badge.className = 'item-badge static';
-                badge.textContent = 'static';
-                itemHeader.appendChild(badge);
-            }
-
-            li.appendChild(itemHeader);
-
-            // Field signature
-            const signatureWrapper = document.createElement('div');
-            signatureWrapper.className = 'field-signature';
-
-            const signatureContent = document.createElement('div');
-            signatureContent.className = 'field-signature-content';
-
-            const fieldName = document.createElement('span');
-            fieldName.className = 'field-name';
-            fieldName.textContent = field.name;
-            signatureContent.appendChild(fieldName);
-
-            const colon = document.createElement('span');
-            colon.className = 'punctuation';
-            colon.textContent = ': ';
-            signatureContent.appendChild(colon);
-
-            const fieldType = createColoredType(field.type);
-            signatureContent.appendChild(fieldType);
-
-            signatureWrapper.appendChild(signatureContent);
-
-            // Copy button
-            const copyBtn = document.createElement('button');
-            copyBtn.className = 'copy-signature-btn';
-            copyBtn.title = 'Copy field';
-            const copyIcon = document.createElement('i');
-            copyIcon.setAttribute('data-lucide', 'copy');
-            copyBtn.appendChild(copyIcon);
-            copyBtn.appendChild(document.createTextNode('Copy'));
-
-            const plainSignature = `${field.name}: ${field.type}`;
-
-            copyBtn.addEventListener('click', () => {
-                navigator.clipboard.writeText(plainSignature).then(() => {
-                    copyBtn.classList.add('copied');
-                    const checkIcon = document.createElement('i');
-                    checkIcon.setAttribute('data-lucide', 'check');
-                    copyBtn.innerHTML = '';
-                    copyBtn.appendChild(checkIcon);
-                    copyBtn.appendChild(document.createTextNode('Copied'));
-                    initLucideIcons();
-
-                    setTimeout(() => {
-                        copyBtn.classList.remove('copied');
-                        copyBtn.innerHTML = '';
-                        const copyIcon = document.createElement('i');
-                        copyIcon.setAttribute('data-lucide', 'copy');
-                        copyBtn.appendChild(copyIcon);
-                        copyBtn.appendChild(document.createTextNode('Copy'));
-                        initLucideIcons();
-                    }, 2000);
-                });
-            });
-
-            signatureWrapper.appendChild(copyBtn);
-            li.appendChild(signatureWrapper);
-
-            if (field.description) {
-                const desc = document.createElement('div');
-                desc.className = 'item-description';
-                desc.textContent = field.description;
-                li.appendChild(desc);
-            }
-
-            list.appendChild(li);
-        });
-
-        subsection.appendChild(list);
+        appendItemList(subsection, classItem.fields, renderClassFieldContent);
         section.appendChild(subsection);
     }
 
@@ -493,17 +781,7 @@ function renderClass(section, classItem) {
             title.textContent = 'Static Methods';
             subsection.appendChild(title);
 
-            const list = document.createElement('ul');
-            list.className = 'item-list';
-
-            staticFunctions.forEach(func => {
-                const li = document.createElement('li');
-                li.className = 'item';
-                renderFunctionContent(li, func);
-                list.appendChild(li);
-            });
-
-            subsection.appendChild(list);
+            appendItemList(subsection, staticFunctions, renderFunctionContent);
             section.appendChild(subsection);
         }
 
@@ -517,19 +795,215 @@ function renderClass(section, classItem) {
             title.textContent = 'Instance Methods';
             subsection.appendChild(title);
 
-            const list = document.createElement('ul');
-            list.className = 'item-list';
+            appendItemList(subsection, instanceFunctions, renderFunctionContent);
+            section.appendChild(subsection);
+        }
+    }
 
-            instanceFunctions.forEach(func => {
-                const li = document.createElement('li');
-                li.className = 'item';
-                renderFunctionContent(li, func);
-                list.appendChild(li);
-            });
+    // Members of the parent classes, flattened by the generator
+    appendInheritedMembers(section, 'Inherited Fields', classItem.inheritedFields);
+    appendInheritedMembers(section, 'Inherited Methods', classItem.inheritedFunctions);
+}
 
-            subsection.appendChild(list);
-            section.appendChild(subsection);
+function appendInheritedMembers(section, titleText, ids) {
+    if (!ids || ids.length === 0) return;
+
+    const subsection = document.createElement('div');
+    subsection.className = 'subsection';
+
+    const title = document.createElement('h2');
+    title.className = 'subsection-title';
+    title.textContent = titleText;
+    subsection.appendChild(title);
+
+    appendItemList(subsection, ids.map(inheritedMember), renderInheritedMemberContent);
+    section.appendChild(subsection);
+}
+
+function inheritedMember(id) {
+    const [kind, , owner, name] = docSymbols[id];
+    return { name, kind, owner, ownerClass: symbolOwners[id] };
+}
+
+function renderInheritedMemberContent(container, member) {
+    const itemHeader = document.createElement('div');
+    itemHeader.className = 'item-header';
+
+    const icon = document.createElement('i');
+    icon.setAttribute('data-lucide', member.kind === 'field' ? 'box' : 'zap');
+    itemHeader.appendChild(icon);
+
+    const name = document.createElement('span');
+    name.className = 'item-name';
+    name.textContent = member.name;
+    itemHeader.appendChild(name);
+
+    const owner = document.createElement('span');
+    owner.className = 'item-type';
+    owner.appendChild(document.createTextNode('from '));
+    owner.appendChild(createClassLink(member.ownerClass, member.owner));
+    itemHeader.appendChild(owner);
+
+    container.appendChild(itemHeader);
+}
+
+// Link to a class of the registry, or its plain name if it is not part of the doc
+function createClassLink(classInfo, name) {
+    const link = document.createElement('span');
+    link.className = 'type-token';
+    link.textContent = name;
+    if (!classInfo) return link;
+
+    link.classList.add('clickable-type');
+    link.style.cssText = 'cursor: pointer; text-decoration: underline dotted;';
+    link.style.color = 'var(--accent)';
+    link.title = 'Click to view ' + name;
+    link.addEventListener('click', (e) => {
+        e.stopPropagation();
+        e.preventDefault();
+        selectNavItem(null, null);
+        showItem(classInfo.class, 'class', classInfo.namespace);
+    });
+    return link;
+}
+
+// Long member lists only keep the items near the visible part of the page rendered, the others
+// are empty placeholders of their last rendered or of an estimated height
+function appendItemList(container, items, renderContent) {
+    const list = document.createElement('ul');
+    list.className = 'item-list';
+    const lazy = items.length > LAZY_ITEM_THRESHOLD;
+
+    items.forEach(item => {
+        const li = document.createElement('li');
+        li.className = 'item';
+        li.dataset.itemName = item.name;
+        if (lazy) {
+            li.style.height = `${LAZY_ITEM_HEIGHT}px`;
+            lazyItemRenderers.set(li, () => renderContent(li, item));
+            getLazyItemObserver().observe(li);
+        } else {
+            renderContent(li, item);
         }
+        list.appendChild(li);
+    });
+
+    container.appendChild(list);
+}
+
+function getLazyItemObserver() {
+    if (!lazyItemObserver) {
+        lazyItemObserver = new IntersectionObserver(entries => {
+            entries.forEach(entry => {
+                const li = entry.target;
+                const rendered = li.childElementCount > 0;
+                if (entry.isIntersecting && !rendered) {
+                    lazyItemRenderers.get(li)();
+                    renderIcons(li);
+                    li.style.height = '';
+                } else if (!entry.isIntersecting && rendered) {
+                    li.style.height = `${li.getBoundingClientRect().height}px`;
+                    li.replaceChildren();
+                }
+            });
+        }, { root: document.querySelector('.main-content'), rootMargin: LAZY_ITEM_MARGIN });
+    }
+    return lazyItemObserver;
+}
+
+function resetLazyItems() {
+    if (lazyItemObserver) {
+        lazyItemObserver.disconnect();
+        lazyItemObserver = null;
+    }
+}
+
+function renderClassFieldContent(container, field) {
+    const itemHeader = document.createElement('div');
+    itemHeader.className = 'item-header';
+
+    // Add icon
+    const icon = document.createElement('i');
+    icon.setAttribute('data-lucide', 'box');
+    itemHeader.appendChild(icon);
+
+    const name = document.createElement('span');
+    name.className = 'item-name';
+    name.textContent = field.name;
+    itemHeader.appendChild(name);
+
+    if (field.isStatic) {
+        const badge = document.createElement('span');
+        badge.className = 'item-badge static';
+        badge.textContent = 'static';
+        itemHeader.appendChild(badge);
+    }
+
+    container.appendChild(itemHeader);
+
+    // Field signature
+    const signatureWrapper = document.createElement('div');
+    signatureWrapper.className = 'field-signature';
+
+    const signatureContent = document.createElement('div');
+    signatureContent.className = 'field-signature-content';
+
+    const fieldName = document.createElement('span');
+    fieldName.className = 'field-name';
+    fieldName.textContent = field.name;
+    signatureContent.appendChild(fieldName);
+
+    const colon = document.createElement('span');
+    colon.className = 'punctuation';
+    colon.textContent = ': ';
+    signatureContent.appendChild(colon);
+
+    const fieldType = createColoredType(field.type);
+    signatureContent.appendChild(fieldType);
+
+    signatureWrapper.appendChild(signatureContent);
+
+    // Copy button
+    const copyBtn = document.createElement('button');
+    copyBtn.className = 'copy-signature-btn';
+    copyBtn.title = 'Copy field';
+    const copyIcon = document.createElement('i');
+    copyIcon.setAttribute('data-lucide', 'copy');
+    copyBtn.appendChild(copyIcon);
+    copyBtn.appendChild(document.createTextNode('Copy'));
+
+    const plainSignature = `${field.name}: ${field.type}`;
+
+    copyBtn.addEventListener('click', () => {
+        navigator.clipboard.writeText(plainSignature).then(() => {
+            copyBtn.classList.add('copied');
+            const checkIcon = document.createElement('i');
+            checkIcon.setAttribute('data-lucide', 'check');
+            copyBtn.innerHTML = '';
+            copyBtn.appendChild(checkIcon);
+            copyBtn.appendChild(document.createTextNode('Copied'));
+            initLucideIcons();
+
+            setTimeout(() => {
+                copyBtn.classList.remove('copied');
+                copyBtn.innerHTML = '';
+                const copyIcon = document.createElement('i');
+                copyIcon.setAttribute('data-lucide', 'copy');
+                copyBtn.appendChild(copyIcon);
+                copyBtn.appendChild(document.createTextNode('Copy'));
+                initLucideIcons();
+            }, 2000);
+        });
+    });
+
+    signatureWrapper.appendChild(copyBtn);
+    container.appendChild(signatureWrapper);
+
+    if (field.description) {
+        const desc = document.createElement('div');
+        desc.className = 'item-description';
+        desc.textContent = field.description;
+        container.appendChild(desc);
     }
 }
 
@@ -704,7 +1178,7 @@ function renderFunctionContent(container, func) {
             paramName.textContent = param.name;
             paramHeader.appendChild(paramName);
 
-            const paramType = createTypeElement(param.type + (param.optional ? '?' : ''));
+            const paramType = createTypeElement(param.type + (param.optional ? '?' : ''), param.typeRefs);
             paramHeader.appendChild(paramType);
 
             if (param.optional) {
@@ -753,7 +1227,7 @@ function renderFunctionContent(container, func) {
             const retHeader = document.createElement('div');
             retHeader.className = 'return-header';
 
-            const retType = createTypeElement(ret.type);
+            const retType = createTypeElement(ret.type, ret.typeRefs);
             retHeader.appendChild(retType);
             li.appendChild(retHeader);
 
@@ -891,10 +1365,14 @@ function createColoredType(typeString) {
     return span;
 }
 
-// Helper function to create a clickable type element
-function createTypeElement(typeString) {
+// Helper function to create a clickable type element. typeRefs are the [start, end, symbol]
+// spans of the type that name classes, as resolved by the generator; without them class
+// names are looked up in the class registry.
+function createTypeElement(typeString, typeRefs) {
     const container = document.createElement('span');
     container.className = 'item-type';
+    // Docs with symbols leave out the typeRefs of types that name no class
+    if (!typeRefs && symbolClasses.length > 0) typeRefs = [];
 
     // Parse the type string to handle union types and optional markers
     const types = parseTypeString(typeString);
@@ -925,8 +1403,14 @@ function createTypeElement(typeString) {
         typeToken.textContent = trimmedName;
 
         // Check if this type is a registered class
-        const cleanType = trimmedName.replace(/\?$/, ''); // Remove optional marker at end
-        if (classRegistry.has(cleanType)) {
+        let cleanType = trimmedName.replace(/\?$/, ''); // Remove optional marker at end
+        let classInfo = typeRefs ? undefined : classRegistry.get(cleanType);
+        if (typeRefs) {
+            const ref = typeRefs.find(([start, end]) => start >= typePart.start && end <= typePart.end);
+            classInfo = ref && symbolClasses[ref[2]];
+            if (classInfo) cleanType = classInfo.class.name;
+        }
+        if (classInfo) {
             typeToken.classList.add('clickable-type');
             typeToken.dataset.classType = cleanType;
             typeToken.style.cssText = 'cursor: pointer; text-decoration: underline dotted;';
@@ -936,12 +1420,9 @@ function createTypeElement(typeString) {
             typeToken.addEventListener('click', (e) => {
                 e.stopPropagation();
                 e.preventDefault();
-                const classInfo = classRegistry.get(cleanType);
-                if (classInfo) {
-                    // Clear active navigation
-                    document.querySelectorAll('.nav-item').forEach(el => el.classList.remove('active'));
-                    renderItem(classInfo.class, 'class', classInfo.namespace);
-                }
+                // Clear active navigation
+                selectNavItem(null, null);
+                showItem(classInfo.class, 'class', classInfo.namespace);
             });
         } else {
             // Apply color based on type
@@ -954,22 +1435,26 @@ function createTypeElement(typeString) {
     return container;
 }
 
-// Parse type string into parts (handling union types like "string|number")
+// Parse type string into parts (handling union types like "string|number"), with the
+// [start, end) range of every part in the type string
 function parseTypeString(typeString) {
     const parts = [];
     // Split by | and & but also handle generic types like table<string, XCore.Player>
     const tokens = typeString.split(/(\||&|<|>|,)/);
 
+    let offset = 0;
     for (let i = 0; i < tokens.length; i++) {
+        const start = offset;
+        offset += tokens[i].length;
         const token = tokens[i].trim();
         if (!token) continue;
 
         if (token === '|' || token === '&') {
-            parts.push({ name: ' ' + token + ' ', separator: '' });
+            parts.push({ name: ' ' + token + ' ', separator: '', start, end: offset });
         } else if (token === '<' || token === '>' || token === ',') {
-            parts.push({ name: token, separator: '' });
+            parts.push({ name: token, separator: '', start, end: offset });
         } else {
-            parts.push({ name: token, separator: '' });
+            parts.push({ name: token, separator: '', start, end: offset });
         }
     }
 
@@ -1051,6 +1536,33 @@ function initLucideIcons() {
     }
 }
 
+// Render the icons below an element only, from one rendering per icon name instead of letting
+// lucide search the whole document
+function renderIcons(root) {
+    if (typeof lucide === 'undefined' || !lucide.createIcons) return;
+
+    root.querySelectorAll('i[data-lucide]').forEach(placeholder => {
+        const icon = iconTemplate(placeholder.getAttribute('data-lucide')).cloneNode(true);
+        icon.classList.add(...placeholder.classList);
+        placeholder.replaceWith(icon);
+    });
+}
+
+function iconTemplate(name) {
+    if (!iconTemplates.has(name)) {
+        const holder = document.createElement('div');
+        holder.hidden = true;
+        const placeholder = document.createElement('i');
+        placeholder.setAttribute('data-lucide', name);
+        holder.appendChild(placeholder);
+        document.body.appendChild(holder);
+        lucide.createIcons();
+        iconTemplates.set(name, holder.firstElementChild);
+        holder.remove();
+    }
+    return iconTemplates.get(name);
+}
+
 // Toggle sidebar right
 function initSidebarToggle() {
     const sidebar = document.getElementById('sidebarRight');
@@ -1117,27 +1629,35 @@ function buildPageNavigation(item, type) {
     const nav = document.getElementById('pageNavigation');
     if (!nav) return;
 
+    if (pageNavListeners) pageNavListeners.abort();
+    pageNavListeners = new AbortController();
+    activePageNavItem = null;
     nav.innerHTML = '';
 
     if (type === 'class') {
         // Fields section
         if (item.fields && item.fields.length > 0) {
-            const section = createPageNavSection('Fields', 'box', item.fields, 'field');
-            nav.appendChild(section);
+            appendPageNavSection(nav, 'Fields', 'box', item.fields);
         }
 
         // Static Methods section
         const staticMethods = item.functions ? item.functions.filter(f => f.isStatic) : [];
         if (staticMethods.length > 0) {
-            const section = createPageNavSection('Static Methods', 'zap', staticMethods, 'function');
-            nav.appendChild(section);
+            appendPageNavSection(nav, 'Static Methods', 'zap', staticMethods);
         }
 
         // Instance Methods section
         const instanceMethods = item.functions ? item.functions.filter(f => !f.isStatic) : [];
         if (instanceMethods.length > 0) {
-            const section = createPageNavSection('Instance Methods', 'zap', instanceMethods, 'function');
-            nav.appendChild(section);
+            appendPageNavSection(nav, 'Instance Methods', 'zap', instanceMethods);
+        }
+
+        if (item.inheritedFields && item.inheritedFields.length > 0) {
+            appendPageNavSection(nav, 'Inherited Fields', 'box', item.inheritedFields.map(inheritedMember));
+        }
+
+        if (item.inheritedFunctions && item.inheritedFunctions.length > 0) {
+            appendPageNavSection(nav, 'Inherited Methods', 'zap', item.inheritedFunctions.map(inheritedMember));
         }
     } else if (type === 'globals') {
         // For globals, split by static/instance
@@ -1145,22 +1665,21 @@ function buildPageNavigation(item, type) {
         const instanceFunctions = item.filter(f => !f.isStatic);
 
         if (staticFunctions.length > 0) {
-            const section = createPageNavSection('Static Functions', 'zap', staticFunctions, 'function');
-            nav.appendChild(section);
+            appendPageNavSection(nav, 'Static Functions', 'zap', staticFunctions);
         }
 
         if (instanceFunctions.length > 0) {
-            const section = createPageNavSection('Instance Functions', 'zap', instanceFunctions, 'function');
-            nav.appendChild(section);
+            appendPageNavSection(nav, 'Instance Functions', 'zap', instanceFunctions);
         }
     }
 
-    initLucideIcons();
+    renderIcons(nav);
 }
 
-function createPageNavSection(title, iconName, items, type) {
+function appendPageNavSection(nav, title, iconName, items) {
     const section = document.createElement('div');
     section.className = 'page-nav-section';
+    nav.appendChild(section);
 
     const titleEl = document.createElement('div');
     titleEl.className = 'page-nav-title';
@@ -1174,19 +1693,22 @@ function createPageNavSection(title, iconName, items, type) {
 
     const list = document.createElement('ul');
     list.className = 'page-nav-list';
+    section.appendChild(list);
 
-    items.forEach(item => {
+    renderVirtualList(list, items, nav, pageNavListeners.signal, item => {
         const li = document.createElement('li');
         li.className = 'page-nav-item';
+        if (item === activePageNavItem) {
+            li.classList.add('active');
+        }
         li.textContent = item.name;
         li.dataset.itemName = item.name;
 
         li.addEventListener('click', () => {
-            // Scroll to item
+            // Scroll to item, items of long lists may not be rendered, their placeholders carry the name
             const itemElements = document.querySelectorAll('.item');
             itemElements.forEach(el => {
-                const nameEl = el.querySelector('.item-name');
-                if (nameEl && nameEl.textContent === item.name) {
+                if (el.dataset.itemName === item.name) {
                     el.scrollIntoView({ behavior: 'smooth', block: 'start' });
 
                     // Highlight briefly
@@ -1199,14 +1721,12 @@ function createPageNavSection(title, iconName, items, type) {
 
             // Update active state
             document.querySelectorAll('.page-nav-item').forEach(el => el.classList.remove('active'));
+            activePageNavItem = item;
             li.classList.add('active');
         });
 
-        list.appendChild(li);
+        return li;
     });
-
-    section.appendChild(list);
-    return section;
 }
 
 // Initialize theme when DOM content is ready